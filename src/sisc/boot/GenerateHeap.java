@@ -2,6 +2,7 @@ package sisc.boot;
 
 import java.io.*;
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
 import sisc.interpreter.*;
 import sisc.ser.*;
 import sisc.data.*;
@@ -19,7 +20,7 @@ public class GenerateHeap {
         rv[1]=base;
         // Now move the syntax
         ((MemorySymEnv)rv[0]).sidecars=((MemorySymEnv)base).sidecars;
-        ((MemorySymEnv)base).sidecars=new HashMap();
+        ((MemorySymEnv)base).sidecars=new ConcurrentHashMap();
 
         rv[1].setParent(rv[0]);
 
@@ -51,6 +52,7 @@ public class GenerateHeap {
     public static void main(String[] args) throws Exception {
         String inHeap = null;
         String outHeap = null;
+        boolean compress = false;
         int i;
 
         for (i = 0; i < args.length; i++) {
@@ -58,6 +60,8 @@ public class GenerateHeap {
             inHeap = args[++i];
           else if ("-out".equalsIgnoreCase(args[i]))
             outHeap = args[++i];
+          else if ("-compress".equalsIgnoreCase(args[i]))
+            compress = true;
           else if ("-files".equalsIgnoreCase(args[i])) {
             i++;
             break;
@@ -72,6 +76,7 @@ public class GenerateHeap {
         patchDefaults();
 
         LibraryBuilder lb=new LibraryBuilder();
+        lb.setCompressed(compress);
         MemorySymEnv symenv=new LibraryAE(Symbol.get("symenv"), lb);
         MemorySymEnv toplevel=new LibraryAE((Symbol)null, lb);
         toplevel.setName(Util.TOPLEVEL);
@@ -0,0 +1,136 @@
+package sisc.boot;
+
+import java.io.*;
+import sisc.interpreter.*;
+import sisc.data.*;
+import sisc.env.*;
+import sisc.nativefun.NativeLibrary;
+import sisc.util.Util;
+
+/**
+ * Brings a heap up to date with changes to the Scheme sources,
+ * without building it from scratch with {@link GenerateHeap}.
+ * <p>
+ * The input heap is booted, primitives of the libraries which
+ * GenerateHeap binds directly are bound if the heap lacks them, and
+ * the given files are loaded into its sisc-specific environment.
+ * These name the forms of the sources to evaluate again; see
+ * update-heap.scm.  The result is written with
+ * {@link AppContext#saveSnapshot}.
+ * </p>
+ * Run from src/sisc/boot, e.g.
+ * <pre>
+ * java sisc.boot.UpdateHeap -in sisc.shp -out sisc.shp -files update-heap.scm
+ * </pre>
+ */
+public class UpdateHeap {
+
+    private static final NativeLibrary[] PRIMITIVES = {
+        new sisc.modules.Primitives.Index(),
+        new sisc.modules.Annotations.Index(),
+        new sisc.modules.io.IO.Index(),
+        new sisc.modules.io.StringIO.Index()
+    };
+
+    public static void main(String[] args) throws Exception {
+        String inHeap = null;
+        String outHeap = null;
+        int i;
+
+        for (i = 0; i < args.length; i++) {
+          if ("-in".equalsIgnoreCase(args[i]))
+            inHeap = args[++i];
+          else if ("-out".equalsIgnoreCase(args[i]))
+            outHeap = args[++i];
+          else if ("-files".equalsIgnoreCase(args[i])) {
+            i++;
+            break;
+          }
+        }
+
+        if (inHeap == null || outHeap == null) {
+          System.out.println("Input and output heap file names must be specified!");
+          System.exit(1);
+        }
+
+        AppContext ctx = new AppContext();
+        System.out.println("Reading input heap: " + inHeap);
+        if (!ctx.addHeap(AppContext.openHeapFile(new File(inHeap))))
+            System.exit(1);
+
+        Interpreter r = Context.enter(ctx);
+        SymbolicEnvironment toplevel = ctx.toplevel_env;
+        SymbolicEnvironment sisc_specific =
+            r.lookupContextEnv(Util.SISC_SPECIFIC);
+        for (int j = 0; j < PRIMITIVES.length; j++) {
+            Symbol[] names = PRIMITIVES[j].getLibraryBindingNames(r);
+            for (int k = 0; k < names.length; k++) {
+                if (sisc_specific.lookup(names[k]) == null) {
+                    System.out.println("Binding " + names[k]);
+                    sisc_specific.define(names[k],
+                        PRIMITIVES[j].getBindingValue(r, names[k]));
+                }
+            }
+        }
+
+        //loaded code defines into the interaction environment
+        ctx.toplevel_env = sisc_specific;
+        Procedure load = (Procedure)toplevel.lookup(Symbol.get("load"));
+        for (; i < args.length; i++) {
+            System.out.println("Loading " + args[i] + "...");
+            try {
+                r.eval(load, new Value[] {new SchemeString(args[i])});
+            } catch (SchemeException se) {
+                System.err.println("Error during load: " + se.getMessage());
+                System.exit(1);
+            }
+        }
+        ctx.toplevel_env = toplevel;
+
+        System.out.println("Saving heap...");
+        try {
+            OutputStream out = new BufferedOutputStream(
+                new FileOutputStream(outHeap));
+            ctx.saveSnapshot(out);
+            out.flush();
+            out.close();
+        } catch (Exception e) {
+            System.err.println("Error saving heap:");
+            e.printStackTrace();
+            System.exit(1);
+        }
+        System.out.println("Heap saved.");
+        Context.exit();
+    }
+}
+/*
+ * The contents of this file are subject to the Mozilla Public
+ * License Version 1.1 (the "License"); you may not use this file
+ * except in compliance with the License. You may obtain a copy of
+ * the License at http://www.mozilla.org/MPL/
+ * 
+ * Software distributed under the License is distributed on an "AS
+ * IS" basis, WITHOUT WARRANTY OF ANY KIND, either express or
+ * implied. See the License for the specific language governing
+ * rights and limitations under the License.
+ * 
+ * The Original Code is the Second Interpreter of Scheme Code (SISC).
+ * 
+ * The Initial Developer of the Original Code is Scott G. Miller.
+ * Portions created by Scott G. Miller are Copyright (C) 2000-2007
+ * Scott G. Miller.  All Rights Reserved.
+ * 
+ * Contributor(s):
+ * 
+ * Alternatively, the contents of this file may be used under the
+ * terms of the GNU General Public License Version 2 or later (the
+ * "GPL"), in which case the provisions of the GPL are applicable 
+ * instead of those above.  If you wish to allow use of your 
+ * version of this file only under the terms of the GPL and not to
+ * allow others to use your version of this file under the MPL,
+ * indicate your decision by deleting the provisions above and
+ * replace them with the notice and other provisions required by
+ * the GPL.  If you do not delete the provisions above, a recipient
+ * may use your version of this file under either the MPL or the
+ * GPL.
+ */
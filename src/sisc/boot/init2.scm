@@ -581,7 +581,8 @@ OPTION	[MNEMONIC]	DESCRIPTION	-- Implementation Assumes ASCII Text Encoding
              [point-parent
               (syntax-rules () 
                 ((_ point) (vector-ref point 3)))])
-  (let ((original-call/cc call-with-current-continuation))
+  (let ((original-call/cc call-with-current-continuation)
+        (original-call/1cc call-with-one-shot-continuation))
     ;;the dynamic wind stack
     (define get-dynamic-point current-wind)
     (define set-dynamic-point! current-wind)
@@ -614,6 +615,10 @@ OPTION	[MNEMONIC]	DESCRIPTION	-- Implementation Assumes ASCII Text Encoding
       (original-call/cc
        (lambda (cont)
          (proc (make-wind-safe cont)))))
+    (define (dynwind-call/1cc proc)
+      (original-call/1cc
+       (lambda (cont)
+         (proc (make-wind-safe cont)))))
     (define (dynamic-wind/impl in body out)
       (let* ((here (get-dynamic-point))
              (point (make-point (if here (+ (point-depth here) 1) 1)
@@ -634,12 +639,14 @@ OPTION	[MNEMONIC]	DESCRIPTION	-- Implementation Assumes ASCII Text Encoding
             (apply values results)))))
     ;;finally, the install the dynamic-wind hooks
     (set! dynamic-wind dynamic-wind/impl)
-    (set! call-with-current-continuation dynwind-call/cc)))
+    (set! call-with-current-continuation dynwind-call/cc)
+    (set! call-with-one-shot-continuation dynwind-call/1cc)))
 
 (define call/fc call-with-failure-continuation)
 (define with/fc with-failure-continuation)
 (define call/ec call-with-escape-continuation)
 (define call/cc call-with-current-continuation)
+(define call/1cc call-with-one-shot-continuation)
 
 (define (with-environment env thunk)
   (let ([old-env (interaction-environment env)])
@@ -0,0 +1,99 @@
+;; 
+;; The contents of this file are subject to the Mozilla Public
+;; License Version 1.1 (the "License"); you may not use this file
+;; except in compliance with the License. You may obtain a copy of
+;; the License at http://www.mozilla.org/MPL/
+;; 
+;; Software distributed under the License is distributed on an "AS
+;; IS" basis, WITHOUT WARRANTY OF ANY KIND, either express or
+;; implied. See the License for the specific language governing
+;; rights and limitations under the License.
+;; 
+;; The Original Code is the Second Interpreter of Scheme Code (SISC).
+;; 
+;; The Initial Developer of the Original Code is Scott G. Miller.
+;; Portions created by Scott G. Miller are Copyright (C) 2000-2007
+;; Scott G. Miller.  All Rights Reserved.
+;; 
+;; Contributor(s):
+;; 
+;; Alternatively, the contents of this file may be used under the
+;; terms of the GNU General Public License Version 2 or later (the
+;; "GPL"), in which case the provisions of the GPL are applicable 
+;; instead of those above.  If you wish to allow use of your 
+;; version of this file only under the terms of the GPL and not to
+;; allow others to use your version of this file under the MPL,
+;; indicate your decision by deleting the provisions above and
+;; replace them with the notice and other provisions required by
+;; the GPL.  If you do not delete the provisions above, a recipient
+;; may use your version of this file under either the MPL or the
+;; GPL.
+;;
+;; Brings sisc.shp up to date with changes to the Scheme sources that
+;; were made since it was last built; loaded by sisc.boot.UpdateHeap,
+;; which has the details.  The heap cannot be rebuilt from scratch in
+;; this tree, since the sources of the oo module are missing from it.
+;;
+;; When the sources change again, extend the lists below with the
+;; definitions and modules involved, then run, from this directory,
+;;
+;;   java sisc.boot.UpdateHeap -in base.shp -out sisc.shp \
+;;        -files update-heap.scm
+;;
+;; where base.shp is sisc.shp as GenerateHeap last built it, i.e. as
+;; of the first commit of this repository.  Do not start from a heap
+;; this script has already updated: every run adds the reloaded
+;; modules to the heap again.
+
+(let ()
+  (define (read-forms file)
+    (call-with-input-file file
+      (lambda (in)
+        (let loop ([acc '()])
+          (let ([x (read in)])
+            (if (eof-object? x)
+                (reverse acc)
+                (loop (cons x acc))))))))
+  (define (mentions? x sym)
+    (cond [(pair? x) (or (mentions? (car x) sym) (mentions? (cdr x) sym))]
+          [(vector? x) (mentions? (vector->list x) sym)]
+          [else (eq? x sym)]))
+  (define (defines? x names)
+    (and (pair? x) (eq? (car x) 'define) (pair? (cdr x))
+         (memq (cadr x) names)))
+  (define (names-module? x names)
+    (and (pair? x) (memq (car x) '(module native-module)) (pair? (cdr x))
+         (memq (cadr x) names)))
+  ;;evaluates the forms of a file selected by pred, in order, with
+  ;;includes resolved against the file
+  (define (reload file pred)
+    (let ([previous-url (current-url)])
+      (current-url (normalize-url previous-url file))
+      (for-each (lambda (x)
+                  (if (pred x) (eval x (interaction-environment))))
+                (read-forms (current-url)))
+      (current-url previous-url)))
+
+  ;;init2.scm: the dynamic-wind block, which wraps call/cc and call/1cc
+  ;;so that they are wind-safe, and the short names of both.  The block
+  ;;must capture the unwrapped call/cc.
+  (set! call-with-current-continuation
+        call-with-current-continuation-unsafe)
+  (reload "init2.scm"
+          (lambda (x)
+            (or (mentions? x 'dynwind-call/cc)
+                (defines? x '(call/cc call/1cc)))))
+
+  ;;std-modules.scm: native modules with new primitives, and modules
+  ;;with new exports or definitions
+  (reload "../modules/std-modules.scm"
+          (lambda (x)
+            (names-module? x '(debugging-native
+                               threading-native
+                               hashtable-native
+                               serial-io-native
+                               threading-pretypes
+                               threading
+                               hashtable
+                               serial-io
+                               debugging)))))
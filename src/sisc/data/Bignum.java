@@ -0,0 +1,270 @@
+package sisc.data;
+
+import java.math.*;
+import java.io.*;
+import sisc.ser.Serializer;
+import sisc.ser.Deserializer;
+
+/**
+ * An exact integer outside the range of a Java int.  Fixnums widen
+ * themselves to unnormalized Bignums to share the mixed-type integer
+ * operations, so every result leaves through <tt>valueOf</tt>.
+ */
+public class Bignum extends Quantity {
+
+    public BigInteger i;
+
+    public Bignum() {
+        super(INTEG);
+    }
+
+    Bignum(BigInteger i) {
+        this();
+        this.i=i;
+    }
+
+    public Quantity not() {
+        return valueOf(i.not());
+    }
+
+    public Quantity bitCount() {
+        return valueOf(i.bitCount());
+    }
+
+    public Quantity lsh(int num) {
+        return valueOf(i.shiftLeft(num));
+    }
+
+    public Quantity rsh(int num) {
+        return valueOf(i.shiftRight(num));
+    }
+
+    /**
+     * Returns the integer value of an integral argument, or null if
+     * it is not an integer.
+     */
+    protected static BigInteger integerOperand(Quantity o) {
+        switch (o.type) {
+        case FIXEDINT:
+            return BigInteger.valueOf(((Fixnum)o).val);
+        case INTEG:
+            return ((Bignum)o).i;
+        case DECIM:
+            double od=((Flonum)o).d;
+            if (isIntegral(od))
+                return d2i(od);
+        }
+        return null;
+    }
+
+    public Quantity gcd(Quantity o) {
+        BigInteger oi=integerOperand(o);
+        if (oi==null)
+            throw new ArithmeticException(liMessage(SISCB,"isnotaninteger", o.toString()));
+        Quantity rv=valueOf(i.gcd(oi));
+        return (o.type==DECIM ? rv.toInexact() : rv);
+    }
+
+    public Quantity lcm(Quantity o) {
+        BigInteger oi=integerOperand(o);
+        if (oi==null)
+            throw new ArithmeticException(liMessage(SISCB,"isnotaninteger", o.toString()));
+        BigInteger L=oi.abs(), n=i.abs();
+        BigInteger g=n.gcd(L);
+        L=(g.signum()==0 ? g : n.divide(g).multiply(L));
+        return (o.type==DECIM ? valueOf(L).toInexact() : valueOf(L));
+    }
+
+    public Quantity modulo(Quantity o) {
+        BigInteger oi=integerOperand(o);
+        if (oi==null)
+            throw new NumberFormatException(liMessage(SISCB,"expectedintegers"));
+        Quantity rv=valueOf(i.mod(oi));
+        return (o.type==DECIM ? rv.toInexact() : rv);
+    }
+
+    public Quantity quotient(Quantity o) {
+        BigInteger oi=integerOperand(o);
+        if (oi==null)
+            throw new NumberFormatException(liMessage(SISCB,"expectedintegers"));
+        Quantity rv=valueOf(i.divide(oi));
+        return (o.type==DECIM ? rv.toInexact() : rv);
+    }
+
+    public Quantity remainder(Quantity o) {
+        BigInteger oi=integerOperand(o);
+        if (oi==null)
+            throw new NumberFormatException(liMessage(SISCB,"expectedintegers"));
+        Quantity rv=valueOf(i.remainder(oi));
+        return (o.type==DECIM ? rv.toInexact() : rv);
+    }
+
+    public Quantity negate() {
+        return valueOf(i.negate());
+    }
+
+    public Quantity sqrt() {
+        return integerSqrt(i);
+    }
+
+    public Quantity add(Quantity o) {
+        switch (o.type) {
+        case FIXEDINT:
+            return valueOf(i.add(BigInteger.valueOf(((Fixnum)o).val)));
+        case DECIM:
+            return valueOf(i.doubleValue()+((Flonum)o).d);
+        case INTEG:
+            return valueOf(i.add(((Bignum)o).i));
+        case RATIO:
+            Ratnum r=(Ratnum)o;
+            return valueOf(i.multiply(r.de).add(r.i), r.de);
+        default:
+            return o.add(this);
+        }
+    }
+
+    public Quantity mul(Quantity o) {
+        switch (o.type) {
+        case FIXEDINT:
+            return valueOf(i.multiply(BigInteger.valueOf(((Fixnum)o).val)));
+        case DECIM:
+            return valueOf(i.doubleValue()*((Flonum)o).d);
+        case INTEG:
+            return valueOf(i.multiply(((Bignum)o).i));
+        case RATIO:
+            Ratnum r=(Ratnum)o;
+            return valueOf(i.multiply(r.i), r.de);
+        default:
+            return o.mul(this);
+        }
+    }
+
+    public Quantity sub(Quantity o) {
+        switch (o.type) {
+        case FIXEDINT:
+            return valueOf(i.subtract(BigInteger.valueOf(((Fixnum)o).val)));
+        case DECIM:
+            return valueOf(i.doubleValue()-((Flonum)o).d);
+        case INTEG:
+            return valueOf(i.subtract(((Bignum)o).i));
+        case RATIO:
+            Ratnum r=(Ratnum)o;
+            return valueOf(i.multiply(r.de).subtract(r.i), r.de);
+        default:
+            Compnum c=(Compnum)o;
+            return valueOf(i.doubleValue()-c.d, -c.im);
+        }
+    }
+
+    public Quantity div(Quantity o) {
+        switch (o.type) {
+        case FIXEDINT:
+            return valueOf(i, BigInteger.valueOf(((Fixnum)o).val));
+        case DECIM:
+            return valueOf(i.doubleValue()/((Flonum)o).d);
+        case INTEG:
+            return valueOf(i, ((Bignum)o).i);
+        case RATIO:
+            Ratnum r=(Ratnum)o;
+            return valueOf(r.de.multiply(i), r.i);
+        default:
+            return new Compnum(i.doubleValue(), 0.0).div(o);
+        }
+    }
+
+    public boolean comp(Quantity o, int test) {
+        switch (o.type) {
+        case FIXEDINT:
+            return i.compareTo(BigInteger.valueOf(((Fixnum)o).val))==test;
+        case DECIM:
+            double od=((Flonum)o).d;
+            if (Double.isNaN(od)) return false;
+            return sign(i.doubleValue()-od)==test;
+        case INTEG:
+            return i.compareTo(((Bignum)o).i)==test;
+        case RATIO:
+            Ratnum r=(Ratnum)o;
+            return i.multiply(r.de).compareTo(r.i)==test;
+        default:
+            return compComplex((Compnum)o, test);
+        }
+    }
+
+    public double doubleValue() {
+        return i.doubleValue();
+    }
+
+    public double decimal() {
+        return i.doubleValue();
+    }
+
+    public long longValue() {
+        return i.longValue();
+    }
+
+    public int intValue() {
+        return i.intValue();
+    }
+
+    public BigInteger integer() {
+        return i;
+    }
+
+    public Quantity toInexact() {
+        return valueOf(i.doubleValue());
+    }
+
+    public int hashCode() {
+        return INTEG^i.hashCode();
+    }
+
+    public String toString(int radix) {
+        return i.toString(radix);
+    }
+
+    public void deserialize(Deserializer s) throws IOException {
+        s.readInt();
+        i=s.readBigInteger();
+    }
+
+    public void serialize(Serializer s) throws IOException {
+        s.writeInt(type);
+        s.writeBigInteger(i);
+    }
+
+    public Value singletonValue() {
+        return valueOf(i);
+    }
+}
+
+/*
+ * The contents of this file are subject to the Mozilla Public
+ * License Version 1.1 (the "License"); you may not use this file
+ * except in compliance with the License. You may obtain a copy of
+ * the License at http://www.mozilla.org/MPL/
+ * 
+ * Software distributed under the License is distributed on an "AS
+ * IS" basis, WITHOUT WARRANTY OF ANY KIND, either express or
+ * implied. See the License for the specific language governing
+ * rights and limitations under the License.
+ * 
+ * The Original Code is the Second Interpreter of Scheme Code (SISC).
+ * 
+ * The Initial Developer of the Original Code is Scott G. Miller.
+ * Portions created by Scott G. Miller are Copyright (C) 2000-2007
+ * Scott G. Miller.  All Rights Reserved.
+ * 
+ * Contributor(s):
+ * 
+ * Alternatively, the contents of this file may be used under the
+ * terms of the GNU General Public License Version 2 or later (the
+ * "GPL"), in which case the provisions of the GPL are applicable 
+ * instead of those above.  If you wish to allow use of your 
+ * version of this file only under the terms of the GPL and not to
+ * allow others to use your version of this file under the MPL,
+ * indicate your decision by deleting the provisions above and
+ * replace them with the notice and other provisions required by
+ * the GPL.  If you do not delete the provisions above, a recipient
+ * may use your version of this file under either the MPL or the
+ * GPL.
+ */
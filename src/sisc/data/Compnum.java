@@ -0,0 +1,240 @@
+package sisc.data;
+
+import java.math.*;
+import java.io.*;
+import sisc.ser.Serializer;
+import sisc.ser.Deserializer;
+
+/**
+ * An inexact complex number with a non-zero imaginary part.
+ */
+public class Compnum extends Quantity {
+
+    public double d, im;
+
+    public Compnum() {
+        super(COMPLEX);
+    }
+
+    Compnum(double real, double imag) {
+        this();
+        d=real;
+        im=imag;
+    }
+
+    protected Quantity round(int rtype) {
+        throw new ArithmeticException(liMessage(SISCB,"isnotareal", this.toString()));
+    }
+
+    public Quantity sin() {
+        //  sin(x+iy) = sin(x)cosh(y) + i*cos(x)sinh(y)
+        Quantity z=mul(I);
+        z=z.exp().sub(z.negate().exp());
+        return z.div(TWO_I);
+    }
+
+    public Quantity cos() {
+        Quantity z=mul(I);
+        z=z.exp().add(z.negate().exp());
+        return z.div(TWO);
+    }
+
+    public Quantity tan() {
+        Quantity z=mul(I);
+        Quantity p=z.exp();
+        Quantity n=z.negate().exp();
+        return p.sub(n).div(I.mul(p.add(n)));
+    }
+
+    public Quantity exp() {
+        //e^(x+I*y) = e^x (Cos[y]+I*Sin[y])
+        //          = e^x*Cos[y] + I*e^x*Sin[y]
+        double etox=Math.exp(d);
+        return valueOf(etox*Math.cos(im), etox*Math.sin(im));
+    }
+
+    public Quantity log() {
+        // Arg[w] = ArcTan(b/a)
+        // |w| = sqrt(a^2 + b^2)
+        // Log[w] = Log[|w|]+I*(Arg[w]+2*Pi*k), for any integer k.
+        // select k=0 for principal value, giving:
+        // Log[w] = Log[|w|]+I*Arg[w]
+        //        = Log[sqrt(a^2 + b^2)] + I * ArcTan(b/a)
+        double a2=d*d;
+        double b2=im*im;
+        double arctan=Math.atan2(im,d);
+        double x=Math.log(Math.sqrt(a2+b2));
+        return valueOf(x,arctan);
+    }
+
+    public Quantity negate() {
+        return new Compnum(-d, -im);
+    }
+
+    public Quantity sqrt() {
+        // Take r=sqrt(a^2 + b^2)
+        double a2=d*d;
+        double b2=im*im;
+        double r=Math.sqrt(a2 + b2);
+
+        // The two square roots of a+bi are (x +yi) and -(x +yi) with
+        //           y = sqrt((r - a)/2) and x = b/(2.y)
+        double y=Math.sqrt((r-d)/2);
+        double x=im/(2*y);
+        if (x < 0) {
+            return valueOf(-x, -y);
+        } else
+            return valueOf(x, y);
+    }
+
+    public Quantity add(Quantity o) {
+        if (o.type==COMPLEX) {
+            Compnum c=(Compnum)o;
+            return valueOf(d+c.d, im+c.im);
+        }
+        return valueOf(d+o.doubleValue(), im);
+    }
+
+    public Quantity mul(Quantity o) {
+        double g, h=0.0;
+        if (o.type==COMPLEX) {
+            Compnum c=(Compnum)o;
+            g=c.d;
+            h=c.im;
+        } else g=o.doubleValue();
+        return valueOf((d*g)-(im*h), (d*h)+(im*g));
+    }
+
+    public Quantity sub(Quantity o) {
+        if (o.type==COMPLEX) {
+            Compnum c=(Compnum)o;
+            return valueOf(d-c.d, im-c.im);
+        }
+        return valueOf(d-o.doubleValue(), im);
+    }
+
+    public Quantity div(Quantity o) {
+        if (o.type!=COMPLEX) {
+            double oval=o.doubleValue();
+            return valueOf(div(d,oval), div(im,oval));
+        }
+        Compnum c=(Compnum)o;
+        double g=c.d, h=c.im;
+
+        // (a+ib)/(c+id)=(ac+bd+i(bc-ad))/(c^2+d^2)
+        double c2_p_d2=g*g+h*h;
+        return valueOf(div(d*g+im*h, c2_p_d2), div(im*g-d*h, c2_p_d2));
+    }
+
+    public boolean comp(Quantity o, int test) {
+        if (o.type==COMPLEX) {
+            Compnum c=(Compnum)o;
+            int x=0;
+            if ((x=sign(d-c.d))==0)
+                return sign(im-c.im)==test;
+            else return x==test;
+        }
+        return o.compComplex(this, -test);
+    }
+
+    public double doubleValue() {
+        return 0.0;
+    }
+
+    public long longValue() {
+        return 0;
+    }
+
+    public int intValue() {
+        return 0;
+    }
+
+    public Quantity toExact() {
+        return valueOf((double)Math.round(d), (double)Math.round(im));
+    }
+
+    public Quantity realpart() {
+        return valueOf(d);
+    }
+
+    public Quantity imagpart() {
+        return valueOf(im);
+    }
+
+    public Quantity numerator() throws NumberFormatException {
+        throw new NumberFormatException(liMessage(SISCB,"isnotrational", toString()));
+    }
+
+    public Quantity denominator() throws NumberFormatException {
+        throw new NumberFormatException(liMessage(SISCB,"isnotrational", toString()));
+    }
+
+    public int hashCode() {
+        return COMPLEX^hashDouble(d)^hashDouble(im);
+    }
+
+    public String toString(int radix) {
+        StringBuffer b=new StringBuffer();
+        b.append(zeroTrim(Double.toString(d).toLowerCase()));
+        if (im>0) {
+            b.append('+');
+            if (im!=1.0)
+                b.append(Double.toString(im).toLowerCase());
+        } else {
+            if (im==-1.0)
+                b.append('-');
+            else
+                b.append(zeroTrim(Double.toString(im).toLowerCase()));
+        }
+        b.append('i');
+        return b.toString();
+    }
+
+    public void deserialize(Deserializer s) throws IOException {
+        s.readInt();
+        d=s.readBigDecimal().doubleValue();
+        im=s.readBigDecimal().doubleValue();
+    }
+
+    public void serialize(Serializer s) throws IOException {
+        s.writeInt(type);
+        s.writeBigDecimal(new BigDecimal(d));
+        s.writeBigDecimal(new BigDecimal(im));
+    }
+
+    public Value singletonValue() {
+        return valueOf(d, im);
+    }
+}
+
+/*
+ * The contents of this file are subject to the Mozilla Public
+ * License Version 1.1 (the "License"); you may not use this file
+ * except in compliance with the License. You may obtain a copy of
+ * the License at http://www.mozilla.org/MPL/
+ * 
+ * Software distributed under the License is distributed on an "AS
+ * IS" basis, WITHOUT WARRANTY OF ANY KIND, either express or
+ * implied. See the License for the specific language governing
+ * rights and limitations under the License.
+ * 
+ * The Original Code is the Second Interpreter of Scheme Code (SISC).
+ * 
+ * The Initial Developer of the Original Code is Scott G. Miller.
+ * Portions created by Scott G. Miller are Copyright (C) 2000-2007
+ * Scott G. Miller.  All Rights Reserved.
+ * 
+ * Contributor(s):
+ * 
+ * Alternatively, the contents of this file may be used under the
+ * terms of the GNU General Public License Version 2 or later (the
+ * "GPL"), in which case the provisions of the GPL are applicable 
+ * instead of those above.  If you wish to allow use of your 
+ * version of this file only under the terms of the GPL and not to
+ * allow others to use your version of this file under the MPL,
+ * indicate your decision by deleting the provisions above and
+ * replace them with the notice and other provisions required by
+ * the GPL.  If you do not delete the provisions above, a recipient
+ * may use your version of this file under either the MPL or the
+ * GPL.
+ */
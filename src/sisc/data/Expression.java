@@ -23,6 +23,9 @@ public abstract class Expression extends Util
     
     protected static Set EMPTYSET=new TreeSet();
 
+    //the annotation key of the values of ephemeron hashtables
+    private static final Object EPHEMERONS=new Object();
+
     public Map annotations;
     
     public synchronized Value getAnnotation(Symbol key, Value def) {
@@ -49,7 +52,11 @@ public abstract class Expression extends Util
 
     public synchronized Set getAnnotationKeys() {
         if (annotations==null) return EMPTYSET;
-        return annotations.keySet();
+        if (!annotations.containsKey(EPHEMERONS))
+            return annotations.keySet();
+        Set res=new HashSet(annotations.keySet());
+        res.remove(EPHEMERONS);
+        return res;
     }
 
     public synchronized Pair getAnnotations() {
@@ -57,6 +64,7 @@ public abstract class Expression extends Util
         if (annotations == null) return res;
         for (Iterator i = annotations.entrySet().iterator(); i.hasNext();) {
             Map.Entry en = (Map.Entry)i.next();
+            if (en.getKey() == EPHEMERONS) continue;
             res = new Pair(new Pair((Value)en.getKey(), (Value)en.getValue()),
                            res);
         }
@@ -67,9 +75,11 @@ public abstract class Expression extends Util
         if (annotations == null) {
             s.writeInt(0);
         } else {
-            s.writeInt(annotations.size());
+            s.writeInt(annotations.size() -
+                       (annotations.containsKey(EPHEMERONS) ? 1 : 0));
             for (Iterator i=annotations.entrySet().iterator(); i.hasNext();) {
                 Map.Entry en = (Map.Entry)i.next();
+                if (en.getKey() == EPHEMERONS) continue;
                 s.writeExpression((Expression)en.getKey());
                 s.writeExpression((Expression)en.getValue());
             }
@@ -91,12 +101,52 @@ public abstract class Expression extends Util
         if (annotations == null) return true;
         for (Iterator i=annotations.entrySet().iterator(); i.hasNext();) {
             Map.Entry en = (Map.Entry)i.next();
+            if (en.getKey() == EPHEMERONS) continue;
             if (!v.visit((Expression)en.getKey())) return false;
             if (!v.visit((Expression)en.getValue())) return false;
         }
         return true;
     }
 
+    /**
+     * Returns the value bound to this expression in an ephemeron
+     * hashtable, identified by <tt>table</tt>, or null.
+     * <p>
+     * These values are kept in a hidden annotation, so that they are
+     * only reachable through their key; the annotation is neither
+     * listed nor serialized.  It maps the tables weakly, so that the
+     * values go away with the tables.
+     * </p>
+     */
+    public synchronized Value getEphemeron(Object table) {
+        if (annotations==null) return null;
+        Map m=(Map)annotations.get(EPHEMERONS);
+        return (m == null) ? null : (Value)m.get(table);
+    }
+
+    /**
+     * Binds this expression to a value in an ephemeron hashtable,
+     * identified by <tt>table</tt>, or removes the binding if the
+     * value is null.
+     *
+     * @see #getEphemeron
+     */
+    public synchronized void setEphemeron(Object table, Value val) {
+        Map m=(annotations == null ? null : (Map)annotations.get(EPHEMERONS));
+        if (m == null) {
+            if (val == null) return;
+            if (annotations == null)
+                annotations=new HashMap(0);
+            m=new WeakHashMap(1);
+            annotations.put(EPHEMERONS, m);
+        }
+        if (val != null) m.put(table, val);
+        else {
+            m.remove(table);
+            if (m.isEmpty()) annotations.remove(EPHEMERONS);
+        }
+    }
+
     /**
      * The following helpers set the 'name annotation, which is used for 
      * naming procedures, environments, etc.
@@ -0,0 +1,264 @@
+package sisc.data;
+
+import java.math.*;
+import java.io.*;
+import sisc.ser.Serializer;
+import sisc.ser.Deserializer;
+
+/**
+ * An exact integer in the range of a Java int.
+ */
+public class Fixnum extends Quantity {
+
+    public int val;
+
+    public Fixnum() {
+        super(FIXEDINT);
+    }
+
+    Fixnum(int val) {
+        this();
+        this.val=val;
+    }
+
+    /**
+     * Returns this fixnum as an unnormalized Bignum, so that mixed
+     * integer operations can share the Bignum implementation.
+     */
+    protected final Bignum widen() {
+        return new Bignum(BigInteger.valueOf(val));
+    }
+
+    public Quantity and(Quantity o) throws NumberFormatException {
+        if (o.type==FIXEDINT)
+            return valueOf(val & ((Fixnum)o).val);
+        return super.and(o);
+    }
+
+    public Quantity or(Quantity o) throws NumberFormatException {
+        if (o.type==FIXEDINT)
+            return valueOf(val | ((Fixnum)o).val);
+        return super.or(o);
+    }
+
+    public Quantity xor(Quantity o) throws NumberFormatException {
+        if (o.type==FIXEDINT)
+            return valueOf(val ^ ((Fixnum)o).val);
+        return super.xor(o);
+    }
+
+    public Quantity not() {
+        return valueOf(~val);
+    }
+
+    public Quantity bitCount() {
+        return valueOf(BigInteger.valueOf(val).bitCount());
+    }
+
+    public Quantity lsh(int num) {
+        //a shift of less than 32 bits always fits in a long
+        if (num >= 0 && num < 32)
+            return valueOf(((long)val) << num);
+        return valueOf(BigInteger.valueOf(val).shiftLeft(num));
+    }
+
+    public Quantity rsh(int num) {
+        if (num >= 0)
+            return valueOf(val >> Math.min(num, 31));
+        return valueOf(BigInteger.valueOf(val).shiftRight(num));
+    }
+
+    public Quantity gcd(Quantity o) {
+        if (o.type==FIXEDINT) {
+            long a=Math.abs((long)val), b=Math.abs((long)((Fixnum)o).val);
+            while (b != 0) {
+                long t=a%b;
+                a=b;
+                b=t;
+            }
+            return valueOf(a);
+        }
+        return o.gcd(widen());
+    }
+
+    public Quantity lcm(Quantity o) {
+        return o.lcm(widen());
+    }
+
+    public Quantity modulo(Quantity o) {
+        if (o.type==FIXEDINT) return valueOf(val%((Fixnum)o).val);
+        else return widen().modulo(o);
+    }
+
+    public Quantity quotient(Quantity o) {
+        if (o.type==FIXEDINT) return intBound((long)val/((Fixnum)o).val);
+        else return widen().quotient(o);
+    }
+
+    public Quantity remainder(Quantity o) {
+        if (o.type==FIXEDINT) return valueOf(val%((Fixnum)o).val);
+        else return widen().remainder(o);
+    }
+
+    public Quantity negate() {
+        return intBound(-(long)val);
+    }
+
+    public Quantity sqrt() {
+        long n=Math.abs((long)val);
+        long r=(long)Math.sqrt((double)n);
+        while (r*r > n) r--;
+        while ((r+1)*(r+1) <= n) r++;
+        if (r*r == n) {
+            if (val >= 0)
+                return valueOf(r);
+            else return valueOf(0.0, (double)r);
+        } else if (val < 0)
+            return valueOf(0.0, Math.sqrt((double)n));
+        else return valueOf(Math.sqrt((double)n));
+    }
+
+    public Quantity add(Quantity o) {
+        if (o.type==FIXEDINT)
+            return intBound((long)((Fixnum)o).val+val);
+        return o.add(this);
+    }
+
+    public Quantity mul(Quantity o) {
+        if (o.type==FIXEDINT)
+            return intBound((long)((Fixnum)o).val*val);
+        return o.mul(this);
+    }
+
+    public Quantity sub(Quantity o) {
+        switch (o.type) {
+        case FIXEDINT:
+            return intBound((long)val-((Fixnum)o).val);
+        case DECIM:
+            return valueOf(val-((Flonum)o).d);
+        case COMPLEX:
+            Compnum c=(Compnum)o;
+            return valueOf(val-c.d, -c.im);
+        default:
+            return widen().sub(o);
+        }
+    }
+
+    public Quantity div(Quantity o) {
+        switch (o.type) {
+        case FIXEDINT:
+            int oval=((Fixnum)o).val;
+            if (oval != 0 && val % oval == 0)
+                return intBound((long)val/oval);
+            return valueOf(BigInteger.valueOf(val),
+                           BigInteger.valueOf(oval));
+        case DECIM:
+            return valueOf(val/((Flonum)o).d);
+        case COMPLEX:
+            return new Compnum(val, 0.0).div(o);
+        default:
+            return widen().div(o);
+        }
+    }
+
+    public boolean comp(Quantity o, int test) {
+        switch (o.type) {
+        case FIXEDINT:
+            int oval=((Fixnum)o).val;
+            return test==(val > oval ? 1 : (val < oval ? -1 : 0));
+        case DECIM:
+            double od=((Flonum)o).d;
+        	if (Double.isNaN(od)) return false;
+            return sign(val-od)==test;
+        case INTEG:
+            //a Bignum is always outside the fixnum range
+            return test==-((Bignum)o).i.signum();
+        case COMPLEX:
+            return compComplex((Compnum)o, test);
+        default:
+            return widen().comp(o,test);
+        }
+    }
+
+    public double doubleValue() {
+        return (double)val;
+    }
+
+    public double decimal() {
+        return (double)val;
+    }
+
+    public long longValue() {
+        return val;
+    }
+
+    public int indexValue() {
+        return val;
+    }
+
+    public int intValue() {
+        return val;
+    }
+
+    public BigInteger integer() {
+        return BigInteger.valueOf(val);
+    }
+
+    public Quantity toInexact() {
+        return valueOf((double)val);
+    }
+
+    public int hashCode() {
+        return FIXEDINT^val;
+    }
+
+    public String toString(int radix) {
+        return Integer.toString(val,radix);
+    }
+
+    public void deserialize(Deserializer s) throws IOException {
+        s.readInt();
+        val=s.readInt();
+    }
+
+    public void serialize(Serializer s) throws IOException {
+        s.writeInt(type);
+        s.writeInt(val);
+    }
+
+    public Value singletonValue() {
+        return valueOf(val);
+    }
+}
+
+/*
+ * The contents of this file are subject to the Mozilla Public
+ * License Version 1.1 (the "License"); you may not use this file
+ * except in compliance with the License. You may obtain a copy of
+ * the License at http://www.mozilla.org/MPL/
+ * 
+ * Software distributed under the License is distributed on an "AS
+ * IS" basis, WITHOUT WARRANTY OF ANY KIND, either express or
+ * implied. See the License for the specific language governing
+ * rights and limitations under the License.
+ * 
+ * The Original Code is the Second Interpreter of Scheme Code (SISC).
+ * 
+ * The Initial Developer of the Original Code is Scott G. Miller.
+ * Portions created by Scott G. Miller are Copyright (C) 2000-2007
+ * Scott G. Miller.  All Rights Reserved.
+ * 
+ * Contributor(s):
+ * 
+ * Alternatively, the contents of this file may be used under the
+ * terms of the GNU General Public License Version 2 or later (the
+ * "GPL"), in which case the provisions of the GPL are applicable 
+ * instead of those above.  If you wish to allow use of your 
+ * version of this file only under the terms of the GPL and not to
+ * allow others to use your version of this file under the MPL,
+ * indicate your decision by deleting the provisions above and
+ * replace them with the notice and other provisions required by
+ * the GPL.  If you do not delete the provisions above, a recipient
+ * may use your version of this file under either the MPL or the
+ * GPL.
+ */
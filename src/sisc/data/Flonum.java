@@ -0,0 +1,254 @@
+package sisc.data;
+
+import java.math.*;
+import java.io.*;
+import sisc.ser.Serializer;
+import sisc.ser.Deserializer;
+
+/**
+ * An inexact real, represented as a Java double.
+ */
+public class Flonum extends Quantity {
+
+    public double d;
+
+    public Flonum() {
+        super(DECIM);
+    }
+
+    Flonum(double d) {
+        this();
+        this.d=d;
+    }
+
+    protected Quantity round(int rtype) {
+        switch (rtype) {
+        case BigDecimal.ROUND_FLOOR:
+            return valueOf(Math.floor(d));
+        case BigDecimal.ROUND_CEILING:
+            return valueOf(Math.ceil(d));
+        case BigDecimal.ROUND_HALF_EVEN:
+            return valueOf(new BigDecimal(d).setScale(0, rtype).doubleValue());
+        case BigDecimal.ROUND_DOWN:
+            return valueOf(d2i(d).doubleValue());
+        }
+        return this;
+    }
+
+    /**
+     * Returns this flonum as an exact integer if it is integral,
+     * so that the integer operations can be applied to it.
+     */
+    protected Bignum exactInteger() {
+        return (isIntegral(d) ? new Bignum(d2i(d)) : null);
+    }
+
+    public Quantity gcd(Quantity o) {
+        Bignum b=exactInteger();
+        if (b==null) return super.gcd(o);
+        return b.gcd(o).toInexact();
+    }
+
+    public Quantity lcm(Quantity o) {
+        Bignum b=exactInteger();
+        if (b==null) return super.lcm(o);
+        return b.lcm(o).toInexact();
+    }
+
+    public Quantity modulo(Quantity o) {
+        Bignum b=exactInteger();
+        if (b==null) return super.modulo(o);
+        return b.modulo(o).toInexact();
+    }
+
+    public Quantity quotient(Quantity o) {
+        Bignum b=exactInteger();
+        if (b==null) return super.quotient(o);
+        return b.quotient(o).toInexact();
+    }
+
+    public Quantity remainder(Quantity o) {
+        Bignum b=exactInteger();
+        if (b==null) return super.remainder(o);
+        return b.remainder(o).toInexact();
+    }
+
+    public Quantity log() {
+        if (d < 0.0)
+            return new Compnum(d, 0.0).log();
+        return valueOf(Math.log(d));
+    }
+
+    public Quantity negate() {
+        return valueOf(-d);
+    }
+
+    public Quantity sqrt() {
+        if (d<0)
+            return valueOf(0.0, Math.sqrt(-d));
+        else return valueOf(Math.sqrt(d));
+    }
+
+    public Quantity add(Quantity o) {
+        switch (o.type) {
+        case FIXEDINT:
+            return valueOf(d+((Fixnum)o).val);
+        case DECIM:
+            return valueOf(d+((Flonum)o).d);
+        case INTEG:
+            return valueOf(d+((Bignum)o).i.doubleValue());
+        case RATIO:
+            return valueOf(o.doubleValue()+d);
+        default:
+            return o.add(this);
+        }
+    }
+
+    public Quantity mul(Quantity o) {
+        switch (o.type) {
+        case FIXEDINT:
+            return valueOf(d*((Fixnum)o).val);
+        case DECIM:
+            return valueOf(d*((Flonum)o).d);
+        case COMPLEX:
+            return o.mul(this);
+        default:
+            return valueOf(d*o.doubleValue());
+        }
+    }
+
+    public Quantity sub(Quantity o) {
+        switch (o.type) {
+        case FIXEDINT:
+            return valueOf(d-((Fixnum)o).val);
+        case DECIM:
+            return valueOf(d-((Flonum)o).d);
+        case COMPLEX:
+            Compnum c=(Compnum)o;
+            return valueOf(d-c.d, -c.im);
+        default:
+            return valueOf(d-o.doubleValue());
+        }
+    }
+
+    public Quantity div(Quantity o) {
+        switch (o.type) {
+        case FIXEDINT:
+            return valueOf(d/((Fixnum)o).val);
+        case DECIM:
+            return valueOf(d/((Flonum)o).d);
+        case INTEG:
+            return valueOf(d/((Bignum)o).i.doubleValue());
+        case RATIO:
+            Ratnum r=(Ratnum)o;
+            return mul(valueOf(r.de, r.i));
+        default:
+            return new Compnum(d, 0.0).div(o);
+        }
+    }
+
+    public boolean comp(Quantity o, int test) {
+        if (Double.isNaN(d)) return false;
+        switch (o.type) {
+        case FIXEDINT:
+            return sign(d-((Fixnum)o).val)==test;
+        case DECIM:
+            double od=((Flonum)o).d;
+            if (Double.isNaN(od)) return false;
+            return sign(d-od)==test;
+        case COMPLEX:
+            return compComplex((Compnum)o, test);
+        default:
+            return sign(d-o.doubleValue())==test;
+        }
+    }
+
+    public double doubleValue() {
+        return d;
+    }
+
+    public double decimal() {
+        return d;
+    }
+
+    public long longValue() {
+        return (long)d;
+    }
+
+    public int intValue() {
+        return (int)d;
+    }
+
+    public Quantity toExact() {
+        BigInteger ipart=d2i(d);
+        BigDecimal fpart=new BigDecimal(Double.toString(d-ipart.doubleValue()));
+        int scale=fpart.scale();
+        fpart=fpart.movePointRight(scale);
+        BigInteger denominator=_BI_TEN.pow(scale);
+        BigInteger numerator=ipart.multiply(denominator).add(fpart.toBigInteger());
+        return valueOf(numerator, denominator);
+    }
+
+    public Quantity imagpart() {
+        return IZERO;
+    }
+
+    public Quantity numerator() {
+        return toExact().numerator().toInexact();
+    }
+
+    public Quantity denominator() {
+        return toExact().denominator().toInexact();
+    }
+
+    public int hashCode() {
+        return DECIM^hashDouble(d);
+    }
+
+    public String toString(int radix) {
+        String s=zeroTrim(Double.toString(d).toLowerCase());
+        return (s.indexOf('.')==-1 ? s+".0" : s);
+    }
+
+    public void deserialize(Deserializer s) throws IOException {
+        s.readInt();
+        d=s.readBigDecimal().doubleValue();
+    }
+
+    public void serialize(Serializer s) throws IOException {
+        s.writeInt(type);
+        s.writeBigDecimal(new BigDecimal(d));
+    }
+}
+
+/*
+ * The contents of this file are subject to the Mozilla Public
+ * License Version 1.1 (the "License"); you may not use this file
+ * except in compliance with the License. You may obtain a copy of
+ * the License at http://www.mozilla.org/MPL/
+ * 
+ * Software distributed under the License is distributed on an "AS
+ * IS" basis, WITHOUT WARRANTY OF ANY KIND, either express or
+ * implied. See the License for the specific language governing
+ * rights and limitations under the License.
+ * 
+ * The Original Code is the Second Interpreter of Scheme Code (SISC).
+ * 
+ * The Initial Developer of the Original Code is Scott G. Miller.
+ * Portions created by Scott G. Miller are Copyright (C) 2000-2007
+ * Scott G. Miller.  All Rights Reserved.
+ * 
+ * Contributor(s):
+ * 
+ * Alternatively, the contents of this file may be used under the
+ * terms of the GNU General Public License Version 2 or later (the
+ * "GPL"), in which case the provisions of the GPL are applicable 
+ * instead of those above.  If you wish to allow use of your 
+ * version of this file only under the terms of the GPL and not to
+ * allow others to use your version of this file under the MPL,
+ * indicate your decision by deleting the provisions above and
+ * replace them with the notice and other provisions required by
+ * the GPL.  If you do not delete the provisions above, a recipient
+ * may use your version of this file under either the MPL or the
+ * GPL.
+ */
@@ -7,6 +7,8 @@ import sisc.ser.Deserializer;
 public class ImmutablePair extends Pair {
 
     private boolean isImmutable = true;
+    //the hash code, once known not to change, or 0
+    private int hash;
 
     public ImmutablePair() {
         super();
@@ -36,6 +38,16 @@ public class ImmutablePair extends Pair {
         else super.setCdr(v);
     }
 
+    public int valueHashCode() {
+        int res = hash;
+        if (res == 0) {
+            long h = structuralHash(HASH_DEPTH);
+            res = (int)h;
+            if ((h & HASH_UNSTABLE) == 0) hash = res;
+        }
+        return res;
+    }
+
     public boolean isImmutable() {
         return isImmutable;
     }
@@ -4,6 +4,9 @@ import java.io.Reader;
 
 public class ImmutableString extends SchemeString {
 
+    //the hash code, or 0
+    private int hash;
+
     public ImmutableString() {}
 
     public ImmutableString(String s) {
@@ -14,6 +17,12 @@ public class ImmutableString extends SchemeString {
         super(data);
     }
 
+    public int valueHashCode() {
+        int res = hash;
+        if (res == 0) hash = res = super.valueHashCode();
+        return res;
+    }
+
     public void set(int k, char c) {
         throw new RuntimeException(liMessage(SISCB, "stringisimmutable"));
     }
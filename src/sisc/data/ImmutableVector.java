@@ -7,6 +7,8 @@ import sisc.ser.Deserializer;
 public class ImmutableVector extends SchemeVector {
 
     private boolean isImmutable = true;
+    //the hash code, once known not to change, or 0
+    private int hash;
 
     public ImmutableVector() {}
 
@@ -37,6 +39,16 @@ public class ImmutableVector extends SchemeVector {
         else super.fill(v);
     }
 
+    public int valueHashCode() {
+        int res = hash;
+        if (res == 0) {
+            long h = structuralHash(HASH_DEPTH);
+            res = (int)h;
+            if ((h & HASH_UNSTABLE) == 0) hash = res;
+        }
+        return res;
+    }
+
     public boolean isImmutable() {
         return isImmutable;
     }
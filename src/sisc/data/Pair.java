@@ -83,7 +83,35 @@ public class Pair extends Value {
     }
 
     public int valueHashCode() {
-        return car.valueHashCode() ^ cdr.valueHashCode();
+        return (int)structuralHash(HASH_DEPTH);
+    }
+
+    long structuralHash(int depth) {
+        if (this == EMPTYLIST) return valueHashCode() & 0xffffffffL;
+        //nothing below this depth is looked at, so this cannot change
+        if (depth == 0) return 0x5a5a5a5aL;
+        long flags = 0;
+        int res = 1;
+        Value v = this;
+        int n = 0;
+        for (; n < HASH_WIDTH && v instanceof Pair && v != EMPTYLIST; n++) {
+            Pair p = (Pair)v;
+            if (!(p instanceof ImmutablePair) ||
+                !((ImmutablePair)p).isImmutable()) {
+                flags = HASH_UNSTABLE;
+            }
+            long h = p.car.structuralHash(depth - 1);
+            flags |= h & HASH_UNSTABLE;
+            res = res * 31 + (int)h;
+            v = p.cdr;
+        }
+        if (n < HASH_WIDTH) {
+            //the empty list or the tail of an improper list
+            long h = v.structuralHash(depth - 1);
+            flags |= h & HASH_UNSTABLE;
+            res = res * 31 + (int)h;
+        }
+        return (res & 0xffffffffL) | flags;
     }
 
     public void serialize(Serializer s) throws IOException {
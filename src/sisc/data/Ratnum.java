@@ -0,0 +1,218 @@
+package sisc.data;
+
+import java.math.*;
+import java.io.*;
+import sisc.ser.Serializer;
+import sisc.ser.Deserializer;
+
+/**
+ * An exact, non-integral rational.  Instances are always in lowest
+ * terms with a positive denominator other than one; use
+ * <tt>Quantity.valueOf(BigInteger, BigInteger)</tt> to create them.
+ */
+public class Ratnum extends Quantity {
+
+    public BigInteger i, de;
+
+    public Ratnum() {
+        super(RATIO);
+    }
+
+    Ratnum(BigInteger numerator, BigInteger denominator) {
+        this();
+        i=numerator;
+        de=denominator;
+    }
+
+    protected Quantity round(int rtype) {
+        return toInexact().round(rtype).toExact();
+    }
+
+    public Quantity negate() {
+        return new Ratnum(i.negate(), de);
+    }
+
+    public Quantity sqrt() {
+        BigDecimal[] rvd=sqrtrem(new BigDecimal(doubleValue()));
+        return valueOf(rvd[0].doubleValue());
+    }
+
+    public Quantity add(Quantity o) {
+        switch (o.type) {
+        case FIXEDINT:
+            BigInteger ores=de.multiply(BigInteger.valueOf(((Fixnum)o).val));
+            return valueOf(i.add(ores), de);
+        case DECIM:
+            return valueOf(ratioToDecimal(i, de)+((Flonum)o).d);
+        case INTEG:
+            return valueOf(i.add(((Bignum)o).i.multiply(de)), de);
+        case RATIO:
+            Ratnum r=(Ratnum)o;
+            BigInteger common_n1=i.multiply(r.de);
+            BigInteger common_n2=r.i.multiply(de);
+            return valueOf(common_n1.add(common_n2), de.multiply(r.de));
+        default:
+            return o.add(this);
+        }
+    }
+
+    public Quantity mul(Quantity o) {
+        switch (o.type) {
+        case FIXEDINT:
+            return valueOf(i.multiply(BigInteger.valueOf(((Fixnum)o).val)), de);
+        case DECIM:
+            return valueOf(ratioToDecimal(i, de)*((Flonum)o).d);
+        case INTEG:
+            return valueOf(i.multiply(((Bignum)o).i), de);
+        case RATIO:
+            Ratnum r=(Ratnum)o;
+            BigInteger grq=r.i.gcd(de);
+            BigInteger gps=i.gcd(r.de);
+            return valueOf(i.divide(gps).multiply(r.i.divide(grq)),
+                           de.divide(grq).multiply(r.de.divide(gps)));
+        default:
+            return o.mul(this);
+        }
+    }
+
+    public Quantity sub(Quantity o) {
+        switch (o.type) {
+        case FIXEDINT:
+            BigInteger ores=BigInteger.valueOf(((Fixnum)o).val).multiply(de);
+            return valueOf(i.subtract(ores), de);
+        case DECIM:
+            return valueOf(ratioToDecimal(i, de)-((Flonum)o).d);
+        case INTEG:
+            return valueOf(i.subtract(((Bignum)o).i.multiply(de)), de);
+        case RATIO:
+            Ratnum r=(Ratnum)o;
+            BigInteger common_n1=i.multiply(r.de);
+            BigInteger common_n2=r.i.multiply(de);
+            return valueOf(common_n1.subtract(common_n2), de.multiply(r.de));
+        default:
+            Compnum c=(Compnum)o;
+            return valueOf(ratioToDecimal(i, de)-c.d, -c.im);
+        }
+    }
+
+    public Quantity div(Quantity o) {
+        switch (o.type) {
+        case FIXEDINT:
+            return valueOf(i, de.multiply(BigInteger.valueOf(((Fixnum)o).val)));
+        case DECIM:
+            return valueOf(div(ratioToDecimal(i, de), ((Flonum)o).d));
+        case INTEG:
+            return valueOf(i, de.multiply(((Bignum)o).i));
+        case RATIO:
+            Ratnum r=(Ratnum)o;
+            return valueOf(i.multiply(r.de), r.i.multiply(de));
+        default:
+            return new Compnum(ratioToDecimal(i, de), 0.0).div(o);
+        }
+    }
+
+    public boolean comp(Quantity o, int test) {
+        switch (o.type) {
+        case FIXEDINT:
+            BigInteger cnum=BigInteger.valueOf(((Fixnum)o).val).multiply(de);
+            return i.compareTo(cnum)==test;
+        case DECIM:
+            double od=((Flonum)o).d;
+            if (Double.isNaN(od)) return false;
+            return sign(ratioToDecimal(i, de)-od)==test;
+        case INTEG:
+            return i.compareTo(((Bignum)o).i.multiply(de))==test;
+        case RATIO:
+            Ratnum r=(Ratnum)o;
+            BigInteger common_n1=i.multiply(r.de);
+            BigInteger common_n2=r.i.multiply(de);
+            return common_n1.compareTo(common_n2)==test;
+        default:
+            return compComplex((Compnum)o, test);
+        }
+    }
+
+    public double doubleValue() {
+        return ratioToDecimal(i, de);
+    }
+
+    public double decimal() {
+        return ratioToDecimal(i, de);
+    }
+
+    public long longValue() {
+        return i.divide(de).longValue();
+    }
+
+    public int intValue() {
+        return i.divide(de).intValue();
+    }
+
+    public Quantity toInexact() {
+        return valueOf(ratioToDecimal(i, de));
+    }
+
+    public Quantity numerator() {
+        return valueOf(i);
+    }
+
+    public Quantity denominator() {
+        return valueOf(de);
+    }
+
+    public int hashCode() {
+        return RATIO^i.hashCode()^de.hashCode();
+    }
+
+    public String toString(int radix) {
+        return i.toString(radix)+'/'+de.toString(radix);
+    }
+
+    public void deserialize(Deserializer s) throws IOException {
+        s.readInt();
+        i=s.readBigInteger();
+        de=s.readBigInteger();
+    }
+
+    public void serialize(Serializer s) throws IOException {
+        s.writeInt(type);
+        s.writeBigInteger(i);
+        s.writeBigInteger(de);
+    }
+
+    public Value singletonValue() {
+        return valueOf(i, de);
+    }
+}
+
+/*
+ * The contents of this file are subject to the Mozilla Public
+ * License Version 1.1 (the "License"); you may not use this file
+ * except in compliance with the License. You may obtain a copy of
+ * the License at http://www.mozilla.org/MPL/
+ * 
+ * Software distributed under the License is distributed on an "AS
+ * IS" basis, WITHOUT WARRANTY OF ANY KIND, either express or
+ * implied. See the License for the specific language governing
+ * rights and limitations under the License.
+ * 
+ * The Original Code is the Second Interpreter of Scheme Code (SISC).
+ * 
+ * The Initial Developer of the Original Code is Scott G. Miller.
+ * Portions created by Scott G. Miller are Copyright (C) 2000-2007
+ * Scott G. Miller.  All Rights Reserved.
+ * 
+ * Contributor(s):
+ * 
+ * Alternatively, the contents of this file may be used under the
+ * terms of the GNU General Public License Version 2 or later (the
+ * "GPL"), in which case the provisions of the GPL are applicable 
+ * instead of those above.  If you wish to allow use of your 
+ * version of this file only under the terms of the GPL and not to
+ * allow others to use your version of this file under the MPL,
+ * indicate your decision by deleting the provisions above and
+ * replace them with the notice and other provisions required by
+ * the GPL.  If you do not delete the provisions above, a recipient
+ * may use your version of this file under either the MPL or the
+ * GPL.
+ */
@@ -7,6 +7,9 @@ import sisc.interpreter.*;
 import sisc.io.ValueWriter;
 
 import java.io.IOException;
+import java.util.concurrent.ThreadFactory;
+
+import sisc.util.Defaults;
 
 public class SchemeThread extends Value implements Runnable, NamedValue {
     public static final int READY=0, RUNNING=1, FINISHED=2, FINISHED_ABNORMALLY=3;
@@ -14,27 +17,84 @@ public class SchemeThread extends Value implements Runnable, NamedValue {
     public static final ThreadGroup 
         schemeThreads=new ThreadGroup("SISC Threads");
 
+    /**
+     * Creates virtual threads, or null if the VM does not support
+     * them.  Looked up reflectively so that we still run on VMs
+     * without virtual threads, such as Dalvik.
+     */
+    private static final ThreadFactory virtualThreadFactory;
+
+    static {
+        ThreadFactory f=null;
+        try {
+            Object builder=Thread.class.getMethod("ofVirtual", new Class[0])
+                .invoke(null, new Object[0]);
+            f=(ThreadFactory)Class.forName("java.lang.Thread$Builder")
+                .getMethod("factory", new Class[0])
+                .invoke(builder, new Object[0]);
+        } catch (Exception e) {
+        } catch (LinkageError e) {}
+        virtualThreadFactory=f;
+    }
+
     public DynamicEnvironment env;
     public Procedure thunk;
     public Thread thread;
     public ThreadContext threadContext;
-    public int state;
+    public volatile int state;
     public Value rv;
 
+    private boolean virtual;
+    //why the thread could not enter its context, if it could not
+    private Throwable failure;
+
+    /**
+     * Creates a thread which will run the given thunk.  If the
+     * <tt>sisc.virtualThreads</tt> property of the AppContext is
+     * true and the VM supports virtual threads, the thread is a
+     * virtual thread; otherwise it is a platform thread in the
+     * {@link #schemeThreads} group.
+     * <p>
+     * Mutexes and condition variables wait on Java monitors, which
+     * on VMs before Java 24 pin a virtual thread to its carrier
+     * thread for as long as it waits.  Many virtual threads blocked
+     * on them can thus occupy every carrier and stall all other
+     * virtual threads.
+     * </p>
+     */
     public SchemeThread(DynamicEnvironment dynenv, Procedure thunk) {
         this.env = dynenv.copy();
         this.env.wind = FALSE;
         this.thunk = thunk;
-        thread=new Thread(schemeThreads, this);
+        //a SchemeThread without a thunk merely wraps an existing thread
+        virtual=(thunk != null && virtualThreadFactory != null &&
+                 dynenv.ctx.getProperty("sisc.virtualThreads", 
+                                        defaultVirtualThreads).equals("true"));
+        thread=(virtual ? 
+                virtualThreadFactory.newThread(this) :
+                new Thread(schemeThreads, this));
         state=READY;
+    }
+
+    private static String defaultVirtualThreads =
+        new Boolean(Defaults.VIRTUAL_THREADS).toString();
 
+    /**
+     * Whether this is a virtual thread.  Virtual threads are always
+     * daemon threads and ignore priorities.
+     */
+    public boolean isVirtual() {
+        return virtual;
     }
-    
+
     public Value getResult(Interpreter r) throws ContinuationException {
         if (state < FINISHED) {
             throw new RuntimeException(liMessage(SISCB,"threadnotyetterminated"));
         } else if (state == FINISHED) {
             return rv;
+        } else if (failure != null) {
+            throw new RuntimeException(liMessage(SISCB, "threadenterfailed",
+                                                 failure.toString()));
         } else {
             Values v=(Values)rv;
             Procedure.throwNestedPrimException(new SchemeException(pair(v.values[0]), 
@@ -50,18 +110,43 @@ public class SchemeThread extends Value implements Runnable, NamedValue {
         return state;
     }
     
+    /**
+     * Starts the thread, and waits until it is running, so that it
+     * can be joined as soon as this method returns.
+     */
     public void start() {
         thread.start();
+        boolean interrupted=false;
+        synchronized(this) {
+            while (state == READY) {
+                try {
+                    wait();
+                } catch (InterruptedException e) {
+                    interrupted=true;
+                }
+            }
+        }
+        if (interrupted) Thread.currentThread().interrupt();
     }
     
     public void run() {
-        threadContext=Context.lookupThreadContext();
-        Interpreter interp = Context.enter(env);
-        Context.lookupThreadContext().hostThread=new WeakReference(this);
-
-        state=RUNNING;
-        synchronized(this) {
-            this.notify();
+        Interpreter interp;
+        try {
+            threadContext=Context.lookupThreadContext();
+            interp = Context.enter(env);
+            Context.lookupThreadContext().hostThread=new WeakReference(this);
+        } catch (RuntimeException e) {
+            failure=e;
+            throw e;
+        } catch (Error e) {
+            failure=e;
+            throw e;
+        } finally {
+            //release start() even if we could not enter the context
+            synchronized(this) {
+                state=(failure == null ? RUNNING : FINISHED_ABNORMALLY);
+                notifyAll();
+            }
         }
         try {
             rv=interp.eval(thunk,new Value[]{});
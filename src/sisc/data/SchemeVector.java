@@ -43,11 +43,22 @@ public class SchemeVector extends Value {
     }
 
     public int valueHashCode() {
-        int res = 0;
-        for (int i=0; i<vals.length; i++) {
-            res ^= vals[i].valueHashCode();
+        return (int)structuralHash(HASH_DEPTH);
+    }
+
+    long structuralHash(int depth) {
+        int res = vals.length;
+        if (depth == 0) return res;
+        long flags =
+            (this instanceof ImmutableVector &&
+             ((ImmutableVector)this).isImmutable()) ? 0 : HASH_UNSTABLE;
+        int l = Math.min(vals.length, HASH_WIDTH);
+        for (int i=0; i<l; i++) {
+            long h = vals[i].structuralHash(depth - 1);
+            flags |= h & HASH_UNSTABLE;
+            res = res * 31 + (int)h;
         }
-        return res;
+        return (res & 0xffffffffL) | flags;
     }
 
     public int findEnd() {
@@ -86,6 +86,38 @@ public abstract class Value extends Expression implements Immediate {
         return hashCode();
     }
 
+    /**
+     * Number of levels of nested pairs and vectors, and of elements of
+     * each list or vector, that their valueHashCode looks at, so that
+     * hashing large structures takes bounded time and hashing
+     * circular ones terminates.
+     */
+    static final int HASH_DEPTH = 4, HASH_WIDTH = 16;
+
+    /**
+     * Set in the result of {@link #structuralHash(int)} if the hash
+     * code could change, i.e. if a mutable value contributed to it.
+     */
+    static final long HASH_UNSTABLE = 1L << 32;
+
+    /**
+     * Returns the hash code of this value consistent with valueEqual
+     * in the low 32 bits, looking at most <tt>depth</tt> levels into
+     * nested pairs and vectors, and {@link #HASH_UNSTABLE} if it may
+     * change.  Values which are known to be immutable can then cache
+     * their hash codes.
+     */
+    long structuralHash(int depth) {
+        long res = valueHashCode() & 0xffffffffL;
+        //atoms whose hash codes cannot change
+        return (this instanceof Quantity ||
+                this instanceof Symbol ||
+                this instanceof SchemeCharacter ||
+                this instanceof SchemeBoolean ||
+                this instanceof ImmutableString) ?
+            res : res | HASH_UNSTABLE;
+    }
+
     public String toString() {
         StringWriter sw = new StringWriter();
         ValueWriter w = new SharedValueWriter(sw, false, false);
@@ -178,14 +178,82 @@ public class DynamicEnvironment extends Util implements Cloneable {
         Thread currentThread = Thread.currentThread();
         if (bindingThread == null) {
             bindingThread = currentThread;
-            classLoader = currentClassLoader();
-            try {
-                urlClassLoader = new ExtensibleURLClassLoader(initialClassPathExtension, classLoader);
-            } catch (AccessControlException e) {}
+            if (classLoader == null) {
+                classLoader = currentClassLoader();
+                try {
+                    urlClassLoader = new ExtensibleURLClassLoader(initialClassPathExtension, classLoader);
+                } catch (AccessControlException e) {}
+            }
         } else if (bindingThread != currentThread) {
             throw new RuntimeException(liMessage(SISCB, "dynenvrebind"));
         }
     }
+
+    /**
+     * Releases this DynamicEnvironment from the thread it is bound
+     * to, so that another thread may {@link #bind} it.  The class
+     * loader is retained.
+     *
+     * This is only safe when the DynamicEnvironment is no longer in
+     * use by the thread, as is the case for the DynamicEnvironments
+     * of idle interpreters in an
+     * {@link sisc.interpreter.InterpreterPool}.
+     */
+    public void unbind() {
+        bindingThread = null;
+    }
+
+    /**
+     * Restores the ports, settings and parameters of this
+     * DynamicEnvironment to those of another, so that it can be
+     * reused without carrying over state from a previous use.  The
+     * class loader is kept unless its class path differs from the
+     * other's, e.g. because it was extended; it is then discarded
+     * and made afresh from the other's class path when this
+     * DynamicEnvironment is next bound.
+     *
+     * @param template the DynamicEnvironment to restore from
+     */
+    public void reset(DynamicEnvironment template) {
+        in = template.in;
+        out = template.out;
+        sourceAnnotations = template.sourceAnnotations;
+        characterSet = template.characterSet;
+        caseSensitive = template.caseSensitive;
+        printShared = template.printShared;
+        vectorLengthPrefixing = template.vectorLengthPrefixing;
+        emitDebuggingSymbols = template.emitDebuggingSymbols;
+        permissiveParsing = template.permissiveParsing;
+        hedgedInlining = template.hedgedInlining;
+        internalDebugging = template.internalDebugging;
+        synopsisLength = template.synopsisLength;
+        maxStackTraceDepth = template.maxStackTraceDepth;
+        customPrinting = template.customPrinting;
+        customDisplayTypeMap = template.customDisplayTypeMap;
+        customWriteTypeMap = template.customWriteTypeMap;
+        wind = template.wind;
+        parser.annotate = template.parser.annotate;
+        parser.lexer.strictR5RS = template.parser.lexer.strictR5RS;
+        parameters.clear();
+        parameters.putAll(template.parameters);
+        URL[] path = template.getClassPath();
+        if (urlClassLoader != null &&
+            !sameURLs(urlClassLoader.getURLs(), path)) {
+            initialClassPathExtension = path;
+            classLoader = null;
+            urlClassLoader = null;
+        }
+    }
+
+    //compares the external forms, since URL.equals resolves hosts
+    private static boolean sameURLs(URL[] a, URL[] b) {
+        if (a.length != b.length) return false;
+        for (int i = 0; i < a.length; i++) {
+            if (!a[i].toExternalForm().equals(b[i].toExternalForm()))
+                return false;
+        }
+        return true;
+    }
         
 
     public ClassLoader getClassLoader() {
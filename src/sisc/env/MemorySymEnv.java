@@ -2,9 +2,14 @@ package sisc.env;
 
 import java.io.*;
 import sisc.data.*;
-import java.util.Map;
-import java.util.HashMap;
+import java.util.ArrayList;
 import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicIntegerFieldUpdater;
+import java.util.concurrent.atomic.AtomicReferenceArray;
 
 import sisc.io.ValueWriter;
 import sisc.ser.Serializer;
@@ -14,11 +19,24 @@ import sisc.util.ExpressionVisitor;
 public class MemorySymEnv extends Value
     implements SymbolicEnvironment, NamedValue {
 
-    protected static final float EXPFACT=1.5F;
+    /**
+     * Bindings are stored in segments of doubling size; segment k
+     * holds locations [BASE*(2^k-1), BASE*(2^(k+1)-1)).  Segments are
+     * never copied once created, so growing the environment can never
+     * lose a concurrent set, and reads need no locking at all.
+     */
+    protected static final int BASE_SHIFT=2, BASE=1<<BASE_SHIFT;
+    private static final int SEGMENTS=30;
+
+    private static final AtomicIntegerFieldUpdater NEXT_FREE =
+        AtomicIntegerFieldUpdater.newUpdater(MemorySymEnv.class, "nextFree");
+
     public Map symbolMap, sidecars;
-    public Value[] env;
     public SymbolicEnvironment parent;
-    protected int nextFree;
+    private AtomicReferenceArray segments;
+    protected volatile int nextFree;
+    //locations holding a copy of the parent's binding made by getLoc
+    private Map inherited;
 
     public MemorySymEnv(SymbolicEnvironment parent) {
         this();
@@ -36,10 +54,11 @@ public class MemorySymEnv extends Value
     }
 
     public MemorySymEnv() {
-        env=new Value[1];
+        segments=new AtomicReferenceArray(SEGMENTS);
         nextFree=0;
-        symbolMap=new HashMap(1);
-        sidecars=new HashMap(1);
+        symbolMap=new ConcurrentHashMap(4);
+        sidecars=new ConcurrentHashMap(4);
+        inherited=new ConcurrentHashMap(4);
     }
 
     public Value asValue() {
@@ -50,17 +69,16 @@ public class MemorySymEnv extends Value
     //their public modifiers
 
     public SymbolicEnvironment getSidecarEnvironment(Symbol name) {
-        synchronized(sidecars) {
-            SymbolicEnvironment sc=(SymbolicEnvironment)sidecars.get(name);
-            if (sc==null) {
-                SymbolicEnvironment mp=getParent();
-                SymbolicEnvironment p=(mp == null ? 
-                                      (SymbolicEnvironment)null :
-                                      mp.getSidecarEnvironment(name));
-                sidecars.put(name, sc=new MemorySymEnv(p));
-            }
-            return sc;
-        }
+        SymbolicEnvironment sc=(SymbolicEnvironment)sidecars.get(name);
+        if (sc!=null) return sc;
+        SymbolicEnvironment mp=getParent();
+        SymbolicEnvironment p=(mp == null ? 
+                               (SymbolicEnvironment)null :
+                               mp.getSidecarEnvironment(name));
+        sc=new MemorySymEnv(p);
+        SymbolicEnvironment other=(SymbolicEnvironment)
+            ((ConcurrentMap)sidecars).putIfAbsent(name, sc);
+        return (other == null ? sc : other);
     }
               
     public void setParent(SymbolicEnvironment e) {
@@ -76,92 +94,172 @@ public class MemorySymEnv extends Value
         return parent;
     }
 
-    protected void expand() {
-        synchronized(symbolMap) {
-            Value[] newenv=new Value[(int)((env.length*EXPFACT) + 1)];
-            System.arraycopy(env, 0, newenv, 0, env.length);
-            nextFree=env.length;
-            env=newenv;
-        }
+    private static int segmentOf(int loc) {
+        return 31-Integer.numberOfLeadingZeros((loc>>>BASE_SHIFT)+1);
+    }
+
+    private static int segmentStart(int seg) {
+        return BASE*((1<<seg)-1);
     }
 
-    public void trim() {
-        synchronized(symbolMap) {
-            Value[] newenv=new Value[nextFree];
-            System.arraycopy(env, 0, newenv, 0, nextFree);
-            env=newenv;
+    /**
+     * Returns the segment containing the given location, creating it
+     * if necessary.
+     */
+    private Value[] segmentFor(int loc) {
+        int seg=segmentOf(loc);
+        Value[] s=(Value[])segments.get(seg);
+        if (s == null) {
+            segments.compareAndSet(seg, null, new Value[BASE<<seg]);
+            s=(Value[])segments.get(seg);
         }
+        return s;
     }
 
+    /**
+     * Segments are never copied, so there is nothing to trim.
+     */
+    public void trim() {}
+
     public void set(int envLoc, Value v) {
-        env[envLoc]=v;
+        segmentFor(envLoc)[envLoc-segmentStart(segmentOf(envLoc))]=v;
+        if (!inherited.isEmpty()) inherited.remove(Integer.valueOf(envLoc));
     }
 
     public int define(Symbol s, Value v) {
-        synchronized(symbolMap) {
-            int envLoc = getLoc(s);
-            if (envLoc == -1) return store(s, v);
-            else {
-                set(envLoc, v);
-                return envLoc;
-            }
+        int envLoc = getLoc(s);
+        if (envLoc == -1) return store(s, v);
+        else {
+            set(envLoc, v);
+            return envLoc;
         }
     }
 
+    /**
+     * Binds a symbol to a value in this environment, replacing any
+     * binding of the symbol made concurrently.
+     */
     protected int store(Symbol s, Value v) {
-        synchronized(symbolMap) {
-            if (nextFree >= env.length) 
-                expand();
-            
-            //NB: the order of the following two statements is important;
-            //otherwise a lookup taking place concurrently might get garbage
-            env[nextFree]=v;
-            symbolMap.put(s, new Integer(nextFree));
-            return nextFree++;
-        }
+        return bind(s, v, true);
+    }
+
+    /**
+     * Appends a new binding.  A fresh location is claimed with a CAS
+     * on nextFree and filled in before the symbol is published, so a
+     * concurrent lookup never sees an empty location.  If another
+     * thread publishes a binding for the same symbol first, its
+     * location wins; we overwrite it if <code>replace</code> is true
+     * and otherwise leave it alone.
+     *
+     * @return the location of the binding
+     */
+    protected int bind(Symbol s, Value v, boolean replace) {
+        return bind(s, v, replace, false);
+    }
+
+    /**
+     * Appends a new binding, as {@link #bind(Symbol, Value, boolean)}.
+     * If <code>inherit</code> is true, the value is a copy of the
+     * parent's binding and the location is marked as such until it
+     * is next set.  The mark is made before the symbol is published,
+     * so that a concurrent define of the symbol always clears it.
+     *
+     * @return the location of the binding
+     */
+    protected int bind(Symbol s, Value v, boolean replace,
+                       boolean inherit) {
+        int loc=NEXT_FREE.getAndIncrement(this);
+        Value[] seg=segmentFor(loc);
+        int off=loc-segmentStart(segmentOf(loc));
+        seg[off]=v;
+        Integer l=Integer.valueOf(loc);
+        if (inherit) inherited.put(l, Boolean.TRUE);
+        Integer other=(Integer)((ConcurrentMap)symbolMap).putIfAbsent(s, l);
+        if (other == null) return loc;
+        seg[off]=null;
+        if (inherit) inherited.remove(l);
+        loc=other.intValue();
+        if (replace) set(loc, v);
+        return loc;
     }
 
     public int getLoc(Symbol s) {
-        synchronized(symbolMap) {
-            Integer i=(Integer)symbolMap.get(s);
-            if (i!=null) return i.intValue();
-            SymbolicEnvironment p = getParent();
-            if (p == null) return -1;
-            Value v = p.lookup(s);
-            if (v == null) return -1;
-            return store(s, v);
-        }
+        Integer i=(Integer)symbolMap.get(s);
+        if (i!=null) return i.intValue();
+        SymbolicEnvironment p = getParent();
+        if (p == null) return -1;
+        Value v = p.lookup(s);
+        if (v == null) return -1;
+        return bind(s, v, false, true);
     }
 
     public Value lookup(Symbol s) {
         int pi = getLoc(s);
         if (pi==-1) return null;
-        return env[pi];
+        return lookup(pi);
+    }
+
+    /**
+     * Returns the segment holding a location, in which its binding
+     * is at {@link #offsetOf}.  Segments are never copied, so the
+     * segment may be kept and read directly for as long as the
+     * location is bound.
+     */
+    public final Value[] segmentOfLoc(int loc) {
+        return segmentFor(loc);
+    }
+
+    /**
+     * Returns the index of a location in its segment.
+     */
+    public static int offsetOf(int loc) {
+        return loc-segmentStart(segmentOf(loc));
     }
 
     public final Value lookup(int pi) {
-        return env[pi];
+        int seg=segmentOf(pi);
+        return ((Value[])segments.get(seg))[pi-segmentStart(seg)];
     }
 
     public void undefine(Symbol s) {
-        synchronized(symbolMap) {
-            Integer i=(Integer)symbolMap.remove(s);
-            if (i==null) return;
-            env[i.intValue()] = FALSE;
-        }
+        Integer i=(Integer)symbolMap.remove(s);
+        if (i==null) return;
+        set(i.intValue(), FALSE);
+        inherited.remove(i);
     }
 
     public void display(ValueWriter w) throws IOException {
         displayNamedOpaque(w, "environment");
     }
 
-    public void serialize(Serializer s) throws IOException {
-        s.writeInt(symbolMap.size());
+    /**
+     * Whether the binding of a symbol is merely the parent's binding
+     * copied here by {@link #getLoc} and not set since.  Such
+     * bindings are not serialized, since they are recreated on
+     * demand.
+     */
+    protected boolean isInherited(Symbol s) {
+        Integer i=(Integer)symbolMap.get(s);
+        return (i != null && inherited.containsKey(i));
+    }
+
+    private List ownSymbols() {
+        List rv=new ArrayList(symbolMap.size());
         for (Iterator i=symbolMap.keySet().iterator(); i.hasNext();) {
+            Symbol key=(Symbol)i.next();
+            if (!isInherited(key)) rv.add(key);
+        }
+        return rv;
+    }
+
+    public void serialize(Serializer s) throws IOException {
+        List keys=ownSymbols();
+        s.writeInt(keys.size());
+        for (Iterator i=keys.iterator(); i.hasNext();) {
             Symbol key=(Symbol)i.next();
             s.writeExpression(key);
             int loc=((Integer)symbolMap.get(key)).intValue();
-            s.writeExpression(env[loc]);
+            s.writeExpression(lookup(loc));
         }
         serializeSidecar(s);
         s.writeSymbolicEnvironment(getParent());
@@ -179,11 +277,12 @@ public class MemorySymEnv extends Value
 
     public void deserialize(Deserializer s) throws IOException {
         int smsize=s.readInt();
-        env=new Value[smsize];
-        symbolMap=new HashMap(smsize);
+        symbolMap=new ConcurrentHashMap(smsize);
+        inherited=new ConcurrentHashMap(4);
         for (int i=0; i<smsize; i++) {
             Symbol id=(Symbol)s.readExpression();
-            env[i]=(Value)s.readExpression();
+            segmentFor(i)[i-segmentStart(segmentOf(i))]=
+                (Value)s.readExpression();
             symbolMap.put(id, new Integer(i));
         }
 
@@ -204,11 +303,11 @@ public class MemorySymEnv extends Value
 
     public boolean visit(ExpressionVisitor v) {
         if (!super.visit(v)) return false;
-        for (Iterator i=symbolMap.keySet().iterator(); i.hasNext();) {
+        for (Iterator i=ownSymbols().iterator(); i.hasNext();) {
             Symbol key=(Symbol)i.next();
             if (!v.visit(key)) return false;
             int loc=((Integer)symbolMap.get(key)).intValue();
-            if (!v.visit(env[loc])) return false;
+            if (!v.visit(lookup(loc))) return false;
         }
         return visitSidecar(v);
     }
@@ -10,6 +10,7 @@ import java.security.AccessControlException;
 import java.util.Properties;
 import sisc.env.SymbolicEnvironment;
 import sisc.util.Util;
+import sisc.util.Defaults;
 
 /**
  * The AppContext is the root of all data in an instance
@@ -92,6 +93,36 @@ public class AppContext extends Util {
             e.printStackTrace();
             throw new IOException(e.getMessage());
         }
+        if (getProperty("sisc.heapPrewarm", defaultHeapPrewarm)
+            .equals("true"))
+            prewarm(s);
+    }
+
+    private static String defaultHeapPrewarm =
+        new Boolean(Defaults.HEAP_PREWARM).toString();
+
+    /**
+     * Materializes the rest of a heap in a background thread.
+     * Bindings are otherwise only deserialized when first
+     * referenced, so without this the cost of loading them is paid
+     * by whichever evaluation happens to need them first.
+     */
+    private void prewarm(final Library lib) {
+        Thread t=new Thread(new Runnable() {
+                public void run() {
+                    //deserializing some objects, e.g. Java types,
+                    //needs a current interpreter
+                    Context.enter(AppContext.this);
+                    try {
+                        lib.preload();
+                    } finally {
+                        Context.exit();
+                    }
+                }
+            });
+        t.setDaemon(true);
+        t.setPriority(Thread.MIN_PRIORITY);
+        t.start();
     }
 
     public void saveEnv(OutputStream o, LibraryBuilder lb)
@@ -102,6 +133,41 @@ public class AppContext extends Util {
         lb.buildLibrary("sisc", o);
     }
 
+    /**
+     * Writes the current state of this AppContext, including
+     * everything defined or loaded since it was started, as a heap
+     * which can be booted in place of the one it was started from.
+     * The heap is self-contained; it does not refer to the heap this
+     * AppContext was loaded from.
+     * <p>
+     * The environments loaded from the current heap are switched to
+     * recording their bindings, which loads all of them.  No other
+     * thread should be evaluating in this AppContext meanwhile, and
+     * every value reachable from the environments must be
+     * serializable.
+     *
+     * @param o the stream to which the heap is written
+     */
+    public void saveSnapshot(OutputStream o) throws IOException {
+        LibraryBuilder lb=new LibraryBuilder();
+        lb.setCompressed(getProperty("sisc.heapCompress", defaultHeapCompress)
+                         .equals("true"));
+        libraries.observe(lb);
+        saveEnv(o, lb);
+    }
+
+    private static String defaultHeapCompress =
+        new Boolean(Defaults.HEAP_COMPRESS).toString();
+
+    /**
+     * Returns a digest of the contents of the heap(s) loaded into
+     * this AppContext.  Serialized data which refers into a heap is
+     * only valid for a heap with the same digest.
+     */
+    public byte[] getHeapDigest() throws IOException {
+        return libraries.digest();
+    }
+
     public SymbolicEnvironment lookupContextEnv(Symbol s) {
         SymbolicEnvironment senv = (SymbolicEnvironment)symenv.lookup(s);
         if (senv == null)
@@ -208,7 +274,7 @@ public class AppContext extends Util {
         //on disk in random access fashion.
         if (u.getProtocol().equals("file")) {
             try {
-                return new BufferedRandomAccessInputStream(new File(u.getPath()), "r",  1, 8192);
+                return openHeapFile(new File(u.getPath()));
             } catch (AccessControlException ace) {
                 //Must be an applet, we'll have to load it as a URL stream
             }
@@ -216,6 +282,24 @@ public class AppContext extends Util {
         return new MemoryRandomAccessInputStream(u.openStream());
     }
 
+    /**
+     * Opens a local heap file.  The file is memory mapped, so that
+     * only the parts of the heap that are actually used are read,
+     * and so that processes loading the same heap share its pages.
+     * Should mapping fail, the file is read through a buffer
+     * instead.
+     */
+    public static SeekableInputStream openHeapFile(File f)
+        throws IOException {
+        try {
+            return new MappedRandomAccessInputStream(f);
+        } catch (IOException e) {
+        } catch (RuntimeException e) {
+            //e.g. the file is too large to be mapped
+        }
+        return new BufferedRandomAccessInputStream(f, "r",  1, 8192);
+    }
+
     /**
      * Locate a heap.
      *
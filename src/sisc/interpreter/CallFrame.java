@@ -14,6 +14,8 @@ public class CallFrame extends Procedure {
     public Value[]               vlr, lcl, env;
     public boolean               vlk; //indicates that this frame has
                                       //been captured by a continuation
+    public boolean               oneShot, //captured by a one-shot continuation
+                                 shot;    //a one-shot frame that has been resumed
     public CallFrame             fk, parent;
     public SymbolicEnvironment   tpl; //The currently active top-level environment
     
@@ -72,6 +74,21 @@ public class CallFrame extends Procedure {
         return this;
     }
     
+    /**
+     * Records that control is passing to this one-shot frame.  Frames
+     * which have since been captured by a full continuation have
+     * been promoted to multi-shot and may be resumed any number of
+     * times.
+     *
+     * @return true if the frame had already been resumed
+     */
+    public final boolean shoot() {
+        if (vlk) return false;
+        if (shot) return true;
+        shot=true;
+        return false;
+    }
+
     public void display(ValueWriter w) throws IOException {    
         displayNamedOpaque(w, "continuation"); 
     }
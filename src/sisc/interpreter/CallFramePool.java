@@ -0,0 +1,216 @@
+package sisc.interpreter;
+
+import sisc.data.*;
+import sisc.util.Util;
+
+/**
+ * A free list of recycled {@link CallFrame}s.
+ * <p>
+ * One pool is shared by all the interpreters of a {@link
+ * ThreadContext}. Since interpreters only ever execute in the thread
+ * that created them, a pool is confined to that thread and needs no
+ * synchronization.
+ * </p>
+ * <p>
+ * The capacity of the pool adapts to the workload. It is re-examined
+ * every <tt>WINDOW</tt> frame requests: if a significant share of the
+ * requests missed and frames have been discarded for lack of room
+ * since the capacity was last raised, the capacity doubles, up to <tt>sisc.framePoolMax</tt>; if more than
+ * half of the pooled frames went untouched for the whole window, the
+ * capacity halves, down to <tt>sisc.framePoolMin</tt>, and the surplus
+ * frames are released.
+ * </p>
+ */
+public class CallFramePool extends Util {
+
+    protected static final int WINDOW=4096;
+
+    private CallFrame free;
+    private int size, capacity;
+    private final int minCapacity, maxCapacity;
+
+    //adaptation window
+    private int windowTakes, windowMisses, windowLow;
+    private long discardsAtLastGrow;
+
+    //statistics
+    private long hits, misses, discards, captured;
+    private int grows, shrinks;
+
+    public CallFramePool() {
+        this(framePoolMin, framePoolMax);
+    }
+
+    public CallFramePool(int minCapacity, int maxCapacity) {
+        this.minCapacity=Math.max(minCapacity, 0);
+        this.maxCapacity=Math.max(maxCapacity, this.minCapacity);
+        capacity=this.minCapacity;
+    }
+
+    public final CallFrame take() {
+        CallFrame rv=free;
+        if (rv == null) {
+            rv=new CallFrame();
+            misses++;
+            windowMisses++;
+        } else {
+            free=rv.parent;
+            hits++;
+            if (--size < windowLow) windowLow=size;
+        }
+        if (++windowTakes == WINDOW) adapt();
+        return rv;
+    }
+
+    public final void give(CallFrame f) {
+        //Captured frames may still be reached through a continuation
+        if (f.vlk) {
+            captured++;
+            return;
+        }
+        if (size >= capacity) {
+            discards++;
+            return;
+        }
+
+        //Clear some fields to avoid hanging onto otherwise
+        //garbage collectable data for too long
+        f.clear();
+
+        f.parent=free;
+        free=f;
+        size++;
+    }
+
+    /**
+     * Raises the capacity of the pool to at least <tt>frames</tt>,
+     * bounded by <tt>sisc.framePoolMax</tt>, and fills it with fresh
+     * frames, so that a burst of calls does not start out allocating.
+     */
+    public void reserve(int frames) {
+        if (frames > capacity)
+            capacity=Math.min(frames, maxCapacity);
+        while (size < capacity) {
+            CallFrame f=new CallFrame();
+            f.parent=free;
+            free=f;
+            size++;
+        }
+        windowLow=size;
+    }
+
+    private void adapt() {
+        if (windowMisses > (WINDOW >> 3) && discards > discardsAtLastGrow) {
+            if (capacity < maxCapacity) {
+                capacity=Math.min(Math.max(capacity << 1, 1), maxCapacity);
+                discardsAtLastGrow=discards;
+                grows++;
+            }
+        } else if (windowMisses == 0 && windowLow > (capacity >> 1)) {
+            if (capacity > minCapacity) {
+                capacity=Math.max(capacity >> 1, minCapacity);
+                while (size > capacity) {
+                    CallFrame f=free;
+                    free=f.parent;
+                    f.parent=null;
+                    size--;
+                }
+                shrinks++;
+            }
+        }
+        windowTakes=windowMisses=0;
+        windowLow=size;
+    }
+
+    /**
+     * The number of frame requests served from the pool.
+     */
+    public long getHits() {
+        return hits;
+    }
+
+    /**
+     * The number of frame requests that had to allocate a new frame.
+     */
+    public long getMisses() {
+        return misses;
+    }
+
+    /**
+     * The number of frames dropped because the pool was full.
+     */
+    public long getDiscards() {
+        return discards;
+    }
+
+    /**
+     * The number of frames not recycled because they were captured
+     * by a continuation.
+     */
+    public long getCaptured() {
+        return captured;
+    }
+
+    public int getSize() {
+        return size;
+    }
+
+    public int getCapacity() {
+        return capacity;
+    }
+
+    public int getGrows() {
+        return grows;
+    }
+
+    public int getShrinks() {
+        return shrinks;
+    }
+
+    /**
+     * Returns the statistics of this pool as an association list.
+     */
+    public Pair toValue() {
+        return valArrayToList(new Value[] {
+            new Pair(sym("hits"), Quantity.valueOf(hits)),
+            new Pair(sym("misses"), Quantity.valueOf(misses)),
+            new Pair(sym("discards"), Quantity.valueOf(discards)),
+            new Pair(sym("captured"), Quantity.valueOf(captured)),
+            new Pair(sym("size"), Quantity.valueOf(size)),
+            new Pair(sym("capacity"), Quantity.valueOf(capacity)),
+            new Pair(sym("grows"), Quantity.valueOf(grows)),
+            new Pair(sym("shrinks"), Quantity.valueOf(shrinks))});
+    }
+}
+
+/*
+ * The contents of this file are subject to the Mozilla Public
+ * License Version 1.1 (the "License"); you may not use this file
+ * except in compliance with the License. You may obtain a copy of
+ * the License at http://www.mozilla.org/MPL/
+ * 
+ * Software distributed under the License is distributed on an "AS
+ * IS" basis, WITHOUT WARRANTY OF ANY KIND, either express or
+ * implied. See the License for the specific language governing
+ * rights and limitations under the License.
+ * 
+ * The Original Code is the Second Interpreter of Scheme Code (SISC).
+ * 
+ * The Initial Developer of the Original Code is Scott G. Miller.
+ * Portions created by Scott G. Miller are Copyright (C) 2000-2007
+ * Scott G. Miller.  All Rights Reserved.
+ * 
+ * Contributor(s):
+ * 
+ * Alternatively, the contents of this file may be used under the
+ * terms of the GNU General Public License Version 2 or later (the
+ * "GPL"), in which case the provisions of the GPL are applicable 
+ * instead of those above.  If you wish to allow use of your 
+ * version of this file only under the terms of the GPL and not to
+ * allow others to use your version of this file under the MPL,
+ * indicate your decision by deleting the provisions above and
+ * replace them with the notice and other provisions required by
+ * the GPL.  If you do not delete the provisions above, a recipient
+ * may use your version of this file under either the MPL or the
+ * GPL.
+ */
@@ -190,7 +190,25 @@ public abstract class Context extends Util {
      * @return The newly created Interpreter
      */
     public static Interpreter enter(DynamicEnvironment dynenv) {
+        ThreadContext tctx = lookupThreadContext();
+        return enter(tctx, createInterpreter(tctx, dynenv));
+    }
+
+    /**
+     * Returns an Interpreter drawn from the given pool.  The
+     * Interpreter goes back to the pool on the matching {@link
+     * #exit}.
+     *
+     * @param pool The InterpreterPool
+     * @return The pooled Interpreter
+     */
+    public static Interpreter enter(InterpreterPool pool) {
+        ThreadContext tctx = lookupThreadContext();
+        return enter(tctx, pool.take(tctx));
+    }
 
+    private static Interpreter enter(ThreadContext tctx, Interpreter res) {
+        DynamicEnvironment dynenv = res.dynenv;
         dynenv.bind();
 
         //set thread's context class loader
@@ -204,9 +222,7 @@ public abstract class Context extends Util {
         } catch (java.security.AccessControlException e) {
         }
 
-        ThreadContext tctx = lookupThreadContext();
         tctx.setHostThread(dynenv, currentThread);
-        Interpreter res = createInterpreter(tctx, dynenv);
         tctx.pushState(new ThreadContext.State(res, currentClassLoader));
         return res;
     }
@@ -302,7 +318,32 @@ public abstract class Context extends Util {
      */
     public static Object execute(DynamicEnvironment dynenv, 
                                  SchemeCaller caller) throws SchemeException {
-        Interpreter r=Context.enter(dynenv);
+        return call(Context.enter(dynenv), caller);
+    }
+
+    /**
+     * Obtains an Interpreter from the given pool and invokes
+     * caller.execute(Interpreter) with that Interpreter.  Once
+     * execute returns, the Interpreter goes back to the pool, and
+     * the return value of caller.execute() is returned from this
+     * method.
+     *
+     * The same restriction as for {@link
+     * #execute(DynamicEnvironment, SchemeCaller)} applies: the
+     * Interpreter must only be used in the calling thread, and only
+     * for the duration of the call.
+     *
+     * @param pool The InterpreterPool.
+     * @param caller The SchemeCaller to invoke.
+     * @return the result of invoking the SchemeCaller
+     */
+    public static Object execute(InterpreterPool pool,
+                                 SchemeCaller caller) throws SchemeException {
+        return call(Context.enter(pool), caller);
+    }
+
+    private static Object call(Interpreter r,
+                               SchemeCaller caller) throws SchemeException {
         //Hold this reference.  Necessary because ThreadContext
         //references hostThread only weakly, which is in turn
         //necessary so that when threads terminate their associated
@@ -336,9 +377,9 @@ public abstract class Context extends Util {
     /*********** resource maintenance ***********/
 
     /**
-     * We could use a pool of interpreters. However,
-     * a) interpreter creation is quite cheap, and
-     * b) pool maintenance would require thread synchronization
+     * Interpreters are created afresh unless they come from an
+     * {@link InterpreterPool}; creation is quite cheap, but the
+     * DynamicEnvironment that usually comes with it is not.
      */
     private static Interpreter createInterpreter(ThreadContext tctx,
                                                  DynamicEnvironment dynenv) {
@@ -346,6 +387,7 @@ public abstract class Context extends Util {
     }
 
     private static void returnInterpreter(Interpreter r) {
+        if (r.pool != null) r.pool.give(r);
     }
 
 }
@@ -61,6 +61,24 @@ public class Interpreter extends Util {
         public void deserialize(Deserializer s) throws IOException {}
     }
 
+    public static class OneShotReentered extends Expression {
+
+        public void eval(Interpreter r) throws ContinuationException {
+            r.nxp=null;
+            error(r, liMessage(SISCB, "oneshotreentered"));
+        }
+
+        public Value express() {
+            return list(Symbol.get("OneShotReentered"));
+        }
+
+        public void serialize(Serializer s) throws IOException {}
+        public void deserialize(Deserializer s) throws IOException {}
+    }
+
+    private final static Expression ONESHOT_REENTERED
+        = new OneShotReentered();
+
     //the compiler is stateless; if that ever changes it would need to
     //be moved to the dynenv
     public static Compiler compiler = new Compiler();
@@ -109,6 +127,7 @@ public class Interpreter extends Util {
         fk=top_fk;
         this.tctx = tctx;
         this.dynenv = dynenv;
+        framePool = tctx.framePool;
         tpl=getCtx().toplevel_env;
     }
 
@@ -185,6 +204,12 @@ public class Interpreter extends Util {
     }
     
     public final void pop(CallFrame c) {
+        if (c.oneShot && c.shoot()) {
+            //Leave the registers of the current computation intact,
+            //since frames below c may already have been recycled.
+            nxp=ONESHOT_REENTERED;
+            return;
+        }
         nxp=c.nxp;
         vlr=c.vlr;
         lcl=c.lcl;
@@ -194,7 +219,7 @@ public class Interpreter extends Util {
         stk=c.parent;
         vlk=c.vlk;
         tracer=c.tracer;
-        returnFrame(c);
+        if (!c.oneShot) returnFrame(c);
     }
 
     public final StackTracer makeStackTracer() {
@@ -270,6 +295,20 @@ public class Interpreter extends Util {
         return createContinuation(stk);
     }
 
+    /**
+     * Captures a continuation which may be resumed at most once,
+     * whether by invoking it or by returning normally.  Unlike
+     * {@link #captureContinuation} this does not lock the stack,
+     * so the frames above and below the capture point continue to
+     * be recycled and their value ribs need not be copied.  Only the
+     * receiving frame is kept out of the frame pool, so that a second
+     * attempt to resume it can be detected.
+     */
+    public final Procedure captureOneShotContinuation() {
+        stk.oneShot=true;
+        return createContinuation(stk);
+    }
+
     public void trace(Expression e) {
         if (tracer != null) {
             if (vlk) {
@@ -462,9 +501,33 @@ public class Interpreter extends Util {
     //POOLING
     //STATIC --------------------
 
-    protected static final int FRAMEPOOLMAX=128;
-    protected CallFrame frameFreeList;
-    protected int frameFreeListSize;
+    protected CallFramePool framePool;
+
+    //the pool this interpreter was acquired from, if any
+    InterpreterPool pool;
+
+    /**
+     * Moves this interpreter to the given thread context.  Used when
+     * a pooled interpreter is handed to a different thread.
+     */
+    void attach(ThreadContext tctx) {
+        this.tctx = tctx;
+        framePool = tctx.framePool;
+    }
+
+    /**
+     * Drops the references this interpreter holds to the results and
+     * registers of its last computation, so that an idle pooled
+     * interpreter does not keep them alive.
+     */
+    void detach() {
+        acc = null;
+        nxp = null;
+        vlr = lcl = env = null;
+        stk = null;
+        fk = top_fk;
+        tracer = null;
+    }
 
     private final CallFrame createFrame(Expression n,
                                         Value[] v,
@@ -475,14 +538,7 @@ public class Interpreter extends Util {
                                         CallFrame f,
                                         CallFrame p,
                                         StackTracer tr) {
-        CallFrame rv;
-        if (frameFreeList == null) {
-            rv=new CallFrame();
-        } else {
-            rv=frameFreeList;
-            frameFreeList=frameFreeList.parent;
-            frameFreeListSize--;
-        }
+        CallFrame rv=framePool.take();
         rv.init(n,v,vk,l,e,t,f,p,tr);
         return rv;
     }
@@ -493,15 +549,7 @@ public class Interpreter extends Util {
     }
     
     public final void returnFrame(CallFrame f) {
-        if (f.vlk || frameFreeListSize >= FRAMEPOOLMAX) return;
-
-        //Clear some fields to avoid hanging onto otherwise
-        //garbage collectable data for too long
-        f.clear();
-
-        f.parent=frameFreeList;
-        frameFreeList = f;
-        frameFreeListSize++;
+        framePool.give(f);
     }
 
 
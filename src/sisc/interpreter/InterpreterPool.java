@@ -0,0 +1,176 @@
+package sisc.interpreter;
+
+import java.util.LinkedList;
+import sisc.env.DynamicEnvironment;
+import sisc.util.Util;
+import sisc.util.Defaults;
+
+/**
+ * A bounded pool of reusable Interpreters for an AppContext.
+ * <p>
+ * Entering a context normally creates a fresh Interpreter and a fresh
+ * DynamicEnvironment, which for short evaluations can cost more than
+ * the evaluation itself.  An InterpreterPool instead keeps up to
+ * <tt>sisc.interpreterPoolSize</tt> idle Interpreters, each with its
+ * own warm DynamicEnvironment, and hands them out to whichever thread
+ * asks:
+ * <pre>
+ *   InterpreterPool pool = new InterpreterPool(ctx);
+ *   ...
+ *   Object returnValue=Context.execute(pool, mySchemeCaller);
+ * </pre>
+ * When an Interpreter is returned its DynamicEnvironment is reset to
+ * a template taken when the pool was created, so no ports, settings
+ * or parameters leak from one use to the next.  Definitions made in
+ * the AppContext are of course shared, as with any other Interpreter.
+ * </p>
+ * <p>
+ * The pool never blocks: when no Interpreter is idle a new one is
+ * created, and Interpreters returned to a full pool are dropped.  The
+ * first time a thread draws from the pool, the call frame pool of
+ * that thread is filled up to <tt>sisc.interpreterPoolFrames</tt>
+ * frames.
+ * </p>
+ *
+ * @see Context#enter(InterpreterPool)
+ * @see Context#execute(InterpreterPool, SchemeCaller)
+ */
+public class InterpreterPool extends Util {
+
+    private final AppContext ctx;
+    private final DynamicEnvironment template;
+    private final int maxIdle, frames;
+    private final LinkedList idle = new LinkedList();
+
+    //guarded by idle
+    private long created, reused;
+
+    /**
+     * Creates a pool sized according to the
+     * <tt>sisc.interpreterPoolSize</tt> and
+     * <tt>sisc.interpreterPoolFrames</tt> properties of the
+     * AppContext.
+     */
+    public InterpreterPool(AppContext ctx) {
+        this(ctx,
+             Integer.parseInt(ctx.getProperty("sisc.interpreterPoolSize",
+                                               Integer.toString(Defaults.INTERPRETER_POOL_SIZE))),
+             Integer.parseInt(ctx.getProperty("sisc.interpreterPoolFrames",
+                                               Integer.toString(Defaults.INTERPRETER_POOL_FRAMES))));
+    }
+
+    /**
+     * @param ctx the AppContext of the pooled Interpreters
+     * @param maxIdle the maximum number of idle Interpreters kept
+     * @param frames the number of call frames to reserve in each
+     * thread drawing from the pool
+     */
+    public InterpreterPool(AppContext ctx, int maxIdle, int frames) {
+        this(new DynamicEnvironment(ctx), maxIdle, frames);
+    }
+
+    /**
+     * Creates a pool whose Interpreters start out with copies of the
+     * given DynamicEnvironment, which must not be bound to a thread.
+     */
+    public InterpreterPool(DynamicEnvironment template,
+                           int maxIdle, int frames) {
+        this.ctx = template.ctx;
+        this.template = template;
+        this.maxIdle = maxIdle;
+        this.frames = Math.min(frames, framePoolMax);
+    }
+
+    public AppContext getCtx() {
+        return ctx;
+    }
+
+    /**
+     * The number of Interpreters currently idle in the pool.
+     */
+    public int getIdle() {
+        synchronized(idle) {
+            return idle.size();
+        }
+    }
+
+    /**
+     * The number of Interpreters the pool has had to create.
+     */
+    public long getCreated() {
+        synchronized(idle) {
+            return created;
+        }
+    }
+
+    /**
+     * The number of requests served with an idle Interpreter.
+     */
+    public long getReused() {
+        synchronized(idle) {
+            return reused;
+        }
+    }
+
+    Interpreter take(ThreadContext tctx) {
+        Interpreter r = null;
+        synchronized(idle) {
+            if (!idle.isEmpty()) {
+                r = (Interpreter)idle.removeLast();
+                reused++;
+            } else {
+                created++;
+            }
+        }
+        if (r == null) {
+            r = new Interpreter(tctx, template.copy());
+            r.pool = this;
+        } else {
+            r.attach(tctx);
+        }
+        if (tctx.framePool.getCapacity() < frames)
+            tctx.framePool.reserve(frames);
+        return r;
+    }
+
+    void give(Interpreter r) {
+        r.detach();
+        r.dynenv.unbind();
+        r.dynenv.reset(template);
+        synchronized(idle) {
+            if (idle.size() < maxIdle)
+                idle.addLast(r);
+        }
+    }
+}
+/*
+ * The contents of this file are subject to the Mozilla Public
+ * License Version 1.1 (the "License"); you may not use this file
+ * except in compliance with the License. You may obtain a copy of
+ * the License at http://www.mozilla.org/MPL/
+ * 
+ * Software distributed under the License is distributed on an "AS
+ * IS" basis, WITHOUT WARRANTY OF ANY KIND, either express or
+ * implied. See the License for the specific language governing
+ * rights and limitations under the License.
+ * 
+ * The Original Code is the Second Interpreter of Scheme Code (SISC).
+ * 
+ * The Initial Developer of the Original Code is Scott G. Miller.
+ * Portions created by Scott G. Miller are Copyright (C) 2000-2007
+ * Scott G. Miller.  All Rights Reserved.
+ * 
+ * Contributor(s):
+ * 
+ * Alternatively, the contents of this file may be used under the
+ * terms of the GNU General Public License Version 2 or later (the
+ * "GPL"), in which case the provisions of the GPL are applicable 
+ * instead of those above.  If you wish to allow use of your 
+ * version of this file only under the terms of the GPL and not to
+ * allow others to use your version of this file under the MPL,
+ * indicate your decision by deleting the provisions above and
+ * replace them with the notice and other provisions required by
+ * the GPL.  If you do not delete the provisions above, a recipient
+ * may use your version of this file under either the MPL or the
+ * GPL.
+ */
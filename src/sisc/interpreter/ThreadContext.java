@@ -27,6 +27,11 @@ public class ThreadContext extends Util {
     public long unicityMajor=genUnicityMajor();
     public char unicityMinor=0;
 
+    /**
+     * The call frames recycled by the interpreters of this thread.
+     */
+    public final CallFramePool framePool = new CallFramePool();
+
     public ThreadContext() {}
 
     /*********** Unique Value Support ********************/
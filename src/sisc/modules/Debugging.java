@@ -10,7 +10,7 @@ import sisc.util.UndefinedVarException;
 
 public class Debugging extends IndexedProcedure {
 
-    //NEXT: 15
+    //NEXT: 16
     protected static final int EXPRESSV = 0,
         CONT_VLR = 2,
         CONT_NXP = 3,
@@ -25,6 +25,7 @@ public class Debugging extends IndexedProcedure {
         FREEXPQ = 11,
         FRESYM = 12,
         QTYPE = 13,
+        FRAMEPOOLSTATS = 15,
         UNRESOLVEDREFS = 1;
 
     public static class Index extends IndexedLibraryAdapter {
@@ -48,6 +49,7 @@ public class Debugging extends IndexedProcedure {
             define("_free-reference-exp?", FREEXPQ);
             define("_free-reference-symbol", FRESYM);
             define("quantity-type", QTYPE);
+            define("frame-pool-stats", FRAMEPOOLSTATS);
             define("unresolved-references", UNRESOLVEDREFS);
         }
     }
@@ -80,6 +82,8 @@ public class Debugging extends IndexedProcedure {
                     }
                 }
                 return res;
+            case FRAMEPOOLSTATS:
+                return f.tctx.framePool.toValue();
             default:
                 throwArgSizeException();
             }
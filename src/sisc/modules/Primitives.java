@@ -35,6 +35,8 @@ public abstract class Primitives extends Util {
         = annotatedAppEval("call-with-escape-continuation");
     private final static Expression CALLCC_APPEVAL
         = annotatedAppEval("call-with-current-continuation");
+    private final static Expression CALL1CC_APPEVAL
+        = annotatedAppEval("call-with-one-shot-continuation");
     private final static Expression CALLFC_APPEVAL
         = annotatedAppEval("call-with-failure-continuation");
     private final static Expression WITHFC_APPEVAL
@@ -65,6 +67,29 @@ public abstract class Primitives extends Util {
                      (((Quantity)v).is(mask)));
     }
 
+    public static final int EQUIV_NONE = -1, EQUIV_EQ = 0, EQUIV_EQV = 1,
+        EQUIV_EQUAL = 2, EQUIV_STRING = 3;
+
+    /**
+     * Identifies the built-in equivalence predicates <tt>eq?</tt>,
+     * <tt>eqv?</tt>, <tt>equal?</tt> and <tt>string=?</tt>, so that
+     * callers such as hashtables can compare values directly instead
+     * of applying the procedure.
+     *
+     * @return one of the EQUIV_ constants
+     */
+    public static int equivalence(Value p) {
+        if (p instanceof Simple) {
+            switch (((Simple)p).id) {
+            case EQ: return EQUIV_EQ;
+            case EQV: return EQUIV_EQV;
+            case EQUAL: return EQUIV_EQUAL;
+            case STRINGEQUAL: return EQUIV_STRING;
+            }
+        }
+        return EQUIV_NONE;
+    }
+
     public static class CircularityDetector implements ExpressionVisitor {
 
         private Map trailMap;
@@ -139,6 +164,7 @@ public abstract class Primitives extends Util {
             define("call-with-current-continuation", Complex.class, CALLCC);
             define("call-with-escape-continuation", Complex.class, CALLEC);
             define("call-with-failure-continuation", Complex.class, CALLFC);
+            define("call-with-one-shot-continuation", Complex.class, CALL1CC);
             define("call-with-values", Complex.class, CALLWITHVALUES);
             define("compact-string-rep", Complex.class, COMPACTSTRINGREP);
             define("compile", Complex.class, COMPILE);
@@ -764,6 +790,10 @@ public abstract class Primitives extends Util {
                     kproc=vlr[0];
                     r.setupTailCall(CALLCC_APPEVAL, r.captureContinuation());
                     return kproc;
+                case CALL1CC:
+                    kproc=vlr[0];
+                    r.setupTailCall(CALL1CC_APPEVAL, r.captureOneShotContinuation());
+                    return kproc;
                 case CALLFC:
                     kproc=vlr[0];
                     r.setupTailCall(CALLFC_APPEVAL, r.fk.capture(r));
@@ -999,7 +1029,7 @@ public abstract class Primitives extends Util {
     }
 
 
-    // next: 149, {145}
+    // next: 150, {145}
     static final int ACOS = 23,
         ADD = 114,
         APPLY = 121,
@@ -1010,6 +1040,7 @@ public abstract class Primitives extends Util {
         BOOLEANQ = 32,
         BOX = 56,
         BOXQ = 58,
+        CALL1CC = 149,
         CALLCC = 54,
         CALLEC = 126,
         CALLFC = 55,
@@ -1,11 +1,16 @@
 package sisc.modules;
 
 import java.io.*;
+import java.util.concurrent.*;
 import sisc.data.*;
+import sisc.env.DynamicEnvironment;
 import sisc.interpreter.*;
 import sisc.nativefun.*;
 
 import sisc.io.ValueWriter;
+import sisc.modules.io.IO;
+import sisc.reader.ParallelReader;
+import sisc.reader.Parser;
 import sisc.ser.Serializer;
 import sisc.util.ExpressionVisitor;
 import sisc.util.Util;
@@ -215,6 +220,310 @@ public class Threads extends Util {
         }
     }
 
+    /*********** data parallelism ***********/
+
+    private static ExecutorService workers;
+
+    /**
+     * A thread of the shared worker pool.  Parallel operations
+     * started from a worker run sequentially, since waiting for
+     * other workers from a worker could exhaust the pool.
+     */
+    private static class Worker extends Thread {
+        Worker(Runnable r) {
+            super(SchemeThread.schemeThreads, r);
+            setDaemon(true);
+        }
+    }
+
+    private static synchronized ExecutorService workers() {
+        if (workers == null) {
+            workers=Executors.newFixedThreadPool(workerCount(),
+                                                 new ThreadFactory() {
+                    public Thread newThread(Runnable r) {
+                        return new Worker(r);
+                    }
+                });
+        }
+        return workers;
+    }
+
+    private static int workerCount() {
+        return (parallelism > 0 ? parallelism :
+                Runtime.getRuntime().availableProcessors());
+    }
+
+    protected static final int MAP=0, FOR_EACH=1, REDUCE=2;
+
+    /**
+     * The shared state of one parallel-map, -for-each or -reduce.
+     */
+    static class ParallelOp {
+        final int mode;
+        final DynamicEnvironment dynenv;
+        final Procedure proc;
+        final Value seed;
+        final Value[] in, out;
+        volatile boolean failed;
+        SchemeException error;
+        //control left an application other than by returning
+        boolean escaped;
+
+        ParallelOp(int mode, DynamicEnvironment dynenv, Procedure proc,
+                   Value seed, Value[] in) {
+            this.mode=mode;
+            this.dynenv=dynenv;
+            this.proc=proc;
+            this.seed=seed;
+            this.in=in;
+            out=(mode == MAP ? new Value[in.length] : null);
+        }
+
+        synchronized void fail(SchemeException e) {
+            if (error == null) error=e;
+            failed=true;
+        }
+
+        synchronized void escape() {
+            escaped=true;
+            failed=true;
+        }
+    }
+
+    /**
+     * The in and out thunk of {@link #BARRIER_POINT}.
+     */
+    static class Barrier extends NativeProcedure {
+        Barrier() {
+            setName(Symbol.get("parallel-barrier"));
+        }
+
+        public Value doApply(Interpreter f) {
+            throwPrimException(liMessage(THREADB, "parallelescape"));
+            return VOID;
+        }
+    }
+
+    /**
+     * The dynamic wind point below every application by a Slice, in
+     * the representation used by dynamic-wind in init2.scm:
+     * <tt>#(depth in out parent)</tt>.  Invoking a continuation
+     * travels through it when leaving the application for the
+     * caller's computation, which would otherwise go on running on
+     * the worker, or when entering the application from elsewhere;
+     * either way its thunks raise an error instead.
+     */
+    static final Value BARRIER_POINT=
+        new SchemeVector(new Value[] {Quantity.valueOf(0),
+                                      new Barrier(), new Barrier(),
+                                      FALSE});
+
+    /**
+     * A contiguous slice of the elements of a ParallelOp, processed in
+     * order by an Interpreter of its own.  Returns the reduction of
+     * the slice when reducing.
+     */
+    static class Slice implements Callable {
+        final ParallelOp op;
+        final int from, to;
+
+        Slice(ParallelOp op, int from, int to) {
+            this.op=op;
+            this.from=from;
+            this.to=to;
+        }
+
+        //set by the expression to which each application returns
+        private boolean returned;
+
+        private final Expression returnExp=new Expression() {
+                public void eval(Interpreter r) {
+                    returned=true;
+                    r.nxp=null;
+                }
+
+                public Value express() {
+                    return list(Symbol.get("parallel-return"));
+                }
+            };
+
+        private final Expression applyExp=new Expression() {
+                public void eval(Interpreter r) throws ContinuationException {
+                    r.pushExpr(returnExp);
+                    r.acc.apply(r);
+                }
+
+                public Value express() {
+                    return list(Symbol.get("parallel-apply"));
+                }
+            };
+
+        public Object call() {
+            DynamicEnvironment dynenv=op.dynenv.copy();
+            dynenv.wind=BARRIER_POINT;
+            Interpreter r=Context.enter(dynenv);
+            try {
+                Value acc=op.seed;
+                for (int i=from; i<to && !op.failed; i++) {
+                    switch(op.mode) {
+                    case MAP:
+                        op.out[i]=apply(r, new Value[] {op.in[i]});
+                        break;
+                    case FOR_EACH:
+                        apply(r, new Value[] {op.in[i]});
+                        break;
+                    case REDUCE:
+                        acc=apply(r, new Value[] {acc, op.in[i]});
+                        break;
+                    }
+                }
+                return acc;
+            } catch (SchemeException se) {
+                op.fail(se);
+                return null;
+            } finally {
+                Context.exit();
+            }
+        }
+
+        /**
+         * Applies the procedure of the op to <tt>args</tt>.  Should
+         * control get past {@link #BARRIER_POINT} anyway, e.g. by an
+         * unsafe continuation, the interpreter returns without
+         * having returned from the application, and the op fails.
+         */
+        private Value apply(Interpreter r, Value[] args)
+            throws SchemeException {
+            returned=false;
+            r.acc=op.proc;
+            r.vlr=args;
+            Value res=r.interpret(applyExp);
+            if (!returned) {
+                op.escape();
+                return null;
+            }
+            return res;
+        }
+    }
+
+    /**
+     * Applies <tt>proc</tt> to the elements of a list or vector,
+     * split into slices which are processed concurrently by the
+     * shared worker pool.  The caller waits for all slices; if any
+     * application raised an error, the remaining slices stop early
+     * and the first error raised is re-raised in the caller.
+     * Invoking a continuation to leave or re-enter an application
+     * raises an error as well.
+     * <p>
+     * When reducing, every slice starts from <tt>seed</tt> and the
+     * results of the slices are then combined from left to right,
+     * so <tt>proc</tt> must be associative and <tt>seed</tt> its
+     * identity.
+     * </p>
+     */
+    static Value parallel(Interpreter f, int mode, Procedure proc,
+                          Value seed, Value seq) {
+        boolean vector=(seq instanceof SchemeVector);
+        Value[] in=(vector ? ((SchemeVector)seq).vals :
+                    pairToValues(pair(seq)));
+        ParallelOp op=new ParallelOp(mode, f.dynenv, proc, seed, in);
+
+        int slices=Math.min(in.length, workerCount() * 4);
+        if (slices > 1 && Thread.currentThread() instanceof Worker)
+            slices=1;
+        Value[] partial=new Value[slices];
+        if (slices == 1) {
+            partial[0]=(Value)new Slice(op, 0, in.length).call();
+        } else if (slices > 1) {
+            Future[] futures=new Future[slices];
+            for (int i=0; i<slices; i++) {
+                futures[i]=workers().submit(new Slice(op,
+                                                      (int)((long)in.length*i/slices),
+                                                      (int)((long)in.length*(i+1)/slices)));
+            }
+            boolean interrupted=false;
+            for (int i=0; i<slices; i++) {
+                while (true) {
+                    try {
+                        partial[i]=(Value)futures[i].get();
+                        break;
+                    } catch (InterruptedException e) {
+                        //we must not return while workers still use op
+                        interrupted=true;
+                    } catch (ExecutionException e) {
+                        Throwable t=e.getCause();
+                        if (t instanceof RuntimeException)
+                            throw (RuntimeException)t;
+                        throw (Error)t;
+                    }
+                }
+            }
+            if (interrupted) Thread.currentThread().interrupt();
+        }
+        if (op.error != null)
+            Procedure.throwNestedPrimException(op.error);
+        if (op.escaped)
+            Procedure.throwPrimException(liMessage(THREADB, "parallelescape"));
+
+        switch(mode) {
+        case MAP:
+            return (vector ? (Value)new SchemeVector(op.out) :
+                    valArrayToList(op.out));
+        case REDUCE:
+            if (slices == 0) return seed;
+            Value acc=partial[0];
+            if (slices > 1) {
+                Interpreter r=Context.enter(f.dynenv);
+                try {
+                    for (int i=1; i<slices; i++) {
+                        acc=r.eval(proc, new Value[] {acc, partial[i]});
+                    }
+                } catch (SchemeException se) {
+                    Procedure.throwNestedPrimException(se);
+                } finally {
+                    Context.exit();
+                }
+            }
+            return acc;
+        default:
+            return VOID;
+        }
+    }
+
+    /**
+     * The lazy stream returned by <tt>parallel-reader</tt>, a thunk
+     * returning the next datum read from a port on each call and the
+     * EOF object at the end of the input.
+     */
+    static class ParallelReaderProcedure extends NativeProcedure {
+        final SchemeCharacterInputPort port;
+        final ParallelReader reader;
+
+        ParallelReaderProcedure(Interpreter f, SchemeCharacterInputPort port) {
+            this.port=port;
+            int flags=(f.dynenv.caseSensitive ? Parser.CASE_SENSITIVE : 0) |
+                (f.dynenv.permissiveParsing ? Parser.PERMISSIVE_PARSING : 0);
+            //workers must not wait for other workers
+            boolean inWorker=(Thread.currentThread() instanceof Worker);
+            reader=new ParallelReader(port.getReader(),
+                                      (inWorker ? null : workers()),
+                                      workerCount() * 2,
+                                      f.dynenv.parser, flags);
+        }
+
+        public Value doApply(Interpreter f) throws ContinuationException {
+            if (f.vlr.length != 0) throwArgSizeException();
+            try {
+                return reader.next();
+            } catch (IOException e) {
+                IO.throwIOException(f, liMessage(IO.IOB, "errorreading",
+                                                 port.toString(),
+                                                 e.getMessage()), e);
+                return VOID;
+            }
+        }
+    }
+
     public static class Index extends IndexedLibraryAdapter {
 
         public Value construct(Object context, int id) {
@@ -241,6 +550,11 @@ public class Threads extends Util {
             define("condvar/notify-all", Complex.class, CONDVARNOTIFYALL);
 
             define("mutex/lock!", Complex.class, MUTEXLOCK);
+
+            define("parallel-map", Complex.class, PARALLELMAP);
+            define("parallel-for-each", Complex.class, PARALLELFOREACH);
+            define("parallel-reduce", Complex.class, PARALLELREDUCE);
+            define("parallel-reader", Complex.class, PARALLELREADER);
             define("mutex/unlock!", Complex.class, MUTEXUNLOCK);
 
             define("thread?", THREADQ);
@@ -356,6 +670,8 @@ public class Threads extends Util {
                 return new SchemeThread(f.dynenv, proc(f.vlr[0]));
             case THREADRESULT:
                 return sthread(f.vlr[0]).getResult(f);
+            case PARALLELREADER:
+                return new ParallelReaderProcedure(f, charinport(v1));
             case THREADINTERRUPT:
                 SchemeThread c=sthread(v1);
                 c.thread.interrupt();
@@ -373,15 +689,7 @@ public class Threads extends Util {
                 mutex(v1).unlock();
                 return TRUE;
             case THREADSTART:
-                c=sthread(v1);
-                c.start();
-                while (c.state==SchemeThread.READY) {
-                    synchronized(c) {
-                        try {
-                            c.wait(500);
-                        } catch (InterruptedException e) {}
-                    }
-                }
+                sthread(v1).start();
                 return VOID;
             case THREADJOIN:
                 c=sthread(v1);
@@ -401,6 +709,28 @@ public class Threads extends Util {
             return VOID;
         }
         
+        public Value apply(Interpreter f, Value v1, Value v2)
+            throws ContinuationException {
+            switch(id) {
+            case PARALLELMAP:
+                return parallel(f, MAP, proc(v1), null, v2);
+            case PARALLELFOREACH:
+                return parallel(f, FOR_EACH, proc(v1), null, v2);
+            default:
+                return apply(v1, v2);
+            }
+        }
+
+        public Value apply(Interpreter f, Value v1, Value v2, Value v3)
+            throws ContinuationException {
+            switch(id) {
+            case PARALLELREDUCE:
+                return parallel(f, REDUCE, proc(v1), v2, v3);
+            default:
+                return apply(v1, v2, v3);
+            }
+        }
+
         public Value apply(Value v1, Value v2) throws ContinuationException {
             switch(id) {
             case MUTEXUNLOCK:
@@ -429,7 +759,10 @@ public class Threads extends Util {
                 sthread(v1).thread.setPriority(num(v2).indexValue());
                 return VOID;
             case SETTHREADDAEMON:
-                sthread(v1).thread.setDaemon(truth(v2));
+                c=sthread(v1);
+                //virtual threads are always daemons
+                if (!c.isVirtual())
+                    c.thread.setDaemon(truth(v2));
                 return VOID;
             case SETTHREADNAME:
                 c=sthread(v1);
@@ -452,7 +785,7 @@ public class Threads extends Util {
         }                
     }
     
-    protected static final int // Next: 33 
+    protected static final int // Next: 36 
         THREADNEW = 0,
         THREADRESULT = 21,
         THREADSTART = 1,
@@ -484,7 +817,11 @@ public class Threads extends Util {
         MUTEXQ = 29,
         CONDVARQ = 30,
         CONDVARNEW = 31,
-        THREADSETRESULT = 32;
+        THREADSETRESULT = 32,
+        PARALLELMAP = 33,
+        PARALLELFOREACH = 34,
+        PARALLELREDUCE = 35,
+        PARALLELREADER = 36;
 
 }
 /*
@@ -0,0 +1,264 @@
+package sisc.modules.hashtable;
+
+import sisc.data.*;
+
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.io.IOException;
+
+import sisc.io.ValueWriter;
+import sisc.ser.Serializer;
+import sisc.ser.Deserializer;
+import sisc.util.ExpressionVisitor;
+import sisc.util.Util;
+
+/**
+ * A thread safe hashtable backed by a ConcurrentHashMap, so that
+ * lookups take no lock and updates only lock a stripe of the table,
+ * rather than the whole table as {@link SynchronizedHashtable} does.
+ * <p>
+ * Keys are compared directly for the built-in equivalence predicates,
+ * as in {@link OpenHashtable}, and by applying the procedures
+ * otherwise.  Such procedures may be applied while a stripe is
+ * locked, and must therefore not modify the table.
+ * </p>
+ * {@link #putIfAbsent} and {@link #replace} are atomic, which
+ * <tt>hashtable/get!</tt> and <tt>hashtable/update!</tt> rely on.
+ */
+public class ConcurrentHashtable extends HashtableBase {
+
+    private ConcurrentHashMap ht;
+
+    private Procedure equalsProc;
+    private Procedure hashProc;
+    private int kind;
+    //false until the kind is known and, after deserialisation, the
+    //entries have been added
+    private volatile boolean ready;
+    private Pair alist;//tmp store during deserialisation;
+
+    public ConcurrentHashtable() {
+        this.ht = new ConcurrentHashMap();
+    }
+
+    public ConcurrentHashtable(Procedure equalsProc, Procedure hashProc) {
+        this();
+        this.equalsProc = equalsProc;
+        this.hashProc = hashProc;
+        this.kind = OpenHashtable.kindOf(equalsProc, hashProc);
+        this.ready = true;
+    }
+
+    public Procedure getEqualsProc() {
+        return equalsProc;
+    }
+
+    public Procedure getHashProc() {
+        return hashProc;
+    }
+
+    private class Key implements HashtableKey {
+
+        private Value key;
+        private int hash;
+
+        public Key(Value key) {
+            this.key = key;
+            this.hash = OpenHashtable.hash(kind, hashProc, key);
+        }
+
+        public Value getValue() {
+            return key;
+        }
+
+        public boolean equals(Object o) {
+            if (!(o instanceof Key)) return false;
+            Key k = (Key)o;
+            return key == k.key ||
+                (hash == k.hash &&
+                 OpenHashtable.same(kind, equalsProc, key, k.key));
+        }
+
+        public int hashCode() {
+            return hash;
+        }
+
+    }
+
+    private Map getMap() {
+        if (!ready) {
+            synchronized(this) {
+                if (!ready) {
+                    kind = OpenHashtable.kindOf(equalsProc, hashProc);
+                    for (Pair p = alist; p != EMPTYLIST; p = pair(p.cdr())) {
+                        Pair entry = pair(p.car());
+                        ht.put(new Key(entry.car()), entry.cdr());
+                    }
+                    alist = null;
+                    ready = true;
+                }
+            }
+        }
+        return ht;
+    }
+
+    public Value get(Value k) {
+        return (Value)getMap().get(new Key(k));
+    }
+
+    public Value put(Value k, Value v) {
+        return (Value)getMap().put(new Key(k), v);
+    }
+
+    public Value remove(Value k) {
+        return (Value)getMap().remove(new Key(k));
+    }
+
+    public Value putIfAbsent(Value k, Value v) {
+        getMap();
+        return (Value)ht.putIfAbsent(new Key(k), v);
+    }
+
+    public boolean replace(Value k, Value oldValue, Value newValue) {
+        getMap();
+        return ht.replace(new Key(k), oldValue, newValue);
+    }
+
+    public int size() {
+        return getMap().size();
+    }
+
+    public void clear() {
+        getMap().clear();
+    }
+
+    public void addAList(Pair p) {
+        Map m = getMap();
+        for (; p != EMPTYLIST; p = pair(p.cdr())) {
+            Pair entry = pair(p.car());
+            m.put(new Key(entry.car()), entry.cdr());
+        }
+    }
+
+    public Pair toAList() {
+        Iterator i = getMap().entrySet().iterator();
+        Pair res = EMPTYLIST;
+        while(i.hasNext()) {
+            Map.Entry e = (Map.Entry)i.next();
+            res = new Pair(new Pair(((Key)e.getKey()).key,
+                                    (Value)e.getValue()),
+                           res);
+        }
+        return res;
+    }
+
+    public Pair keys() {
+        Iterator i = getMap().keySet().iterator();
+        Pair res = EMPTYLIST;
+        while(i.hasNext()) {
+            res = new Pair(((Key)i.next()).key, res);
+        }
+        return res;
+    }
+
+    public boolean valueEqual(Value v) {
+        if (v==this) return true;
+        if (!(v instanceof ConcurrentHashtable)) return false;
+        ConcurrentHashtable o = (ConcurrentHashtable)v;
+        if (size() != o.size()) return false;
+        if (!equalsProc.valueEqual(o.equalsProc) ||
+            !hashProc.valueEqual(o.hashProc)) return false;
+        for (Iterator i = getMap().entrySet().iterator(); i.hasNext();) {
+            Map.Entry e = (Map.Entry)i.next();
+            Value val = (Value)e.getValue();
+            if (!val.valueEqual(o.get(((Key)e.getKey()).key))) return false;
+        }
+        return true;
+    }
+
+    public int valueHashCode() {
+        int res = equalsProc.valueHashCode() ^ hashProc.valueHashCode();
+        for (Iterator i = getMap().entrySet().iterator(); i.hasNext();) {
+            Map.Entry e = (Map.Entry)i.next();
+            res += ((Key)e.getKey()).key.valueHashCode() ^
+                ((Value)e.getValue()).valueHashCode();
+        }
+        return res;
+    }
+
+    public void serialize(Serializer s) throws IOException {
+        s.writeExpression(equalsProc);
+        s.writeExpression(hashProc);
+        s.writeExpression(toAList());
+    }
+
+    public void deserialize(Deserializer s) throws IOException {
+        equalsProc = (Procedure)s.readExpression();
+        hashProc   = (Procedure)s.readExpression();
+        alist      = (Pair)s.readExpression();
+        ready      = false;
+    }
+
+    public boolean visit(ExpressionVisitor v) {
+        if (!v.visit(equalsProc) || !v.visit(hashProc)) return false;
+        Iterator i = getMap().entrySet().iterator();
+        while(i.hasNext()) {
+            Map.Entry e = (Map.Entry)i.next();
+            if (!v.visit(((Key)e.getKey()).key)) return false;
+            if (!v.visit((Value)e.getValue())) return false;
+        }
+        return true;
+    }
+
+    public void display(ValueWriter w) throws IOException {
+        w.append("#<")
+            .append(Util.liMessage(Primitives.SHASHB, "hashtable"))
+            .append(' ')
+            .append(equalsProc)
+            .append(' ')
+            .append(hashProc)
+            .append(" (");
+        Iterator i = getMap().entrySet().iterator();
+        while(i.hasNext()) {
+            Map.Entry e = (Map.Entry)i.next();
+            w.append('(')
+                .append(((Key)e.getKey()).key).append(" . ")
+                .append((Value)e.getValue())
+                .append(')');
+        }
+        w.append(")>");
+    }
+
+}
+/*
+ * The contents of this file are subject to the Mozilla Public
+ * License Version 1.1 (the "License"); you may not use this file
+ * except in compliance with the License. You may obtain a copy of
+ * the License at http://www.mozilla.org/MPL/
+ * 
+ * Software distributed under the License is distributed on an "AS
+ * IS" basis, WITHOUT WARRANTY OF ANY KIND, either express or
+ * implied. See the License for the specific language governing
+ * rights and limitations under the License.
+ * 
+ * The Original Code is the Second Interpreter of Scheme Code (SISC).
+ * 
+ * The Initial Developer of the Original Code is Scott G. Miller.
+ * Portions created by Scott G. Miller are Copyright (C) 2000-2007
+ * Scott G. Miller.  All Rights Reserved.
+ * 
+ * Contributor(s):
+ * 
+ * Alternatively, the contents of this file may be used under the
+ * terms of the GNU General Public License Version 2 or later (the
+ * "GPL"), in which case the provisions of the GPL are applicable 
+ * instead of those above.  If you wish to allow use of your 
+ * version of this file only under the terms of the GPL and not to
+ * allow others to use your version of this file under the MPL,
+ * indicate your decision by deleting the provisions above and
+ * replace them with the notice and other provisions required by
+ * the GPL.  If you do not delete the provisions above, a recipient
+ * may use your version of this file under either the MPL or the
+ * GPL.
+ */
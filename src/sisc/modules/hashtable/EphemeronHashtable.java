@@ -0,0 +1,86 @@
+package sisc.modules.hashtable;
+
+import sisc.data.*;
+
+/**
+ * A weak hashtable whose values do not keep their keys alive.
+ * <p>
+ * In a {@link WeakHashtable} the table holds each value strongly, so
+ * a key referenced from its own value is never collected.  Here the
+ * table holds only the weak references to the keys, and each value
+ * is stored on its key, through {@link Expression#setEphemeron}.  A
+ * value is therefore reachable only while its key is, and a key
+ * reachable only from its value is collected along with it.
+ * </p>
+ */
+public class EphemeronHashtable extends WeakHashtable {
+
+    //identifies this table among the ephemerons of a key; only the
+    //table refers to it strongly
+    private final Object token = new Object();
+
+    public EphemeronHashtable() {
+        super();
+    }
+
+    public EphemeronHashtable(Procedure equalsProc, Procedure hashProc) {
+        super(equalsProc, hashProc);
+    }
+
+    private class EphemeronEntry extends Entry {
+
+        public EphemeronEntry(Value key, int hash) {
+            super(key, hash);
+        }
+
+        protected Value getValue() {
+            Value key = getKey();
+            return (key == null) ? null : key.getEphemeron(token);
+        }
+
+        protected void setValue(Value key, Value v) {
+            key.setEphemeron(token, v);
+        }
+
+        protected void discard() {
+            Value key = getKey();
+            if (key != null) key.setEphemeron(token, null);
+            super.discard();
+        }
+    }
+
+    protected Entry makeEntry(Value key, int hash) {
+        return new EphemeronEntry(key, hash);
+    }
+}
+/*
+ * The contents of this file are subject to the Mozilla Public
+ * License Version 1.1 (the "License"); you may not use this file
+ * except in compliance with the License. You may obtain a copy of
+ * the License at http://www.mozilla.org/MPL/
+ * 
+ * Software distributed under the License is distributed on an "AS
+ * IS" basis, WITHOUT WARRANTY OF ANY KIND, either express or
+ * implied. See the License for the specific language governing
+ * rights and limitations under the License.
+ * 
+ * The Original Code is the Second Interpreter of Scheme Code (SISC).
+ * 
+ * The Initial Developer of the Original Code is Scott G. Miller.
+ * Portions created by Scott G. Miller are Copyright (C) 2000-2007
+ * Scott G. Miller.  All Rights Reserved.
+ * 
+ * Contributor(s):
+ * 
+ * Alternatively, the contents of this file may be used under the
+ * terms of the GNU General Public License Version 2 or later (the
+ * "GPL"), in which case the provisions of the GPL are applicable 
+ * instead of those above.  If you wish to allow use of your 
+ * version of this file only under the terms of the GPL and not to
+ * allow others to use your version of this file under the MPL,
+ * indicate your decision by deleting the provisions above and
+ * replace them with the notice and other provisions required by
+ * the GPL.  If you do not delete the provisions above, a recipient
+ * may use your version of this file under either the MPL or the
+ * GPL.
+ */
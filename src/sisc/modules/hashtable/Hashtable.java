@@ -45,6 +45,14 @@ public class Hashtable extends HashtableBase {
     }
 
     public boolean callEquals(Value v1, Value v2) {
+        return callEquals(equalsProc, v1, v2);
+    }
+
+    public int callHashCode(Value v) {
+        return callHashCode(hashProc, v);
+    }
+
+    static boolean callEquals(Procedure equalsProc, Value v1, Value v2) {
         Value rv = Util.VOID;
         if (equalsProc instanceof FixableProcedure) {
             try {
@@ -79,7 +87,7 @@ public class Hashtable extends HashtableBase {
         }
     }
 
-    public int callHashCode(Value v) {
+    static int callHashCode(Procedure hashProc, Value v) {
         Value rv = Util.VOID;
 
         if (hashProc instanceof FixableProcedure) {
@@ -159,7 +167,7 @@ public class Hashtable extends HashtableBase {
 
     //NB: getKey is allowed to return null, indicating that the key is
     //no longer valid. This is never the case in this class, but
-    //sub-classes, notably WeakHashtable, exploit this feature.
+    //sub-classes may exploit this feature.
     private Value getKey(Object o) {
         return ((HashtableKey)o).getValue();
     }
@@ -28,6 +28,33 @@ public abstract class HashtableBase extends Value {
     public abstract void deserialize(Deserializer s) throws IOException;
     public abstract boolean visit(ExpressionVisitor v);
     public abstract void display(ValueWriter w) throws IOException;
+
+    /**
+     * Associates <tt>v</tt> with <tt>k</tt> unless <tt>k</tt> already
+     * has a value.  This is atomic only in tables which are
+     * themselves thread safe.
+     *
+     * @return the existing value, or null if <tt>v</tt> was added
+     */
+    public Value putIfAbsent(Value k, Value v) {
+        Value res = get(k);
+        if (res == null) put(k, v);
+        return res;
+    }
+
+    /**
+     * Replaces the value of <tt>k</tt> with <tt>newValue</tt> if it is
+     * <tt>oldValue</tt>.  This is atomic only in tables which are
+     * themselves thread safe.
+     *
+     * @return true if the value was replaced
+     */
+    public boolean replace(Value k, Value oldValue, Value newValue) {
+        Value res = get(k);
+        if (res == null || !res.eqv(oldValue)) return false;
+        put(k, newValue);
+        return true;
+    }
 }
 
 /*
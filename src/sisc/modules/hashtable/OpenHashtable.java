@@ -0,0 +1,376 @@
+package sisc.modules.hashtable;
+
+import sisc.data.*;
+
+import java.io.IOException;
+
+import sisc.io.ValueWriter;
+import sisc.ser.Serializer;
+import sisc.ser.Deserializer;
+import sisc.util.ExpressionVisitor;
+import sisc.util.Util;
+
+/**
+ * A hashtable specialised for the built-in equivalence predicates
+ * <tt>eq?</tt>, <tt>eqv?</tt>, <tt>equal?</tt> and <tt>string=?</tt>
+ * paired with their default hash functions.
+ * <p>
+ * Unlike {@link Hashtable}, which wraps every key in a fresh key
+ * object and applies the equivalence and hash procedures for each
+ * comparison, this table keeps keys, values and hash codes in
+ * parallel arrays, uses linear probing and compares keys directly, so
+ * lookups allocate nothing.  Removal shifts the following entries
+ * back rather than leaving tombstones.
+ * </p>
+ * Tables with any other procedures are handled by {@link Hashtable};
+ * should such a pair of procedures turn up here nonetheless, e.g.
+ * after deserialisation, they are applied as there.
+ */
+public class OpenHashtable extends HashtableBase {
+
+    private static final int UNRESOLVED = -2;
+    private static final int MIN_CAPACITY = 8;
+
+    private Procedure equalsProc;
+    private Procedure hashProc;
+    //one of sisc.modules.Primitives.EQUIV_*, EQUIV_NONE standing for
+    //the procedures above
+    private int kind = UNRESOLVED;
+
+    private Value[] keys;
+    private Value[] vals;
+    private int[] hashes;
+    private int size, shift;
+    private Pair alist;//tmp store during deserialisation;
+
+    public OpenHashtable() {
+        init(MIN_CAPACITY);
+    }
+
+    public OpenHashtable(Procedure equalsProc, Procedure hashProc) {
+        this();
+        this.equalsProc = equalsProc;
+        this.hashProc = hashProc;
+    }
+
+    /**
+     * Returns true if a table with the given procedures compares keys
+     * directly rather than by applying the procedures.
+     */
+    public static boolean isSpecialised(Procedure equalsProc,
+                                        Procedure hashProc) {
+        return kindOf(equalsProc, hashProc) !=
+            sisc.modules.Primitives.EQUIV_NONE;
+    }
+
+    static int kindOf(Procedure equalsProc, Procedure hashProc) {
+        int kind = sisc.modules.Primitives.equivalence(equalsProc);
+        if (!(hashProc instanceof Primitives.Simple))
+            return sisc.modules.Primitives.EQUIV_NONE;
+        int hashId = ((Primitives.Simple)hashProc).id;
+        switch (kind) {
+        case sisc.modules.Primitives.EQUIV_EQ:
+            if (hashId == Primitives.HT_HASH_BY_EQ) return kind;
+            break;
+        case sisc.modules.Primitives.EQUIV_EQV:
+            if (hashId == Primitives.HT_HASH_BY_EQV) return kind;
+            break;
+        case sisc.modules.Primitives.EQUIV_EQUAL:
+            if (hashId == Primitives.HT_HASH_BY_EQUAL) return kind;
+            break;
+        case sisc.modules.Primitives.EQUIV_STRING:
+            if (hashId == Primitives.HT_HASH_BY_STRING_EQ) return kind;
+            break;
+        }
+        return sisc.modules.Primitives.EQUIV_NONE;
+    }
+
+    public Procedure getEqualsProc() {
+        return equalsProc;
+    }
+
+    public Procedure getHashProc() {
+        return hashProc;
+    }
+
+    private void init(int capacity) {
+        keys = new Value[capacity];
+        vals = new Value[capacity];
+        hashes = new int[capacity];
+        shift = 32 - Integer.numberOfTrailingZeros(capacity);
+    }
+
+    private void resolve() {
+        if (kind == UNRESOLVED) {
+            kind = kindOf(equalsProc, hashProc);
+            if (alist != null) {
+                Pair p = alist;
+                alist = null;
+                addAList(p);
+            }
+        }
+    }
+
+    private int hash(Value k) {
+        return hash(kind, hashProc, k);
+    }
+
+    private boolean same(Value k, Value stored) {
+        return same(kind, equalsProc, k, stored);
+    }
+
+    //the hash codes are those of the corresponding hash-by-*
+    //procedures, so that they agree with hashtable/hash-function
+    static int hash(int kind, Procedure hashProc, Value k) {
+        switch (kind) {
+        case sisc.modules.Primitives.EQUIV_EQ:
+            return System.identityHashCode(k);
+        case sisc.modules.Primitives.EQUIV_EQV:
+            return k.hashCode();
+        case sisc.modules.Primitives.EQUIV_EQUAL:
+            return k.valueHashCode();
+        case sisc.modules.Primitives.EQUIV_STRING:
+            return Util.string(k).hashCode();
+        default:
+            return Hashtable.callHashCode(hashProc, k);
+        }
+    }
+
+    static boolean same(int kind, Procedure equalsProc,
+                        Value k, Value stored) {
+        switch (kind) {
+        case sisc.modules.Primitives.EQUIV_EQ:
+            return k == stored;
+        case sisc.modules.Primitives.EQUIV_EQV:
+            return k.eqv(stored);
+        case sisc.modules.Primitives.EQUIV_EQUAL:
+        case sisc.modules.Primitives.EQUIV_STRING:
+            return k.valueEqual(stored);
+        default:
+            return Hashtable.callEquals(equalsProc, k, stored);
+        }
+    }
+
+    private int slot(int h) {
+        return (h * 0x9E3779B9) >>> shift;
+    }
+
+    /**
+     * Returns the index of the entry for <tt>k</tt>, or the bitwise
+     * complement of the free slot where it would go.
+     */
+    private int find(Value k, int h) {
+        int mask = keys.length - 1;
+        for (int i = slot(h);; i = (i + 1) & mask) {
+            Value stored = keys[i];
+            if (stored == null) return ~i;
+            if (stored == k || (hashes[i] == h && same(k, stored)))
+                return i;
+        }
+    }
+
+    public Value get(Value k) {
+        resolve();
+        int i = find(k, hash(k));
+        return (i < 0) ? null : vals[i];
+    }
+
+    public Value put(Value k, Value v) {
+        resolve();
+        int h = hash(k);
+        int i = find(k, h);
+        if (i >= 0) {
+            Value res = vals[i];
+            vals[i] = v;
+            return res;
+        }
+        //keep the load factor at most 2/3
+        if ((size + 1) * 3 > keys.length * 2) {
+            grow();
+            i = find(k, h);
+        }
+        i = ~i;
+        keys[i] = k;
+        vals[i] = v;
+        hashes[i] = h;
+        size++;
+        return null;
+    }
+
+    private void grow() {
+        Value[] oldKeys = keys, oldVals = vals;
+        int[] oldHashes = hashes;
+        init(keys.length * 2);
+        int mask = keys.length - 1;
+        for (int j = 0; j < oldKeys.length; j++) {
+            if (oldKeys[j] == null) continue;
+            int i = slot(oldHashes[j]);
+            while (keys[i] != null) i = (i + 1) & mask;
+            keys[i] = oldKeys[j];
+            vals[i] = oldVals[j];
+            hashes[i] = oldHashes[j];
+        }
+    }
+
+    public Value remove(Value k) {
+        resolve();
+        int i = find(k, hash(k));
+        if (i < 0) return null;
+        Value res = vals[i];
+        int mask = keys.length - 1;
+        //move back entries whose probe sequence passes through i
+        for (int j = (i + 1) & mask; keys[j] != null; j = (j + 1) & mask) {
+            int home = slot(hashes[j]);
+            if (i <= j ? (home <= i || home > j) : (home <= i && home > j)) {
+                keys[i] = keys[j];
+                vals[i] = vals[j];
+                hashes[i] = hashes[j];
+                i = j;
+            }
+        }
+        keys[i] = null;
+        vals[i] = null;
+        size--;
+        return res;
+    }
+
+    public int size() {
+        resolve();
+        return size;
+    }
+
+    public void clear() {
+        resolve();
+        init(MIN_CAPACITY);
+        size = 0;
+    }
+
+    public void addAList(Pair p) {
+        for (; p != EMPTYLIST; p = pair(p.cdr())) {
+            Pair entry = pair(p.car());
+            put(entry.car(), entry.cdr());
+        }
+    }
+
+    public Pair toAList() {
+        resolve();
+        Pair res = EMPTYLIST;
+        for (int i = 0; i < keys.length; i++) {
+            if (keys[i] != null) {
+                res = new Pair(new Pair(keys[i], vals[i]), res);
+            }
+        }
+        return res;
+    }
+
+    public Pair keys() {
+        resolve();
+        Pair res = EMPTYLIST;
+        for (int i = 0; i < keys.length; i++) {
+            if (keys[i] != null) {
+                res = new Pair(keys[i], res);
+            }
+        }
+        return res;
+    }
+
+    public boolean valueEqual(Value v) {
+        if (v==this) return true;
+        if (!(v instanceof OpenHashtable)) return false;
+        OpenHashtable o = (OpenHashtable)v;
+        if (size() != o.size()) return false;
+        if (!equalsProc.valueEqual(o.equalsProc) ||
+            !hashProc.valueEqual(o.hashProc)) return false;
+        for (int i = 0; i < keys.length; i++) {
+            if (keys[i] != null && !vals[i].valueEqual(o.get(keys[i])))
+                return false;
+        }
+        return true;
+    }
+
+    public int valueHashCode() {
+        resolve();
+        int res = equalsProc.valueHashCode() ^ hashProc.valueHashCode();
+        for (int i = 0; i < keys.length; i++) {
+            if (keys[i] != null) {
+                res += keys[i].valueHashCode() ^ vals[i].valueHashCode();
+            }
+        }
+        return res;
+    }
+
+    public void serialize(Serializer s) throws IOException {
+        s.writeExpression(equalsProc);
+        s.writeExpression(hashProc);
+        s.writeExpression(toAList());
+    }
+
+    public void deserialize(Deserializer s) throws IOException {
+        equalsProc = (Procedure)s.readExpression();
+        hashProc   = (Procedure)s.readExpression();
+        alist      = (Pair)s.readExpression();
+        kind       = UNRESOLVED;
+    }
+
+    public boolean visit(ExpressionVisitor v) {
+        if (!v.visit(equalsProc) || !v.visit(hashProc)) return false;
+        resolve();
+        for (int i = 0; i < keys.length; i++) {
+            if (keys[i] != null) {
+                if (!v.visit(keys[i])) return false;
+                if (!v.visit(vals[i])) return false;
+            }
+        }
+        return true;
+    }
+
+    public void display(ValueWriter w) throws IOException {
+        resolve();
+        w.append("#<")
+            .append(Util.liMessage(Primitives.SHASHB, "hashtable"))
+            .append(' ')
+            .append(equalsProc)
+            .append(' ')
+            .append(hashProc)
+            .append(" (");
+        for (int i = 0; i < keys.length; i++) {
+            if (keys[i] != null) {
+                w.append('(')
+                    .append(keys[i]).append(" . ").append(vals[i])
+                    .append(')');
+            }
+        }
+        w.append(")>");
+    }
+}
+/*
+ * The contents of this file are subject to the Mozilla Public
+ * License Version 1.1 (the "License"); you may not use this file
+ * except in compliance with the License. You may obtain a copy of
+ * the License at http://www.mozilla.org/MPL/
+ * 
+ * Software distributed under the License is distributed on an "AS
+ * IS" basis, WITHOUT WARRANTY OF ANY KIND, either express or
+ * implied. See the License for the specific language governing
+ * rights and limitations under the License.
+ * 
+ * The Original Code is the Second Interpreter of Scheme Code (SISC).
+ * 
+ * The Initial Developer of the Original Code is Scott G. Miller.
+ * Portions created by Scott G. Miller are Copyright (C) 2000-2007
+ * Scott G. Miller.  All Rights Reserved.
+ * 
+ * Contributor(s):
+ * 
+ * Alternatively, the contents of this file may be used under the
+ * terms of the GNU General Public License Version 2 or later (the
+ * "GPL"), in which case the provisions of the GPL are applicable 
+ * instead of those above.  If you wish to allow use of your 
+ * version of this file only under the terms of the GPL and not to
+ * allow others to use your version of this file under the MPL,
+ * indicate your decision by deleting the provisions above and
+ * replace them with the notice and other provisions required by
+ * the GPL.  If you do not delete the provisions above, a recipient
+ * may use your version of this file under either the MPL or the
+ * GPL.
+ */
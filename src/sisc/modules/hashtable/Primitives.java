@@ -9,6 +9,9 @@ public class Primitives extends IndexedFixableProcedure {
     public static final Symbol SHASHB =
         Symbol.intern("sisc.modules.hashtable.Messages");
 
+    //the weak? argument of hashtable/make selecting an EphemeronHashtable
+    static final Symbol EPHEMERON = Symbol.get("ephemeron");
+
     public static final HashtableBase shash(Value o) {
         try {
             return (HashtableBase)o;
@@ -51,7 +54,10 @@ public class Primitives extends IndexedFixableProcedure {
                     case HT_SIZE:
                         return Quantity.valueOf(h.size());
                     case HT_THREAD_SAFEQ:
-                        return truth(h instanceof SynchronizedHashtable);
+                        return truth((h instanceof SynchronizedHashtable) ||
+                                     (h instanceof ConcurrentHashtable));
+                    case HT_CONCURRENTQ:
+                        return truth(h instanceof ConcurrentHashtable);
                     case HT_WEAKQ:
                         return truth((h instanceof WeakHashtable) ||
                                      ((h instanceof SynchronizedHashtable) &&
@@ -77,14 +83,28 @@ public class Primitives extends IndexedFixableProcedure {
         }
 
         public Value apply(Value[] v) throws ContinuationException {
+            if (id == HT_MAKE_CONCURRENT) {
+                if (v.length == 2) {
+                    return new ConcurrentHashtable(proc(v[0]), proc(v[1]));
+                } else {
+                    throwArgSizeException();
+                }
+            }
             if (id == HT_MAKE) {
                 if (v.length == 4) {
                     Procedure equalsProc = proc(v[0]);
                     Procedure hashProc = proc(v[1]);
-                    HashtableBase res =
-                        truth(v[3]) ?
-                        new WeakHashtable(equalsProc, hashProc) :
-                        new Hashtable(equalsProc, hashProc);
+                    HashtableBase res;
+                    if (v[3] == EPHEMERON) {
+                        res = new EphemeronHashtable(equalsProc, hashProc);
+                    } else if (truth(v[3])) {
+                        res = new WeakHashtable(equalsProc, hashProc);
+                    } else if (OpenHashtable.isSpecialised(equalsProc,
+                                                           hashProc)) {
+                        res = new OpenHashtable(equalsProc, hashProc);
+                    } else {
+                        res = new Hashtable(equalsProc, hashProc);
+                    }
                     if (truth(v[2])) {
                         res = new SynchronizedHashtable(res);
                     }
@@ -168,6 +188,18 @@ public class Primitives extends IndexedFixableProcedure {
                   }
                   res = h.remove(v[1]);
                   break;
+              case HT_PUT_IF_ABSENT:
+                  switch (v.length) {
+                    case 3: break;
+                    case 4: def = v[3]; break;
+                    default:
+                        throwArgSizeException();
+                  }
+                  res = h.putIfAbsent(v[1], v[2]);
+                  break;
+              case HT_REPLACE:
+                  if (v.length != 4) throwArgSizeException();
+                  return truth(h.replace(v[1], v[2], v[3]));
               case HT_ADD_ALIST:
                   switch (v.length) {
                     case 2: h.addAList(pair(v[1])); return h;
@@ -188,6 +220,7 @@ public class Primitives extends IndexedFixableProcedure {
 
         public Index() {
             define("hashtable/make", HT_MAKE);
+            define("_hashtable/make-concurrent", HT_MAKE_CONCURRENT);
             define("hashtable?", HTQ);
             define("hashtable/put!", Complex.class, HT_PUT);
             define("hashtable/get", HT_GET);
@@ -199,6 +232,9 @@ public class Primitives extends IndexedFixableProcedure {
             define("hashtable/keys", HT_KEYS);
             define("hashtable/thread-safe?", HT_THREAD_SAFEQ);
             define("hashtable/weak?", HT_WEAKQ);
+            define("hashtable/concurrent?", HT_CONCURRENTQ);
+            define("_hashtable/put-if-absent!", Complex.class, HT_PUT_IF_ABSENT);
+            define("_hashtable/replace!", Complex.class, HT_REPLACE);
             define("hashtable/equivalence-function", HT_EQUALSFN);
             define("hashtable/hash-function", HT_HASHFN);
             define("hash-by-eq", HT_HASH_BY_EQ);
@@ -217,7 +253,7 @@ public class Primitives extends IndexedFixableProcedure {
     }
 
     protected static final int
-        //NEXT = 19,
+        //NEXT = 23,
         HT_MAKE = 0,
         HTQ = 4,
         HT_PUT = 5,
@@ -236,7 +272,11 @@ public class Primitives extends IndexedFixableProcedure {
         HT_HASH_BY_STRING_EQ = 17,
         HT_HASH_BY_STRING_CI_EQ = 18,
         HT_EQUALSFN = 15,
-        HT_HASHFN = 16;
+        HT_HASHFN = 16,
+        HT_MAKE_CONCURRENT = 19,
+        HT_CONCURRENTQ = 20,
+        HT_PUT_IF_ABSENT = 21,
+        HT_REPLACE = 22;
  }
 
 /*
@@ -62,6 +62,26 @@ public class SynchronizedHashtable extends HashtableBase {
         }
     }
 
+    public Value putIfAbsent(Value k, Value v) {
+        Mutex m = Mutex.of(this);
+        m.acquire();
+        try {
+            return delegate.putIfAbsent(k, v);
+        } finally {
+            m.unlock();
+        }
+    }
+
+    public boolean replace(Value k, Value oldValue, Value newValue) {
+        Mutex m = Mutex.of(this);
+        m.acquire();
+        try {
+            return delegate.replace(k, oldValue, newValue);
+        } finally {
+            m.unlock();
+        }
+    }
+
     public int size() {
         Mutex m = Mutex.of(this);
         m.acquire();
@@ -156,7 +176,7 @@ public class SynchronizedHashtable extends HashtableBase {
         Mutex m = Mutex.of(this);
         m.acquire();
         try {
-            return delegate.visit(v);
+            return v.visit(delegate);
         } finally {
             m.unlock();
         }
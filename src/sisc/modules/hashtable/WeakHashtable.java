@@ -2,77 +2,377 @@ package sisc.modules.hashtable;
 
 import sisc.data.*;
 
-import java.util.Map;
+import java.io.IOException;
 import java.lang.ref.ReferenceQueue;
 import java.lang.ref.WeakReference;
 
-public class WeakHashtable extends Hashtable {
+import sisc.io.ValueWriter;
+import sisc.ser.Serializer;
+import sisc.ser.Deserializer;
+import sisc.util.ExpressionVisitor;
+import sisc.util.Util;
+
+/**
+ * A hashtable holding its keys weakly.
+ * <p>
+ * Entries are weak references to their keys, kept with the keys' hash
+ * codes in an open-addressing table with linear probing.  Lookups
+ * probe by comparing the referents of the entries with the key, so
+ * only insertion of a new key allocates a weak reference.  Entries of
+ * collected keys are removed a few at a time by each put, and all at
+ * once before the table grows or is enumerated.
+ * </p>
+ * Keys are compared directly for the built-in equivalence predicates,
+ * as in {@link OpenHashtable}, and by applying the procedures
+ * otherwise.
+ */
+public class WeakHashtable extends HashtableBase {
+
+    private static final int UNRESOLVED = -2;
+    private static final int MIN_CAPACITY = 8;
+    //the number of entries of collected keys removed by each put
+    private static final int RECLAIM = 2;
+
+    private Procedure equalsProc;
+    private Procedure hashProc;
+    private int kind = UNRESOLVED;
 
     private ReferenceQueue garbage = new ReferenceQueue();
+    private Entry[] table;
+    //the number of entries, including ones of collected keys
+    private int size;
+    private int shift;
+    private Pair alist;//tmp store during deserialisation;
 
     public WeakHashtable() {
-        super();
+        init(MIN_CAPACITY);
     }
 
     public WeakHashtable(Procedure equalsProc, Procedure hashProc) {
-        super(equalsProc, hashProc);
+        this();
+        this.equalsProc = equalsProc;
+        this.hashProc = hashProc;
+    }
+
+    public Procedure getEqualsProc() {
+        return equalsProc;
+    }
+
+    public Procedure getHashProc() {
+        return hashProc;
     }
 
-    private class Key extends WeakReference implements HashtableKey {
+    /**
+     * An entry of the table, a weak reference to its key.
+     */
+    protected class Entry extends WeakReference {
 
-        private int hash;
+        final int hash;
+        private Value value;
 
-        public Key(Value key) {
+        protected Entry(Value key, int hash) {
             super(key, garbage);
-            //we need to memoize the hash code so that it remains
-            //available even after the key has become garbage
-            hash = callHashCode(key);
+            this.hash = hash;
         }
 
-        public Value getValue() {
+        protected Value getKey() {
             return (Value)get();
         }
 
-        public boolean equals(Object o) {
-            //This first test is important: we need it in order to be
-            //able to remove keys that have become garbage.
-            if (o == this) return true;
+        protected Value getValue() {
+            return value;
+        }
 
-            if (!(o instanceof Key)) return false;
+        /**
+         * Sets the value of the entry.  <tt>key</tt> is the key of
+         * the entry, which the caller keeps alive.
+         */
+        protected void setValue(Value key, Value v) {
+            value = v;
+        }
 
-            Value myVal = getValue();
-            Value otherVal = ((Key)o).getValue();
-            //A garbage key can never be equal to another garbage key
-            return (myVal != null) && (otherVal != null) &&
-                callEquals(myVal, otherVal);
+        /**
+         * Called when the entry is removed from the table.
+         */
+        protected void discard() {
+            clear();
         }
+    }
+
+    protected Entry makeEntry(Value key, int hash) {
+        return new Entry(key, hash);
+    }
+
+    private void init(int capacity) {
+        table = new Entry[capacity];
+        shift = 32 - Integer.numberOfTrailingZeros(capacity);
+    }
 
-        public int hashCode() {
-            return hash;
+    private void resolve() {
+        if (kind == UNRESOLVED) {
+            kind = OpenHashtable.kindOf(equalsProc, hashProc);
+            if (alist != null) {
+                Pair p = alist;
+                alist = null;
+                addAList(p);
+            }
         }
+    }
 
+    private int slot(int h) {
+        return (h * 0x9E3779B9) >>> shift;
     }
 
-    protected HashtableKey makeKey(Value k) {
-        return new Key(k);
+    /**
+     * Returns the index of the entry for <tt>k</tt>, or the bitwise
+     * complement of the free slot where it would go.
+     */
+    private int find(Value k, int h) {
+        int mask = table.length - 1;
+        for (int i = slot(h);; i = (i + 1) & mask) {
+            Entry e = table[i];
+            if (e == null) return ~i;
+            if (e.hash == h) {
+                Value stored = (Value)e.get();
+                //a collected key can never be equal to another key
+                if (stored != null &&
+                    (stored == k ||
+                     OpenHashtable.same(kind, equalsProc, k, stored)))
+                    return i;
+            }
+        }
+    }
+
+    /**
+     * Removes the entry at <tt>i</tt>, moving back entries whose probe
+     * sequence passes through it.
+     */
+    private void delete(int i) {
+        int mask = table.length - 1;
+        table[i].discard();
+        for (int j = (i + 1) & mask; table[j] != null; j = (j + 1) & mask) {
+            int home = slot(table[j].hash);
+            if (i <= j ? (home <= i || home > j) : (home <= i && home > j)) {
+                table[i] = table[j];
+                i = j;
+            }
+        }
+        table[i] = null;
+        size--;
     }
 
-    protected Map getMap() {
-        Map ht = super.getMap();
-        Object r;
-        while ((r = garbage.poll()) != null) {
-            ht.remove(r);
+    /**
+     * Removes the entries of up to <tt>max</tt> collected keys.
+     */
+    private void reclaim(int max) {
+        Entry e;
+        for (int n = 0; n < max && (e = (Entry)garbage.poll()) != null; n++) {
+            int mask = table.length - 1;
+            for (int i = slot(e.hash); table[i] != null; i = (i + 1) & mask) {
+                if (table[i] == e) {
+                    delete(i);
+                    break;
+                }
+            }
         }
+    }
+
+    private void reclaimAll() {
+        reclaim(Integer.MAX_VALUE);
+    }
 
-        return ht;
+    public Value get(Value k) {
+        resolve();
+        int i = find(k, OpenHashtable.hash(kind, hashProc, k));
+        return (i < 0) ? null : table[i].getValue();
+    }
+
+    public Value put(Value k, Value v) {
+        resolve();
+        reclaim(RECLAIM);
+        int h = OpenHashtable.hash(kind, hashProc, k);
+        int i = find(k, h);
+        if (i >= 0) {
+            Entry e = table[i];
+            Value stored = e.getKey();
+            if (stored != null) {
+                Value res = e.getValue();
+                e.setValue(stored, v);
+                return res;
+            }
+            //the key was collected after it was found
+            delete(i);
+            i = find(k, h);
+        }
+        //keep the load factor at most 2/3
+        if ((size + 1) * 3 > table.length * 2) {
+            grow();
+            i = find(k, h);
+        }
+        Entry e = makeEntry(k, h);
+        e.setValue(k, v);
+        table[~i] = e;
+        size++;
+        return null;
+    }
+
+    private void grow() {
+        reclaimAll();
+        Entry[] old = table;
+        //only grow if the table is still more than a third full once
+        //the entries of collected keys are gone
+        init((size + 1) * 3 > old.length ? old.length * 2 : old.length);
+        int mask = table.length - 1;
+        for (int j = 0; j < old.length; j++) {
+            if (old[j] == null) continue;
+            int i = slot(old[j].hash);
+            while (table[i] != null) i = (i + 1) & mask;
+            table[i] = old[j];
+        }
+    }
+
+    public Value remove(Value k) {
+        resolve();
+        int i = find(k, OpenHashtable.hash(kind, hashProc, k));
+        if (i < 0) return null;
+        Value res = table[i].getValue();
+        delete(i);
+        return res;
+    }
+
+    public int size() {
+        resolve();
+        reclaimAll();
+        return size;
+    }
+
+    public void clear() {
+        resolve();
+        for (int i = 0; i < table.length; i++) {
+            if (table[i] != null) table[i].discard();
+        }
+        init(MIN_CAPACITY);
+        size = 0;
+        while (garbage.poll() != null);
+    }
+
+    public void addAList(Pair p) {
+        for (; p != EMPTYLIST; p = pair(p.cdr())) {
+            Pair entry = pair(p.car());
+            put(entry.car(), entry.cdr());
+        }
+    }
+
+    public Pair toAList() {
+        resolve();
+        reclaimAll();
+        Pair res = EMPTYLIST;
+        for (int i = 0; i < table.length; i++) {
+            if (table[i] == null) continue;
+            Value key = table[i].getKey();
+            Value val = table[i].getValue();
+            if (key != null) {
+                res = new Pair(new Pair(key, val), res);
+            }
+        }
+        return res;
+    }
+
+    public Pair keys() {
+        resolve();
+        reclaimAll();
+        Pair res = EMPTYLIST;
+        for (int i = 0; i < table.length; i++) {
+            if (table[i] == null) continue;
+            Value key = table[i].getKey();
+            if (key != null) {
+                res = new Pair(key, res);
+            }
+        }
+        return res;
     }
 
     public boolean valueEqual(Value v) {
-        if (!(v instanceof WeakHashtable)) return false;
-        return super.valueEqual(v);
+        if (v==this) return true;
+        if (v == null || v.getClass() != getClass()) return false;
+        WeakHashtable o = (WeakHashtable)v;
+        if (size() != o.size()) return false;
+        if (!equalsProc.valueEqual(o.equalsProc) ||
+            !hashProc.valueEqual(o.hashProc)) return false;
+        for (int i = 0; i < table.length; i++) {
+            if (table[i] == null) continue;
+            Value key = table[i].getKey();
+            Value val = table[i].getValue();
+            if (key == null || !val.valueEqual(o.get(key)))
+                return false;
+        }
+        return true;
+    }
+
+    public int valueHashCode() {
+        resolve();
+        int res = equalsProc.valueHashCode() ^ hashProc.valueHashCode();
+        for (int i = 0; i < table.length; i++) {
+            if (table[i] == null) continue;
+            Value key = table[i].getKey();
+            Value val = table[i].getValue();
+            if (key != null) {
+                res += key.valueHashCode() ^ val.valueHashCode();
+            }
+        }
+        return res;
+    }
+
+    public void serialize(Serializer s) throws IOException {
+        s.writeExpression(equalsProc);
+        s.writeExpression(hashProc);
+        s.writeExpression(toAList());
     }
-}
 
+    public void deserialize(Deserializer s) throws IOException {
+        equalsProc = (Procedure)s.readExpression();
+        hashProc   = (Procedure)s.readExpression();
+        alist      = (Pair)s.readExpression();
+        kind       = UNRESOLVED;
+    }
+
+    public boolean visit(ExpressionVisitor v) {
+        if (!v.visit(equalsProc) || !v.visit(hashProc)) return false;
+        resolve();
+        for (int i = 0; i < table.length; i++) {
+            if (table[i] == null) continue;
+            Value key = table[i].getKey();
+            Value val = table[i].getValue();
+            if (key != null) {
+                if (!v.visit(key)) return false;
+                if (!v.visit(val)) return false;
+            }
+        }
+        return true;
+    }
+
+    public void display(ValueWriter w) throws IOException {
+        resolve();
+        w.append("#<")
+            .append(Util.liMessage(Primitives.SHASHB, "hashtable"))
+            .append(' ')
+            .append(equalsProc)
+            .append(' ')
+            .append(hashProc)
+            .append(" (");
+        for (int i = 0; i < table.length; i++) {
+            if (table[i] == null) continue;
+            Value key = table[i].getKey();
+            Value val = table[i].getValue();
+            if (key != null) {
+                w.append('(')
+                    .append(key).append(" . ").append(val)
+                    .append(')');
+            }
+        }
+        w.append(")>");
+    }
+}
 /*
  * The contents of this file are subject to the Mozilla Public
  * License Version 1.1 (the "License"); you may not use this file
@@ -91,7 +391,6 @@ public class WeakHashtable extends Hashtable {
  * Scott G. Miller.  All Rights Reserved.
  * 
  * Contributor(s):
- * Matthias Radestock 
  * 
  * Alternatively, the contents of this file may be used under the
  * terms of the GNU General Public License Version 2 or later (the
@@ -7,6 +7,8 @@
                        (,string-ci=? . ,hash-by-string-ci=)))
 
 ;;(make-hashtable [eq-proc [hash-proc]] [safe? [weak?]])
+;;weak? may also be the symbol ephemeron, so that values referencing
+;;their keys do not keep them alive.
 (define (make-hashtable . rest)
   (define (process-opt-args)
     (let ([eq-proc equal?]
@@ -40,6 +42,15 @@
       (values eq-proc hash-proc safe? weak?)))
   (call-with-values process-opt-args hashtable/make))
 
+;;(hashtable/make-concurrent [eq-proc [hash-proc]])
+(define (hashtable/make-concurrent . rest)
+  (let* ([eq-proc (if (null? rest) equal? (car rest))]
+         [hash-proc (cond [(and (pair? rest) (pair? (cdr rest)))
+                           (cadr rest)]
+                          [(assq eq-proc *HASH-PROCS*) => cdr]
+                          [else hash-by-equal])])
+    (_hashtable/make-concurrent eq-proc hash-proc)))
+
 (define (alist->hashtable alist . rest)
   (hashtable/add-alist! (apply make-hashtable rest) alist))
 
@@ -52,13 +63,48 @@
             (hashtable/put! ht key res)
             res)
           res)))
-  (if (hashtable/thread-safe? ht)
-      ((if (or (null? rest) (car rest))
-           synchronized
-           synchronized-unsafe)
-       ht
-       helper)
-      (helper)))
+  (cond [(hashtable/concurrent? ht)
+         ;;the thunk may run more than once, but only one result
+         ;;is ever added
+         (let ([res (hashtable/get ht key *VOID-MARKER*)])
+           (if (eq? res *VOID-MARKER*)
+               (let* ([new (thunk)]
+                      [res (_hashtable/put-if-absent! ht key new
+                                                      *VOID-MARKER*)])
+                 (if (eq? res *VOID-MARKER*) new res))
+               res))]
+        [(hashtable/thread-safe? ht)
+         ((if (or (null? rest) (car rest))
+              synchronized
+              synchronized-unsafe)
+          ht
+          helper)]
+        [else (helper)]))
+
+;;(hashtable/update! ht key proc [default])
+;;Replaces the value of key by the result of applying proc to it, or
+;;to default (#f if omitted) if there is none, and returns the result.
+(define (hashtable/update! ht key proc . rest)
+  (define default (if (null? rest) #f (car rest)))
+  (define (helper)
+    (let ([res (proc (hashtable/get ht key default))])
+      (hashtable/put! ht key res)
+      res))
+  (cond [(hashtable/concurrent? ht)
+         ;;proc is retried if another thread changed the value
+         ;;meanwhile
+         (let loop ()
+           (let* ([old (hashtable/get ht key *VOID-MARKER*)]
+                  [new (proc (if (eq? old *VOID-MARKER*) default old))])
+             (if (if (eq? old *VOID-MARKER*)
+                     (eq? (_hashtable/put-if-absent! ht key new
+                                                     *VOID-MARKER*)
+                          *VOID-MARKER*)
+                     (_hashtable/replace! ht key old new))
+                 new
+                 (loop))))]
+        [(hashtable/thread-safe? ht) (synchronized ht helper)]
+        [else (helper)]))
 
 (define (hashtable/contains? ht key)
   (not (eq? (hashtable/get ht key *VOID-MARKER*) *VOID-MARKER*)))
@@ -0,0 +1,290 @@
+package sisc.modules.io;
+
+import java.io.*;
+import java.net.URL;
+import java.net.URLConnection;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+
+import sisc.data.*;
+import sisc.interpreter.*;
+import sisc.io.DeserializerStream;
+import sisc.io.SerializerStream;
+import sisc.reader.SourceReader;
+import sisc.util.Util;
+
+/**
+ * An on-disk cache of compiled code for {@link IO#load}.
+ * <p>
+ * When the <tt>sisc.compiledCache</tt> property of the AppContext
+ * names a directory, source files loaded into the top-level
+ * environment are compiled one expression at a time, as
+ * <tt>compile-file</tt> does, and the compiled expressions are then
+ * serialized to a file in that directory.  The file is named by a
+ * digest of the source text and of the heap, so loading an
+ * unchanged file into the same heap again skips expansion and
+ * compilation and merely runs the stored code.
+ * <p>
+ * The expansion of a file may depend on macros defined by files
+ * loaded before it, which the digest does not capture.  The cache
+ * directory should be cleared when such macros change.
+ */
+public class CompiledCache extends Util {
+
+    private static final Symbol COMPILE = Symbol.get("compile");
+
+    private static long hits, misses;
+
+    private File dir;
+    private Procedure compiler;
+    private List compiled;
+
+    private CompiledCache(File dir, Procedure compiler) {
+        this.dir=dir;
+        this.compiler=compiler;
+    }
+
+    /**
+     * Returns a cache for loading files with the given Interpreter,
+     * or null if none is configured or code is not being loaded into
+     * the top-level environment.
+     */
+    static CompiledCache forInterpreter(Interpreter f) {
+        AppContext ctx=f.getCtx();
+        String dir=ctx.getProperty("sisc.compiledCache");
+        if (dir == null || f.tpl != ctx.toplevel_env) return null;
+        Value c=ctx.toplevel_env.lookup(COMPILE);
+        if (!(c instanceof Procedure)) return null;
+        return new CompiledCache(new File(dir), (Procedure)c);
+    }
+
+    /**
+     * The number of loads which ran code from the cache.
+     */
+    public static synchronized long getHits() {
+        return hits;
+    }
+
+    /**
+     * The number of loads which had to compile from source.
+     */
+    public static synchronized long getMisses() {
+        return misses;
+    }
+
+    private static synchronized void hit() {
+        hits++;
+    }
+
+    private static synchronized void miss() {
+        misses++;
+    }
+
+    void load(Interpreter f, URL u) throws ContinuationException {
+        AppContext ctx=f.getCtx();
+        byte[] key=null;
+        SourceReader sr=null;
+        try {
+            URLConnection conn = u.openConnection();
+            conn.setDoInput(true);
+            conn.setDoOutput(false);
+            String charset=charsetFromString(conn.getContentEncoding())
+                .getCharsetName();
+            byte[] src=readFully(conn.getInputStream());
+            sr=new SourceReader(new InputStreamReader
+                                (new ByteArrayInputStream(src), charset),
+                                u.toString());
+            key=digest(ctx, src, charset);
+        } catch (IOException e) {
+            IO.throwIOException(f, liMessage(IO.IOB, "erroropening",
+                                             u.toString()),
+                                e);
+        }
+
+        File file=(key == null ? null : new File(dir, hex(key)+".scc"));
+        if (file != null && file.exists()) {
+            List entries=read(ctx, file);
+            if (entries != null) {
+                hit();
+                run(f, u, entries);
+                return;
+            }
+        }
+        miss();
+        if (file == null) {
+            IO.load(f, sr, false, null);
+        } else {
+            compiled=new ArrayList();
+            IO.load(f, sr, false, this);
+            write(ctx, file);
+        }
+    }
+
+    /**
+     * Compiles an expression in the top-level environment, recording
+     * the result.  As with <tt>compile-file</tt>, the expression is
+     * expanded for loading, so that compile-time effects such as
+     * macro definitions and imports happen when the compiled code is
+     * run rather than during expansion, and are thus repeated when
+     * the code is run from the cache.
+     */
+    Procedure compile(Interpreter r, Value v, int line, int column)
+        throws SchemeException {
+
+        Procedure thunk=(Procedure)r.eval(compiler, new Value[] {v});
+        compiled.add(new Value[] {
+            Quantity.valueOf(line), Quantity.valueOf(column), thunk});
+        return thunk;
+    }
+
+    private static void run(Interpreter f, URL u, List entries)
+        throws ContinuationException {
+
+        Interpreter r = Context.enter(f.dynenv);
+        try {
+            for (Iterator i=entries.iterator(); i.hasNext();) {
+                Value[] e=(Value[])i.next();
+                try {
+                    r.eval((Procedure)e[2], ZV);
+                } catch (SchemeException se) {
+                    Procedure.throwNestedPrimException(
+                        liMessage(IO.IOB, "evalat", u.toString(),
+                                  ((Quantity)e[0]).intValue(),
+                                  ((Quantity)e[1]).intValue()),
+                        se);
+                }
+            }
+        } finally {
+            Context.exit();
+        }
+    }
+
+    private static List read(AppContext ctx, File file) {
+        try {
+            InputStream in=new BufferedInputStream(new FileInputStream(file));
+            try {
+                DeserializerStream ds=new DeserializerStream(ctx, in);
+                List rv=new ArrayList();
+                do {
+                    Value line;
+                    try {
+                        line=ds.readSer();
+                    } catch (EOFException e) {
+                        return rv;
+                    }
+                    rv.add(new Value[] {line, ds.readSer(), ds.readSer()});
+                } while (true);
+            } finally {
+                in.close();
+            }
+        } catch (IOException e) {
+        } catch (RuntimeException e) {}
+        //an unreadable entry is simply recompiled and overwritten
+        return null;
+    }
+
+    private void write(AppContext ctx, File file) {
+        File tmp=null;
+        try {
+            //write to a temporary file first, so that concurrent
+            //loads never see a partially written entry
+            dir.mkdirs();
+            tmp=File.createTempFile("scc", null, dir);
+            SerializerStream ss=new SerializerStream
+                (ctx, new BufferedOutputStream(new FileOutputStream(tmp)));
+            try {
+                for (Iterator i=compiled.iterator(); i.hasNext();) {
+                    Value[] e=(Value[])i.next();
+                    for (int j=0; j<e.length; j++) {
+                        ss.writeSer(e[j]);
+                    }
+                }
+            } finally {
+                ss.close();
+            }
+            //renaming onto an existing file fails on some platforms
+            file.delete();
+            if (tmp.renameTo(file)) tmp=null;
+        } catch (IOException e) {
+            //caching is only an optimization
+        } finally {
+            if (tmp != null) tmp.delete();
+        }
+    }
+
+    private static byte[] readFully(InputStream in) throws IOException {
+        try {
+            ByteArrayOutputStream out=new ByteArrayOutputStream();
+            byte[] buffer=new byte[8192];
+            int rc;
+            while ((rc=in.read(buffer)) != -1) {
+                out.write(buffer, 0, rc);
+            }
+            return out.toByteArray();
+        } finally {
+            in.close();
+        }
+    }
+
+    /**
+     * Digests the source together with everything else the compiled
+     * code depends on: the SISC version and the heap it refers into.
+     */
+    private static byte[] digest(AppContext ctx, byte[] src, String charset)
+        throws IOException {
+        try {
+            MessageDigest md=MessageDigest.getInstance("SHA-1");
+            md.update(VERSION.getBytes());
+            md.update(charset.getBytes());
+            md.update(ctx.getHeapDigest());
+            md.update(src);
+            return md.digest();
+        } catch (NoSuchAlgorithmException e) {
+            return null;
+        }
+    }
+
+    private static String hex(byte[] b) {
+        StringBuffer rv=new StringBuffer(b.length*2);
+        for (int i=0; i<b.length; i++) {
+            rv.append(Character.forDigit((b[i] >> 4) & 15, 16))
+                .append(Character.forDigit(b[i] & 15, 16));
+        }
+        return rv.toString();
+    }
+}
+
+/*
+ * The contents of this file are subject to the Mozilla Public
+ * License Version 1.1 (the "License"); you may not use this file
+ * except in compliance with the License. You may obtain a copy of
+ * the License at http://www.mozilla.org/MPL/
+ * 
+ * Software distributed under the License is distributed on an "AS
+ * IS" basis, WITHOUT WARRANTY OF ANY KIND, either express or
+ * implied. See the License for the specific language governing
+ * rights and limitations under the License.
+ * 
+ * The Original Code is the Second Interpreter of Scheme Code (SISC).
+ * 
+ * The Initial Developer of the Original Code is Scott G. Miller.
+ * Portions created by Scott G. Miller are Copyright (C) 2000-2007
+ * Scott G. Miller.  All Rights Reserved.
+ * 
+ * Contributor(s):
+ * 
+ * Alternatively, the contents of this file may be used under the
+ * terms of the GNU General Public License Version 2 or later (the
+ * "GPL"), in which case the provisions of the GPL are applicable 
+ * instead of those above.  If you wish to allow use of your 
+ * version of this file only under the terms of the GPL and not to
+ * allow others to use your version of this file under the MPL,
+ * indicate your decision by deleting the provisions above and
+ * replace them with the notice and other provisions required by
+ * the GPL.  If you do not delete the provisions above, a recipient
+ * may use your version of this file under either the MPL or the
+ * GPL.
+ */
@@ -7,6 +7,7 @@ import sisc.interpreter.*;
 import sisc.nativefun.*;
 import sisc.data.*;
 import sisc.io.*;
+import sisc.reader.BufferedPushbackReader;
 import sisc.reader.SourceReader;
 import sisc.util.Util;
 import sisc.exprs.AnnotatedExpr;
@@ -302,8 +303,8 @@ public class IO extends IndexedProcedure {
         throws ContinuationException {    
         try {
             return new SchemeCharacterInputPort(
-                    new SourceReader(new BufferedReader(encoding.newInputStreamReader(getURLInputStream(u))),
-                                       u.toString()));
+                    new SourceReader(encoding.newInputStreamReader(getURLInputStream(u)),
+                                     u.toString()));
         } catch (IOException e) {
             throwIOException(f, liMessage(IOB, "erroropening", 
                                           u.toString()), e);
@@ -352,7 +353,14 @@ public class IO extends IndexedProcedure {
     public static void load(Interpreter f, URL u, boolean expanded)
         throws ContinuationException {
 
-        SchemeCharacterInputPort p = null;
+        if (!expanded) {
+            CompiledCache cache=CompiledCache.forInterpreter(f);
+            if (cache != null) {
+                cache.load(f, u);
+                return;
+            }
+        }
+
         SourceReader sr = null;
         try {
             URLConnection conn = u.openConnection();
@@ -363,13 +371,24 @@ public class IO extends IndexedProcedure {
             sr=new SourceReader(new InputStreamReader(conn.getInputStream(),
                     Util.charsetFromString
                     (conn.getContentEncoding()).getCharsetName()), u.toString());
-            p = new SchemeCharacterInputPort(sr);
         } catch (IOException e) {
             throwIOException(f, liMessage(IOB, "erroropening",
                                           u.toString()),
                              e);
         }
+        load(f, sr, expanded, null);
+    }
+
+    /**
+     * Reads and evaluates all the code from a source.  If a cache is
+     * given, each expression is compiled by it, so that it can record
+     * the compiled code, and then run.
+     */
+    static void load(Interpreter f, SourceReader sr, boolean expanded,
+                     CompiledCache cache)
+        throws ContinuationException {
 
+        SchemeCharacterInputPort p = new SchemeCharacterInputPort(sr);
         Interpreter r = Context.enter(f.dynenv);
 
         try {
@@ -383,6 +402,9 @@ public class IO extends IndexedProcedure {
                     try {
                         if (expanded) {
                             r.interpret(r.compile(v));
+                        } else if (cache != null) {
+                            r.eval(cache.compile(r, v, startLine,
+                                                 startColumn), ZV);
                         } else {
                             r.eval(v, f.tpl);
                         }
@@ -470,8 +492,8 @@ public class IO extends IndexedProcedure {
                 System.err.println(warn("autoflushdeprecated"));
                 return new SchemeCharacterOutputPort(new AutoflushWriter(charoutwriter(f.vlr[0])));
             case OPENCHARINPUTPORT:
-            	return new SchemeCharacterInputPort(new PushbackReader(new BufferedReader(
-            			f.dynenv.getCharacterSet().newInputStreamReader(bininstream(f.vlr[0])))));
+            	return new SchemeCharacterInputPort(new BufferedPushbackReader(
+            			f.dynenv.getCharacterSet().newInputStreamReader(bininstream(f.vlr[0]))));
             case OPENCHAROUTPUTPORT:
                 return new SchemeCharacterOutputPort(new BufferedWriter(
                         f.dynenv.getCharacterSet().newOutputStreamWriter(binoutstream(f.vlr[0]))));
@@ -619,8 +641,8 @@ public class IO extends IndexedProcedure {
                 return displayOrWrite(f, charoutport(f.vlr[1]), f.vlr[0], false);
             case OPENCHARINPUTPORT:
                 try {
-                    return new SchemeCharacterInputPort(new PushbackReader(new BufferedReader(
-                            Charset.forName(string(f.vlr[1])).newInputStreamReader(bininstream(f.vlr[0])))));
+                    return new SchemeCharacterInputPort(new BufferedPushbackReader(
+                            Charset.forName(string(f.vlr[1])).newInputStreamReader(bininstream(f.vlr[0]))));
                 } catch (UnsupportedEncodingException use) {
                     throwIOException(f, liMessage(IOB, "unsupencoding", string(f.vlr[1])), 
                             new IOException(use.getMessage())); 
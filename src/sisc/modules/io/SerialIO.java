@@ -19,7 +19,7 @@ public class SerialIO extends IndexedProcedure {
     protected static final int
         DESERIALIZE=1, SERIALIZE=2,
         OPENSERIALINPUTFILE = 3, OPENSERIALOUTPUTFILE= 4,
-        SERIALINPORTQ=5, SERIALOUTPORTQ=6;
+        SERIALINPORTQ=5, SERIALOUTPORTQ=6, SAVEHEAP=7;
 
     public static class Index extends IndexedLibraryAdapter {
         
@@ -34,6 +34,7 @@ public class SerialIO extends IndexedProcedure {
             define("open-serial-output-port", OPENSERIALOUTPUTFILE);
             define("serial-input-port?", SERIALINPORTQ);
             define("serial-output-port?", SERIALOUTPORTQ);
+            define("save-heap", SAVEHEAP);
         }   
     }
     
@@ -107,6 +108,20 @@ public class SerialIO extends IndexedProcedure {
         return VOID;
     }
 
+    public static Value saveHeap(Interpreter r, SchemeBinaryOutputPort p)
+        throws ContinuationException {
+        try {
+            OutputStream out=p.getOutputStream();
+            r.getCtx().saveSnapshot(out);
+            out.flush();
+        } catch (IOException e) {
+            IO.throwIOException(r, liMessage(IO.IOB, "errorwriting",
+                                             p.toString(),
+                                             Util.javaExceptionToString(e)), e);
+        }
+        return VOID;
+    }
+
     public SerialIO(int id) {
         super(id);
     }
@@ -130,6 +145,8 @@ public class SerialIO extends IndexedProcedure {
                                       false);
             case DESERIALIZE:
                 return readSer(f, sinport(f.vlr[0]));
+            case SAVEHEAP:
+                return saveHeap(f, binoutport(f.vlr[0]));
             default:
                 throwArgSizeException();
             }
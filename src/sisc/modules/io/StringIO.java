@@ -4,6 +4,7 @@ import java.io.*;
 
 import sisc.interpreter.*;
 import sisc.nativefun.*;
+import sisc.reader.BufferedPushbackReader;
 import sisc.reader.SourceReader;
 import sisc.data.*;
 import sisc.io.*;
@@ -80,9 +81,11 @@ public class StringIO extends IndexedFixableProcedure {
             sw.getBuffer().setLength(0);
             return s;
         case OPENINPUTSTRING:
-            return new SchemeCharacterInputPort(new PushbackReader(new StringReader(string(v1))));
+            String str=string(v1);
+            return new SchemeCharacterInputPort(new BufferedPushbackReader(new StringReader(str), str.length()));
         case OPENSOURCEINPUTSTRING:
-            return new SchemeCharacterInputPort(new SourceReader(new StringReader(string(v1)), "<string>"));
+            str=string(v1);
+            return new SchemeCharacterInputPort(new SourceReader(new StringReader(str), "<string>", str.length()));
         default:
             throwArgSizeException();
         }
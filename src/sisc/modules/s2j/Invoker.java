@@ -0,0 +1,90 @@
+package sisc.modules.s2j;
+
+import java.lang.reflect.AccessibleObject;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Member;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+
+import sisc.data.Value;
+
+/**
+ * What the invocation of a method or constructor needs to know, worked
+ * out once for the {@link JavaObject} wrapping it rather than on every
+ * call.
+ * <p>
+ * Public members of public classes, which every caller may access
+ * anyway, are made accessible, so that invoking them skips the access
+ * check.  How results are wrapped is decided up front from their
+ * declared type.
+ * </p>
+ */
+class Invoker {
+
+    private final Class resultType;
+    private final boolean primitive;
+
+    Invoker(Method m) {
+        this(m, m.getReturnType());
+    }
+
+    Invoker(Constructor c) {
+        this(c, c.getDeclaringClass());
+    }
+
+    private Invoker(AccessibleObject o, Class resultType) {
+        Member m = (Member)o;
+        if (Modifier.isPublic(m.getModifiers()) &&
+            Modifier.isPublic(m.getDeclaringClass().getModifiers())) {
+            try {
+                o.setAccessible(true);
+            } catch (RuntimeException e) {
+                //e.g. a SecurityException; calls are then checked
+            }
+        }
+        this.resultType = resultType;
+        this.primitive = (Util.fixClass(resultType) != resultType);
+    }
+
+    /**
+     * Wraps a result as {@link Util#makeJObj(Object, Class)} does for
+     * the declared result type.
+     */
+    Value result(Object o) {
+        if (o == null) return new JavaNull(resultType);
+        return primitive ?
+            (Value)new JavaPrimitive(resultType, o) :
+            new JavaObject(o);
+    }
+}
+/*
+ * The contents of this file are subject to the Mozilla Public
+ * License Version 1.1 (the "License"); you may not use this file
+ * except in compliance with the License. You may obtain a copy of
+ * the License at http://www.mozilla.org/MPL/
+ * 
+ * Software distributed under the License is distributed on an "AS
+ * IS" basis, WITHOUT WARRANTY OF ANY KIND, either express or
+ * implied. See the License for the specific language governing
+ * rights and limitations under the License.
+ * 
+ * The Original Code is the Second Interpreter of Scheme Code (SISC).
+ * 
+ * The Initial Developer of the Original Code is Scott G. Miller.
+ * Portions created by Scott G. Miller are Copyright (C) 2000-2007
+ * Scott G. Miller.  All Rights Reserved.
+ * 
+ * Contributor(s):
+ * 
+ * Alternatively, the contents of this file may be used under the
+ * terms of the GNU General Public License Version 2 or later (the
+ * "GPL"), in which case the provisions of the GPL are applicable 
+ * instead of those above.  If you wish to allow use of your 
+ * version of this file only under the terms of the GPL and not to
+ * allow others to use your version of this file under the MPL,
+ * indicate your decision by deleting the provisions above and
+ * replace them with the notice and other provisions required by
+ * the GPL.  If you do not delete the provisions above, a recipient
+ * may use your version of this file under either the MPL or the
+ * GPL.
+ */
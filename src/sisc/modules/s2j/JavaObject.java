@@ -28,6 +28,10 @@ public class JavaObject extends Value {
 
     protected byte objType = JUNKN;
 
+    //made on demand for methods and constructors; since its fields
+    //are final, threads racing to make it can only duplicate work
+    private transient Invoker invoker;
+
     public byte getObjType() {
         //we do not need to make this synchronized since we are only
         //accessing a byte
@@ -149,6 +153,20 @@ public class JavaObject extends Value {
         return obj;
     }
 
+    /**
+     * Returns the invoker of the wrapped method or constructor.
+     */
+    Invoker getInvoker() {
+        Invoker res = invoker;
+        if (res == null) {
+            res = (obj instanceof Method) ?
+                new Invoker((Method)obj) :
+                new Invoker((Constructor)obj);
+            invoker = res;
+        }
+        return res;
+    }
+
     public Class classOf() {
         return obj.getClass();
     }
@@ -95,8 +95,8 @@ public class Operation extends IndexedProcedure {
             case JAVA_INVOKE_CONSTRUCTOR:
                 Constructor jc = Util.jconstr(f.vlr[0]);
                 try {
-                    return Util.makeJObj(invokeConstructor(jc, Util.pairToObjects(pair(f.vlr[1]))),
-                                         jc.getDeclaringClass());
+                    return ((JavaObject)f.vlr[0]).getInvoker()
+                        .result(invokeConstructor(jc, Util.pairToObjects(pair(f.vlr[1]))));
                 } catch (InvocationTargetException e) {
                     processTargetException(f, e.getTargetException());
                 }
@@ -107,8 +107,8 @@ public class Operation extends IndexedProcedure {
             case JAVA_INVOKE_METHOD:
                 Method jm = Util.jmethod(f.vlr[0]);
                 try {
-                    return Util.makeJObj(invokeMethod(jm, Util.jobj(f.vlr[1]), Util.pairToObjects(pair(f.vlr[2]))),
-                                         jm.getReturnType());
+                    return ((JavaObject)f.vlr[0]).getInvoker()
+                        .result(invokeMethod(jm, Util.jobj(f.vlr[1]), Util.pairToObjects(pair(f.vlr[2]))));
                 } catch (InvocationTargetException e) {
                     processTargetException(f, e.getTargetException());
                 }
@@ -140,9 +140,10 @@ public abstract class Util extends IndexedFixableProcedure {
     }
 
     public static final Object[] pairToObjects(Pair p) {
-        Vector v = pairToObjVect(p);
-        Object[] vs = new Object[v.size()];
-        v.copyInto(vs);
+        Object[] vs = new Object[length(p)];
+        for (int i=0; i < vs.length; i++, p=(Pair)p.cdr()) {
+            vs[i] = jobj(p.car());
+        }
         return vs;
     }
     
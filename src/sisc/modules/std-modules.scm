@@ -164,7 +164,11 @@
    mutex/synchronize-unsafe
    synchronized
    synchronized-unsafe
-   parallel)
+   parallel
+   parallel-map
+   parallel-for-each
+   parallel-reduce
+   parallel-reader)
   (import threading-native)
   (include "thread.scm"))
 
@@ -251,7 +255,11 @@
    mutex/synchronize-unsafe
    synchronized
    synchronized-unsafe
-   parallel)
+   parallel
+   parallel-map
+   parallel-for-each
+   parallel-reduce
+   parallel-reader)
   (import type-system)
   (import threading-pretypes)
   (include "thread-types.scm"))
@@ -327,14 +335,17 @@
 
 (module hashtable
     (make-hashtable
+     hashtable/make-concurrent
      hashtable?
      hashtable/thread-safe?
+     hashtable/concurrent?
      hashtable/weak?
      hashtable/equivalence-function
      hashtable/hash-function
      hashtable/put!
      hashtable/get
      hashtable/get!
+     hashtable/update!
      hashtable/remove!
      hashtable/clear!
      hashtable/size
@@ -683,14 +694,16 @@
    with-serial-input-from-file
    with-serial-output-to-file
    serial-input-port?
-   serial-output-port?)
+   serial-output-port?
+   save-heap)
   (import* serial-io-native
            (_serialize serialize)
            (_deserialize deserialize)
            open-serial-input-port 
            open-serial-output-port
            serial-input-port?
-           serial-output-port?)
+           serial-output-port?
+           save-heap)
   (import oo)
   (import* binary-io call-with-binary-input-file call-with-binary-output-file)
   (import* type-system instance-of?)
@@ -847,7 +860,8 @@
      stack-trace
      print-stack-trace
      suppressed-stack-trace-source-kinds
-     unresolved-references)
+     unresolved-references
+     frame-pool-stats)
   (import debugging-native)
   (import pretty-printing)
   (import hashtable)
@@ -0,0 +1,267 @@
+package sisc.reader;
+
+import java.io.IOException;
+import java.io.PushbackReader;
+import java.io.Reader;
+
+/**
+ * A PushbackReader which reads its input in blocks into a window
+ * that the {@link Lexer} can scan directly.  Characters which are
+ * unread go back into the window, so the window doubles as the
+ * pushback buffer.  Used through the ordinary Reader methods it
+ * behaves like a PushbackReader over a BufferedReader.
+ */
+public class BufferedPushbackReader extends PushbackReader {
+
+    public static final int DEFAULT_BUFFER_SIZE=8192;
+
+    /**
+     * Number of already read characters kept in front of the
+     * window when it is refilled, so they can be unread.
+     */
+    protected static final int PUSHBACK=16;
+
+    protected char[] buf;
+    protected int pos, limit;
+    private boolean eof;
+
+    public BufferedPushbackReader(Reader in) {
+        this(in, DEFAULT_BUFFER_SIZE);
+    }
+
+    public BufferedPushbackReader(Reader in, int size) {
+        super(in, 1);
+        //the Lexer synchronizes on the reader itself for each token
+        lock=this;
+        buf=new char[Math.max(size, 2*PUSHBACK)];
+    }
+
+    /**
+     * Called with the characters consumed by the scanning methods,
+     * which bypass {@link #read()}.
+     */
+    protected void consumed(char[] b, int from, int to) {}
+
+    /**
+     * Makes more input available after the window, keeping the
+     * characters from <tt>start</tt> onwards and up to PUSHBACK
+     * characters before it, and growing the window if it is full.
+     * The window may move, so callers must recompute their indices
+     * from <tt>pos</tt>.
+     *
+     * @return false at end of input
+     */
+    protected boolean fill(int start) throws IOException {
+        if (eof) return false;
+        int from=start-Math.min(start, PUSHBACK);
+        if (from > 0) {
+            System.arraycopy(buf, from, buf, 0, limit-from);
+            pos-=from;
+            limit-=from;
+        }
+        if (limit == buf.length) {
+            char[] nbuf=new char[buf.length*2];
+            System.arraycopy(buf, 0, nbuf, 0, limit);
+            buf=nbuf;
+        }
+        int rc=in.read(buf, limit, buf.length-limit);
+        if (rc<=0) {
+            eof=true;
+            return false;
+        }
+        limit+=rc;
+        return true;
+    }
+
+    public int read() throws IOException {
+        synchronized(lock) {
+            if (pos>=limit && !fill(pos)) return -1;
+            return buf[pos++];
+        }
+    }
+
+    public int read(char[] b, int off, int len) throws IOException {
+        synchronized(lock) {
+            if (len==0) return 0;
+            if (pos>=limit && !fill(pos)) return -1;
+            int rc=Math.min(len, limit-pos);
+            System.arraycopy(buf, pos, b, off, rc);
+            pos+=rc;
+            return rc;
+        }
+    }
+
+    /**
+     * Returns the next character without consuming it, or -1 at end
+     * of input.
+     */
+    public int peek() throws IOException {
+        synchronized(lock) {
+            if (pos>=limit && !fill(pos)) return -1;
+            return buf[pos];
+        }
+    }
+
+    public void unread(int c) throws IOException {
+        synchronized(lock) {
+            if (pos==0) makeRoom(1);
+            buf[--pos]=(char)c;
+        }
+    }
+
+    public void unread(char[] b, int off, int len) throws IOException {
+        synchronized(lock) {
+            if (pos<len) makeRoom(len);
+            pos-=len;
+            System.arraycopy(b, off, buf, pos, len);
+        }
+    }
+
+    private void makeRoom(int n) {
+        int avail=limit-pos;
+        char[] nbuf=(limit+n > buf.length ?
+                     new char[Math.max(buf.length*2, avail+n+PUSHBACK)] :
+                     buf);
+        System.arraycopy(buf, pos, nbuf, n, avail);
+        buf=nbuf;
+        pos=n;
+        limit=n+avail;
+    }
+
+    public boolean ready() throws IOException {
+        synchronized(lock) {
+            return pos<limit || (!eof && in.ready());
+        }
+    }
+
+    public long skip(long n) throws IOException {
+        synchronized(lock) {
+            long rc=0;
+            while (rc<n) {
+                if (pos>=limit && !fill(pos)) break;
+                int k=(int)Math.min(n-rc, limit-pos);
+                pos+=k;
+                rc+=k;
+            }
+            return rc;
+        }
+    }
+
+    /**
+     * Skips over whitespace.
+     */
+    public void skipWhitespace() throws IOException {
+        synchronized(lock) {
+            int start=pos, i=pos;
+            while (true) {
+                if (i>=limit) {
+                    consumed(buf, start, i);
+                    pos=i;
+                    boolean more=fill(i);
+                    start=i=pos;
+                    if (!more) return;
+                    continue;
+                }
+                char c=buf[i];
+                if (c > ' ' ? (c < 128 || !Character.isWhitespace(c)) :
+                    !Character.isWhitespace(c))
+                    break;
+                i++;
+            }
+            consumed(buf, start, i);
+            pos=i;
+        }
+    }
+
+    /**
+     * Skips up to, but not including, the given character or the end
+     * of input.
+     */
+    public void skipTo(char stop) throws IOException {
+        synchronized(lock) {
+            int start=pos, i=pos;
+            while (true) {
+                if (i>=limit) {
+                    consumed(buf, start, i);
+                    pos=i;
+                    boolean more=fill(i);
+                    start=i=pos;
+                    if (!more) return;
+                    continue;
+                }
+                if (buf[i]==stop) break;
+                i++;
+            }
+            consumed(buf, start, i);
+            pos=i;
+        }
+    }
+
+    /**
+     * Consumes characters up to, but not including, the first one
+     * which is in <tt>stops</tt>, is a backslash if
+     * <tt>escapes</tt> is set, or is in <tt>reserved</tt> if that is
+     * not null, or up to the end of input.
+     *
+     * @param stops sorted characters ending the scan
+     * @param escapes whether backslashes end the scan
+     * @param reserved sorted characters ending the scan, or null
+     * @return the characters consumed
+     */
+    public String scan(char[] stops, boolean escapes, char[] reserved)
+        throws IOException {
+        synchronized(lock) {
+            int start=pos, i=pos;
+            while (true) {
+                if (i>=limit) {
+                    int n=i-start;
+                    pos=i;
+                    boolean more=fill(start);
+                    i=pos;
+                    start=i-n;
+                    if (!more) break;
+                    continue;
+                }
+                char c=buf[i];
+                if (Lexer.in(c, stops) || (escapes && c=='\\') ||
+                    (reserved!=null && Lexer.in(c, reserved)))
+                    break;
+                i++;
+            }
+            consumed(buf, start, i);
+            pos=i;
+            return new String(buf, start, i-start);
+        }
+    }
+}
+/*
+ * The contents of this file are subject to the Mozilla Public
+ * License Version 1.1 (the "License"); you may not use this file
+ * except in compliance with the License. You may obtain a copy of
+ * the License at http://www.mozilla.org/MPL/
+ * 
+ * Software distributed under the License is distributed on an "AS
+ * IS" basis, WITHOUT WARRANTY OF ANY KIND, either express or
+ * implied. See the License for the specific language governing
+ * rights and limitations under the License.
+ * 
+ * The Original Code is the Second Interpreter of Scheme Code (SISC).
+ * 
+ * The Initial Developer of the Original Code is Scott G. Miller.
+ * Portions created by Scott G. Miller are Copyright (C) 2000-2007
+ * Scott G. Miller.  All Rights Reserved.
+ * 
+ * Contributor(s):
+ * 
+ * Alternatively, the contents of this file may be used under the
+ * terms of the GNU General Public License Version 2 or later (the
+ * "GPL"), in which case the provisions of the GPL are applicable 
+ * instead of those above.  If you wish to allow use of your 
+ * version of this file only under the terms of the GPL and not to
+ * allow others to use your version of this file under the MPL,
+ * indicate your decision by deleting the provisions above and
+ * replace them with the notice and other provisions required by
+ * the GPL.  If you do not delete the provisions above, a recipient
+ * may use your version of this file under either the MPL or the
+ * GPL.
+ */
@@ -0,0 +1,257 @@
+package sisc.reader;
+
+/**
+ * A resumable scanner finding where top-level datums end, following
+ * the token rules of the {@link Lexer} and {@link Parser}.  Input is
+ * passed to {@link #scan(char[], int, int)} piece by piece; the
+ * scanner keeps its state in between, so every character is scanned
+ * once, and reports the end of each complete top-level datum to
+ * {@link #datumEnd(int)}.  A symbol or number at top level is only
+ * complete once it is followed by a delimiter, or when
+ * {@link #end(int)} is called.
+ */
+abstract class DatumScanner {
+
+    //scanner states
+    private static final int
+        NORMAL      =0,
+        ATOM        =1,
+        ATOM_ESCAPE =2,
+        STRING      =3,
+        STRING_ESCAPE=4,
+        PIPE        =5,
+        PIPE_ESCAPE =6,
+        COMMENT     =7,
+        BLOCK       =8,
+        SHARP       =9,
+        SHARP_DIGITS=10,
+        CHAR        =11,
+        UNQUOTE     =12;
+
+    private int state=NORMAL, depth, needed=1;
+    private int blockDepth;
+    private boolean seenSharp, seenPipe;
+    //the index of the character being scanned
+    private int pos;
+
+    /**
+     * Called with the index just past each complete top-level datum.
+     * The datum may still turn out to be empty, e.g. a lone close
+     * parenthesis.
+     */
+    protected abstract void datumEnd(int end);
+
+    /**
+     * Signals the end of input at <tt>end</tt>, completing a pending
+     * top-level symbol or number.
+     */
+    void end(int end) {
+        if (state==ATOM) {
+            state=NORMAL;
+            complete(end);
+        }
+    }
+
+    /**
+     * Records the end of a datum, which is a complete top-level datum
+     * if it is not inside a list and not preceded by a datum comment.
+     */
+    private void complete(int end) {
+        if (depth > 0) return;
+        if (--needed == 0) {
+            datumEnd(end);
+            needed=1;
+        }
+    }
+
+    /**
+     * Scans <tt>buf[from..to)</tt>, which continues the input
+     * scanned so far.
+     */
+    void scan(char[] buf, int from, int to) {
+        for (pos=from; pos<to; pos++) {
+            char c=buf[pos];
+            switch (state) {
+            case NORMAL:
+                normal(c);
+                break;
+            case UNQUOTE:
+                state=NORMAL;
+                if (c!=Lexer.UNQUOTE_SPLICING) normal(c);
+                break;
+            case ATOM:
+                if (c=='\\') {
+                    state=ATOM_ESCAPE;
+                } else if (Lexer.in(c, Lexer.special)) {
+                    state=NORMAL;
+                    complete(pos);
+                    normal(c);
+                }
+                break;
+            case ATOM_ESCAPE:
+                state=ATOM;
+                break;
+            case STRING:
+                if (c=='\\') {
+                    state=STRING_ESCAPE;
+                } else if (c==Lexer.STRING_CONST) {
+                    state=NORMAL;
+                    complete(pos+1);
+                }
+                break;
+            case STRING_ESCAPE:
+                state=STRING;
+                break;
+            case PIPE:
+                if (c=='\\') {
+                    state=PIPE_ESCAPE;
+                } else if (c==Lexer.PIPE) {
+                    state=NORMAL;
+                    complete(pos+1);
+                }
+                break;
+            case PIPE_ESCAPE:
+                state=PIPE;
+                break;
+            case COMMENT:
+                if (c=='\n') state=NORMAL;
+                break;
+            case BLOCK:
+                //as in Lexer.skipMultilineComment
+                if (c==Lexer.PIPE) {
+                    if (seenSharp) {
+                        seenSharp=false;
+                        blockDepth++;
+                    } else seenPipe=true;
+                } else if (c==Lexer.SHARP) {
+                    if (seenPipe) {
+                        seenPipe=false;
+                        if (--blockDepth < 0) state=NORMAL;
+                    } else seenSharp=true;
+                } else seenPipe=seenSharp=false;
+                break;
+            case SHARP:
+                sharp(c);
+                break;
+            case SHARP_DIGITS:
+                if (c=='=') {
+                    //a label, the datum follows
+                    state=NORMAL;
+                } else if (c==Lexer.SHARP) {
+                    state=NORMAL;
+                    complete(pos+1);
+                } else if (!Character.isDigit(c)) {
+                    //a vector with a length
+                    state=NORMAL;
+                    normal(c);
+                }
+                break;
+            case CHAR:
+                if (Lexer.in(c, Lexer.special)) {
+                    state=NORMAL;
+                    complete(pos+1);
+                } else state=ATOM;
+                break;
+            }
+        }
+    }
+
+    private void normal(char c) {
+        switch (c) {
+        case Lexer.LIST_OPEN:
+        case Lexer.LIST_OPEN_ALT:
+            depth++;
+            break;
+        case Lexer.LIST_CLOSE:
+        case Lexer.LIST_CLOSE_ALT:
+            if (depth > 0) depth--;
+            complete(pos+1);
+            break;
+        case Lexer.STRING_CONST:
+            state=STRING;
+            break;
+        case Lexer.PIPE:
+            state=PIPE;
+            break;
+        case Lexer.COMMENT:
+            state=COMMENT;
+            break;
+        case Lexer.SHARP:
+            state=SHARP;
+            break;
+        case Lexer.UNQUOTE:
+            state=UNQUOTE;
+            break;
+        case Lexer.QUOTE:
+        case Lexer.BACKQUOTE:
+            break;
+        default:
+            if (!Character.isWhitespace(c)) {
+                state=(c=='\\' ? ATOM_ESCAPE : ATOM);
+            }
+        }
+    }
+
+    private void sharp(char c) {
+        state=NORMAL;
+        switch (Character.toLowerCase(c)) {
+        case Lexer.LIST_OPEN:
+            depth++;
+            break;
+        case '\\':
+            state=CHAR;
+            break;
+        case Lexer.PIPE:
+            state=BLOCK;
+            blockDepth=0;
+            seenSharp=seenPipe=false;
+            break;
+        case Lexer.COMMENT:
+            //the next datum is skipped
+            if (depth == 0) needed++;
+            break;
+        case 't':
+        case 'f':
+            complete(pos+1);
+            break;
+        case '!':
+        case '%':
+            state=ATOM;
+            break;
+        default:
+            //prefixes of the datum which follows
+            if (Character.isDigit(c)) state=SHARP_DIGITS;
+        }
+    }
+}
+/*
+ * The contents of this file are subject to the Mozilla Public
+ * License Version 1.1 (the "License"); you may not use this file
+ * except in compliance with the License. You may obtain a copy of
+ * the License at http://www.mozilla.org/MPL/
+ * 
+ * Software distributed under the License is distributed on an "AS
+ * IS" basis, WITHOUT WARRANTY OF ANY KIND, either express or
+ * implied. See the License for the specific language governing
+ * rights and limitations under the License.
+ * 
+ * The Original Code is the Second Interpreter of Scheme Code (SISC).
+ * 
+ * The Initial Developer of the Original Code is Scott G. Miller.
+ * Portions created by Scott G. Miller are Copyright (C) 2000-2007
+ * Scott G. Miller.  All Rights Reserved.
+ * 
+ * Contributor(s):
+ * 
+ * Alternatively, the contents of this file may be used under the
+ * terms of the GNU General Public License Version 2 or later (the
+ * "GPL"), in which case the provisions of the GPL are applicable 
+ * instead of those above.  If you wish to allow use of your 
+ * version of this file only under the terms of the GPL and not to
+ * allow others to use your version of this file under the MPL,
+ * indicate your decision by deleting the provisions above and
+ * replace them with the notice and other provisions required by
+ * the GPL.  If you do not delete the provisions above, a recipient
+ * may use your version of this file under either the MPL or the
+ * GPL.
+ */
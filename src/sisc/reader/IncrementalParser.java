@@ -0,0 +1,165 @@
+package sisc.reader;
+
+import java.io.*;
+import java.nio.CharBuffer;
+import java.util.LinkedList;
+import java.util.ListIterator;
+
+import sisc.data.Value;
+import sisc.util.Util;
+
+/**
+ * Parses s-expressions from input which arrives in chunks, for
+ * instance from a non-blocking channel, without a thread blocking on
+ * a Reader.
+ * <p>
+ * Characters are passed to {@link #feed(char[], int, int)} as they
+ * arrive.  A {@link DatumScanner} finds where each complete top-level
+ * datum ends, keeping its state between chunks so every character is
+ * scanned once.  Complete datums are then read by the ordinary Parser
+ * through {@link #next()}.  A symbol or number at top level is only
+ * complete once it is followed by a delimiter, or when {@link #end()}
+ * is called.
+ * </p>
+ * Instances are not thread safe.
+ */
+public class IncrementalParser {
+
+    protected Parser parser;
+    protected int flags;
+
+    private char[] buf=new char[1024];
+    //start of the first unread datum and end of input
+    private int start, limit;
+    //ends of complete datums not yet read
+    private LinkedList ends=new LinkedList();
+
+    private DatumScanner scanner=new DatumScanner() {
+            protected void datumEnd(int end) {
+                ends.add(new Integer(end));
+            }
+        };
+
+    public IncrementalParser(Parser parser) {
+        this(parser, Parser.PRODUCE_IMMUTABLES);
+    }
+
+    /**
+     * @param parser the parser reading complete datums
+     * @param flags the flags passed to
+     * {@link Parser#nextExpression(PushbackReader, int, sisc.data.Pair)}
+     */
+    public IncrementalParser(Parser parser, int flags) {
+        this.parser=parser;
+        this.flags=flags;
+    }
+
+    public void feed(String s) {
+        feed(s.toCharArray(), 0, s.length());
+    }
+
+    /**
+     * Consumes the remaining characters of a buffer.
+     */
+    public void feed(CharBuffer cb) {
+        int len=cb.remaining();
+        ensureCapacity(len);
+        cb.get(buf, limit, len);
+        limit+=len;
+        scanner.scan(buf, limit-len, limit);
+    }
+
+    public void feed(char[] c, int off, int len) {
+        ensureCapacity(len);
+        System.arraycopy(c, off, buf, limit, len);
+        limit+=len;
+        scanner.scan(buf, limit-len, limit);
+    }
+
+    /**
+     * Signals the end of input, completing a pending top-level
+     * symbol or number.
+     */
+    public void end() {
+        scanner.end(limit);
+    }
+
+    /**
+     * Returns true if a complete datum is available.  The datum may
+     * still turn out to be empty, e.g. a lone close parenthesis, in
+     * which case {@link #next()} returns null.
+     */
+    public boolean hasNext() {
+        return !ends.isEmpty();
+    }
+
+    /**
+     * Reads the next complete datum.
+     *
+     * @return the datum, or null if no complete datum is available
+     * @exception IOException if the datum is malformed
+     */
+    public Value next() throws IOException {
+        while (!ends.isEmpty()) {
+            int end=((Integer)ends.removeFirst()).intValue();
+            int len=end-start;
+            PushbackReader in=new BufferedPushbackReader
+                (new CharArrayReader(buf, start, len), len);
+            start=end;
+            try {
+                return parser.nextExpression(in, flags, Util.EMPTYLIST);
+            } catch (EOFException e) {
+                //nothing but comments or an orphaned parenthesis
+            }
+        }
+        return null;
+    }
+
+    private void ensureCapacity(int len) {
+        if (start > 0) {
+            System.arraycopy(buf, start, buf, 0, limit-start);
+            int shift=start;
+            for (ListIterator i=ends.listIterator(); i.hasNext();) {
+                i.set(new Integer(((Integer)i.next()).intValue()-shift));
+            }
+            limit-=shift;
+            start=0;
+        }
+        if (limit+len > buf.length) {
+            char[] nbuf=new char[Math.max(buf.length*2, limit+len)];
+            System.arraycopy(buf, 0, nbuf, 0, limit);
+            buf=nbuf;
+        }
+    }
+}
+/*
+ * The contents of this file are subject to the Mozilla Public
+ * License Version 1.1 (the "License"); you may not use this file
+ * except in compliance with the License. You may obtain a copy of
+ * the License at http://www.mozilla.org/MPL/
+ * 
+ * Software distributed under the License is distributed on an "AS
+ * IS" basis, WITHOUT WARRANTY OF ANY KIND, either express or
+ * implied. See the License for the specific language governing
+ * rights and limitations under the License.
+ * 
+ * The Original Code is the Second Interpreter of Scheme Code (SISC).
+ * 
+ * The Initial Developer of the Original Code is Scott G. Miller.
+ * Portions created by Scott G. Miller are Copyright (C) 2000-2007
+ * Scott G. Miller.  All Rights Reserved.
+ * 
+ * Contributor(s):
+ * 
+ * Alternatively, the contents of this file may be used under the
+ * terms of the GNU General Public License Version 2 or later (the
+ * "GPL"), in which case the provisions of the GPL are applicable 
+ * instead of those above.  If you wish to allow use of your 
+ * version of this file only under the terms of the GPL and not to
+ * allow others to use your version of this file under the MPL,
+ * indicate your decision by deleting the provisions above and
+ * replace them with the notice and other provisions required by
+ * the GPL.  If you do not delete the provisions above, a recipient
+ * may use your version of this file under either the MPL or the
+ * GPL.
+ */
@@ -72,6 +72,8 @@ public class Lexer implements Tokens {
     throws IOException {
         char c=0;
 
+        if (is instanceof BufferedPushbackReader)
+            ((BufferedPushbackReader)is).skipWhitespace();
         do {
             c=(char)readChar(is);
         } while (Character.isWhitespace(c));
@@ -107,6 +109,8 @@ public class Lexer implements Tokens {
                 sval=readToEndOfString(is);
                 return TT_STRING;
             case COMMENT:
+                if (is instanceof BufferedPushbackReader)
+                    ((BufferedPushbackReader)is).skipTo('\n');
                 while (readChar(is,false,false,false)!='\n') {}
                 return nextToken(is, radix);
             case BACKQUOTE:
@@ -143,6 +147,10 @@ public class Lexer implements Tokens {
     }
 
     static Object readNum(String v, int radix) {
+        if (radix==10) {
+            Object o=readDecimal(v);
+            if (o!=null) return o;
+        }
         try {
             Quantity q=Quantity.valueOf(v, radix);
             return q;
@@ -151,6 +159,87 @@ public class Lexer implements Tokens {
         }
     }
 
+    //powers of ten which are exactly representable as doubles
+    private static final double[] POW10=new double[23];
+    static {
+        POW10[0]=1.0;
+        for (int i=1; i<POW10.length; i++)
+            POW10[i]=POW10[i-1]*10.0;
+    }
+
+    /**
+     * Parses the common forms of decimal numbers, plain integers and
+     * decimals with an optional exponent, without going through
+     * Quantity.valueOf.  Integers of up to 18 digits are accumulated
+     * directly, and decimals whose digits and exponent are small
+     * enough to be converted exactly are computed in double
+     * arithmetic.
+     *
+     * @return the number, the token itself if it cannot be a number,
+     * or null if Quantity.valueOf has to decide
+     */
+    static Object readDecimal(String v) {
+        int len=v.length(), i=0;
+        char c=v.charAt(0);
+        boolean neg=false, decimal=false, overflow=false;
+        if (c=='+' || c=='-') {
+            neg=(c=='-');
+            i++;
+        }
+        long mant=0;
+        int digits=0, scale=0;
+        for (; i<len; i++) {
+            c=v.charAt(i);
+            if (c>='0' && c<='9') {
+                digits++;
+                if (mant < 100000000000000000L) {
+                    mant=mant*10+(c-'0');
+                    if (decimal) scale--;
+                } else {
+                    overflow=true;
+                    if (!decimal) scale++;
+                }
+            } else if (c=='.' && !decimal) {
+                decimal=true;
+            } else break;
+        }
+        if (digits==0) {
+            //without digits only things like +i are numbers
+            for (int j=0; j<len; j++) {
+                c=v.charAt(j);
+                if (c=='#' || Character.isDigit(c)) return null;
+            }
+            return (v.charAt(len-1)=='i' ? null : v);
+        }
+        int exp=0;
+        if (i<len) {
+            c=v.charAt(i++);
+            if ((c!='e' && c!='E') || i==len) return null;
+            decimal=true;
+            boolean eneg=false;
+            c=v.charAt(i);
+            if (c=='+' || c=='-') {
+                eneg=(c=='-');
+                if (++i==len) return null;
+            }
+            for (; i<len; i++) {
+                c=v.charAt(i);
+                if (c<'0' || c>'9') return null;
+                if (exp<100000) exp=exp*10+(c-'0');
+            }
+            if (eneg) exp=-exp;
+        }
+        if (!decimal) {
+            if (overflow) return null;
+            return Quantity.valueOf(neg ? -mant : mant);
+        }
+        int e=exp+scale;
+        if (overflow || mant >= (1L<<53) || e<-22 || e>22)
+            return Quantity.valueOf(Double.parseDouble(v));
+        double d=(e<0 ? mant/POW10[-e] : mant*POW10[e]);
+        return Quantity.valueOf(neg ? -d : d);
+    }
+
     public int readChar(PushbackReader is) throws IOException {
         return readChar(is, true, false, true); 
     }
@@ -175,9 +264,21 @@ public class Lexer implements Tokens {
         return (invertEscaped ? -rv : rv);
     }
 
+    static final char[] string_end = new char[] {STRING_CONST};
+
     public String readToEndOfString(PushbackReader is)
     throws IOException {
-        StringBuffer b=new StringBuffer();
+        StringBuffer b;
+        if (is instanceof BufferedPushbackReader) {
+            //scan up to the end of the string or the first escape
+            BufferedPushbackReader br=(BufferedPushbackReader)is;
+            String s=br.scan(string_end, true, null);
+            if (br.peek()==STRING_CONST) {
+                br.read();
+                return s;
+            }
+            b=new StringBuffer(s);
+        } else b=new StringBuffer();
         do {
             int x=readPureChar(is);
             if (x=='"') break;
@@ -189,7 +290,19 @@ public class Lexer implements Tokens {
     public String readToBreak(PushbackReader is, char[] stops, 
                               boolean handleEscapes, boolean ignoreEscapedBreaks)
     throws IOException {
-        StringBuffer b=new StringBuffer();
+        StringBuffer b;
+        if (is instanceof BufferedPushbackReader) {
+            //scan up to the break or the first character needing
+            //the slow path below
+            BufferedPushbackReader br=(BufferedPushbackReader)is;
+            String s=br.scan(stops, handleEscapes,
+                             (strictR5RS ? reserved : null));
+            int n=br.peek();
+            if (n==-1 || (in((char)n, stops) &&
+                          !(strictR5RS && in((char)n, reserved))))
+                return s;
+            b=new StringBuffer(s);
+        } else b=new StringBuffer();
         char c;
         try {
             do {            
@@ -0,0 +1,244 @@
+package sisc.reader;
+
+import java.io.*;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedList;
+import java.util.concurrent.*;
+
+import sisc.data.Value;
+import sisc.util.Util;
+
+/**
+ * Reads a stream of s-expressions, parsing chunks of it concurrently.
+ * <p>
+ * The input is read in chunks of about <tt>chunkSize</tt>
+ * characters, each ending where a top-level datum ends, as found by
+ * a {@link DatumScanner}.  Each chunk is parsed by a task of its own,
+ * with a Parser and Lexer of its own configured like the given
+ * template, and {@link #next()} returns the datums of the chunks in
+ * input order.  At most <tt>readahead</tt> chunks are buffered or
+ * being parsed at any time.
+ * </p>
+ * <p>
+ * Without an executor, chunks are parsed by the thread calling
+ * next().
+ * </p>
+ * All symbols are interned through {@link sisc.data.Symbol#intern},
+ * which takes a single global lock, so input consisting mostly of
+ * symbols gains less from parsing in parallel.
+ */
+public class ParallelReader {
+
+    public static final int DEFAULT_CHUNK_SIZE=1 << 18;
+
+    protected Reader in;
+    protected ExecutorService pool;
+    protected Parser template;
+    protected int flags, chunkSize, readahead;
+
+    //Chunks, or Futures of their Value[]s, in input order
+    private LinkedList pending=new LinkedList();
+    private char[] carry=new char[0];
+    private int carryLength;
+    //the end of the last complete datum in the chunk being read
+    private int lastEnd;
+    private DatumScanner scanner=new DatumScanner() {
+            protected void datumEnd(int end) {
+                lastEnd=end;
+            }
+        };
+    private boolean eof;
+    private Value[] current;
+    private int index;
+
+    /**
+     * @param in the input
+     * @param pool the executor parsing chunks, or null
+     * @param readahead the maximum number of chunks buffered
+     * @param template the parser whose settings are copied
+     * @param flags the flags passed to
+     * {@link Parser#nextExpression(PushbackReader, int, sisc.data.Pair)}
+     */
+    public ParallelReader(Reader in, ExecutorService pool, int readahead,
+                          Parser template, int flags) {
+        this(in, pool, readahead, template, flags, DEFAULT_CHUNK_SIZE);
+    }
+
+    public ParallelReader(Reader in, ExecutorService pool, int readahead,
+                          Parser template, int flags, int chunkSize) {
+        this.in=in;
+        this.pool=pool;
+        this.readahead=Math.max(1, readahead);
+        this.template=template;
+        this.flags=flags;
+        this.chunkSize=chunkSize;
+    }
+
+    /**
+     * Returns the next datum, or the EOF object at the end of the
+     * input.
+     *
+     * @exception IOException if reading fails or a chunk contains a
+     * malformed datum
+     */
+    public synchronized Value next() throws IOException {
+        while (current == null || index >= current.length) {
+            current=null;
+            fill();
+            if (pending.isEmpty()) return Util.EOF;
+            current=result(pending.removeFirst());
+            index=0;
+        }
+        Value v=current[index];
+        current[index++]=null;
+        return v;
+    }
+
+    /**
+     * Stops parsing and closes the input.
+     */
+    public synchronized void close() throws IOException {
+        for (Iterator i=pending.iterator(); i.hasNext();) {
+            Object o=i.next();
+            if (o instanceof Future) ((Future)o).cancel(false);
+        }
+        pending.clear();
+        current=null;
+        eof=true;
+        in.close();
+    }
+
+    private void fill() throws IOException {
+        while (!eof && pending.size() < readahead) {
+            Chunk chunk=readChunk();
+            if (chunk == null) break;
+            pending.add(pool == null ? (Object)chunk : pool.submit(chunk));
+        }
+    }
+
+    private Value[] result(Object o) throws IOException {
+        if (o instanceof Chunk) return (Value[])((Chunk)o).call();
+        boolean interrupted=false;
+        try {
+            while (true) {
+                try {
+                    return (Value[])((Future)o).get();
+                } catch (InterruptedException e) {
+                    interrupted=true;
+                } catch (ExecutionException e) {
+                    Throwable t=e.getCause();
+                    if (t instanceof IOException)
+                        throw (IOException)t;
+                    if (t instanceof RuntimeException)
+                        throw (RuntimeException)t;
+                    throw (Error)t;
+                }
+            }
+        } finally {
+            if (interrupted) Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Reads the next chunk, up to the end of the last complete datum
+     * in the next <tt>chunkSize</tt> characters, or up to the end of
+     * input.  A datum longer than that is extended up to its end.
+     *
+     * @return the chunk, or null at the end of input
+     */
+    private Chunk readChunk() throws IOException {
+        char[] c=new char[Math.max(chunkSize, carryLength*2)];
+        System.arraycopy(carry, 0, c, 0, carryLength);
+        //the carry has been scanned already, and holds no complete
+        //datum
+        int len=carryLength;
+        lastEnd=0;
+        while (true) {
+            int scanned=len;
+            while (len < c.length) {
+                int rc=in.read(c, len, c.length-len);
+                if (rc == -1) {
+                    eof=true;
+                    break;
+                }
+                len+=rc;
+            }
+            if (eof) {
+                carryLength=0;
+                if (len == 0) return null;
+                return new Chunk(c, len);
+            }
+            scanner.scan(c, scanned, len);
+            if (lastEnd > 0) {
+                carryLength=len-lastEnd;
+                if (carry.length < carryLength) carry=new char[c.length];
+                System.arraycopy(c, lastEnd, carry, 0, carryLength);
+                return new Chunk(c, lastEnd);
+            }
+            //no complete datum yet
+            char[] nc=new char[c.length*2];
+            System.arraycopy(c, 0, nc, 0, len);
+            c=nc;
+        }
+    }
+
+    /**
+     * Parses one chunk with a Parser of its own.
+     */
+    class Chunk implements Callable {
+        final char[] text;
+        final int length;
+
+        Chunk(char[] text, int length) {
+            this.text=text;
+            this.length=length;
+        }
+
+        public Object call() throws IOException {
+            Parser p=new Parser(new Lexer());
+            p.annotate=template.annotate;
+            p.lexer.strictR5RS=template.lexer.strictR5RS;
+            PushbackReader r=new BufferedPushbackReader(new CharArrayReader(text, 0, length));
+            ArrayList values=new ArrayList();
+            try {
+                while (true) {
+                    values.add(p.nextExpression(r, flags, Util.EMPTYLIST));
+                }
+            } catch (EOFException e) {
+            }
+            return values.toArray(new Value[values.size()]);
+        }
+    }
+}
+/*
+ * The contents of this file are subject to the Mozilla Public
+ * License Version 1.1 (the "License"); you may not use this file
+ * except in compliance with the License. You may obtain a copy of
+ * the License at http://www.mozilla.org/MPL/
+ * 
+ * Software distributed under the License is distributed on an "AS
+ * IS" basis, WITHOUT WARRANTY OF ANY KIND, either express or
+ * implied. See the License for the specific language governing
+ * rights and limitations under the License.
+ * 
+ * The Original Code is the Second Interpreter of Scheme Code (SISC).
+ * 
+ * The Initial Developer of the Original Code is Scott G. Miller.
+ * Portions created by Scott G. Miller are Copyright (C) 2000-2007
+ * Scott G. Miller.  All Rights Reserved.
+ * 
+ * Contributor(s):
+ * 
+ * Alternatively, the contents of this file may be used under the
+ * terms of the GNU General Public License Version 2 or later (the
+ * "GPL"), in which case the provisions of the GPL are applicable 
+ * instead of those above.  If you wish to allow use of your 
+ * version of this file only under the terms of the GPL and not to
+ * allow others to use your version of this file under the MPL,
+ * indicate your decision by deleting the provisions above and
+ * replace them with the notice and other provisions required by
+ * the GPL.  If you do not delete the provisions above, a recipient
+ * may use your version of this file under either the MPL or the
+ * GPL.
+ */
@@ -4,13 +4,16 @@
 package sisc.reader;
 
 import java.io.IOException;
-import java.io.PushbackReader;
 import java.io.Reader;
 
-public class SourceReader extends PushbackReader {
+public class SourceReader extends BufferedPushbackReader {
 
     public SourceReader(Reader in, String file) {
-        super(in);
+        this(in, file, DEFAULT_BUFFER_SIZE);
+    }
+
+    public SourceReader(Reader in, String file, int size) {
+        super(in, size);
         line=1;
         column=1;
         sourceFile=file;
@@ -28,6 +31,12 @@ public class SourceReader extends PushbackReader {
         else column++;
     }
     
+    protected void consumed(char[] b, int from, int to) {
+        for (int i=from; i<to; i++) {
+            maintainLineColumn(b[i]);
+        }
+    }
+
     //Does this even work?
     protected void unmaintainLineColumn(int c) {
         if (c=='\n') {
@@ -48,10 +57,9 @@ public class SourceReader extends PushbackReader {
         return read(buffer, 0, buffer.length);
     }
     
-    //TODO: Could be made more efficient by not doing character by character scan
     public int read(char[] buffer, int offset, int length) throws IOException {
         int count=super.read(buffer, offset, length);
-        for (int i=offset; i<count; i++) {
+        for (int i=offset; i<offset+count; i++) {
             maintainLineColumn(buffer[i]);
         }
         return count;
@@ -3,22 +3,47 @@ package sisc.ser;
 import sisc.util.Util;
 import java.util.*;
 import java.io.*;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
 import sisc.data.*;
 import sisc.interpreter.AppContext;
 
 public class BlockDeserializer extends SLL2Deserializer implements LibraryDeserializer {
 
-    private Map classPool;
+    private Class[] classPool;
+    private String[] stringPool;
+    private ExpressionFactory[] factories;
     Expression[] alreadyReadObjects;
     private int[] offsets, sizes;
     private long base;
     private Library baseLib;
+    private byte[] digest;
     
     public BlockDeserializer(AppContext ctx, SeekableDataInputStream input, 
                              Map classes, int[] o, int[] l) throws IOException {
+        this(ctx, input, toArray(classes), o, l);
+    }
+
+    public BlockDeserializer(AppContext ctx, SeekableDataInputStream input, 
+                             Class[] classes, int[] o, int[] l) throws IOException {
+        this(ctx, input, classes, o, l, null);
+    }
+
+    /**
+     * @param strings the string pool of the library, or null if
+     * strings are stored inline, as in SLL4 libraries
+     */
+    public BlockDeserializer(AppContext ctx, SeekableDataInputStream input, 
+                             Class[] classes, int[] o, int[] l,
+                             String[] strings) throws IOException {
         super(ctx, input);
+        stringPool=strings;
         base=input.getFilePointer();
         classPool=classes;
+        factories=new ExpressionFactory[classes.length];
+        for (int i=0; i<classes.length; i++) {
+            factories[i]=ExpressionFactory.forClass(classes[i]);
+        }
         
         offsets=o;
         sizes=l;
@@ -45,7 +70,11 @@ public class BlockDeserializer extends SLL2Deserializer implements LibraryDeseri
         }
     }
 
-    protected Expression fetchShared(int oid) throws IOException {
+    /**
+     * Synchronized, since the stream is shared by every thread
+     * materializing objects from this library.
+     */
+    protected synchronized Expression fetchShared(int oid) throws IOException {
         try {
             Expression e=alreadyReadObjects[oid];
             if (e==null) {
@@ -60,6 +89,55 @@ public class BlockDeserializer extends SLL2Deserializer implements LibraryDeseri
         }
     }            
 
+    /**
+     * Returns a SHA-1 digest of the class table, the object index and
+     * the data segment of the library, computed when first asked for.
+     * Synchronized, since reading the data segment moves the shared
+     * stream.
+     */
+    synchronized byte[] digest() throws IOException {
+        if (digest != null) return digest;
+        MessageDigest md=sha1();
+        for (int i=0; i<classPool.length; i++) {
+            md.update(classPool[i].getName().getBytes("UTF-8"));
+            md.update((byte)0);
+        }
+        long end=0;
+        for (int i=0; i<offsets.length; i++) {
+            update(md, offsets[i]);
+            update(md, sizes[i]);
+            end=Math.max(end, (long)offsets[i]+sizes[i]);
+        }
+        long currentPos=((Seekable)datin).getFilePointer();
+        ((Seekable)datin).seek(base);
+        byte[] buf=new byte[8192];
+        for (long left=end; left>0;) {
+            int n=(int)Math.min(left, buf.length);
+            datin.readFully(buf, 0, n);
+            md.update(buf, 0, n);
+            left-=n;
+        }
+        ((Seekable)datin).seek(currentPos);
+        digest=md.digest();
+        return digest;
+    }
+
+    static MessageDigest sha1() {
+        try {
+            return MessageDigest.getInstance("SHA-1");
+        } catch (NoSuchAlgorithmException e) {
+            //every Java platform is required to provide SHA-1
+            throw new RuntimeException(e.getMessage());
+        }
+    }
+
+    private static void update(MessageDigest md, int v) {
+        md.update((byte)(v >>> 24));
+        md.update((byte)(v >>> 16));
+        md.update((byte)(v >>> 8));
+        md.update((byte)v);
+    }
+
     public Library getLibrary() {
         return baseLib;
     }
@@ -68,8 +146,25 @@ public class BlockDeserializer extends SLL2Deserializer implements LibraryDeseri
         this.baseLib = lib;
     }
 
+    private static Class[] toArray(Map classes) {
+        Class[] rv=new Class[classes.size()];
+        for (int i=0; i<rv.length; i++) {
+            rv[i]=(Class)classes.get(new Integer(i));
+        }
+        return rv;
+    }
+
+    public String readUTF() throws IOException {
+        if (stringPool == null) return super.readUTF();
+        return stringPool[readInt()];
+    }
+
     public Class readClass() throws IOException {
-        return (Class)classPool.get(new Integer(readInt()));
+        return classPool[readInt()];
+    }
+
+    protected ExpressionFactory readFactory() throws IOException {
+        return factories[readInt()];
     }
         
 }
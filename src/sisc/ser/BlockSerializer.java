@@ -45,7 +45,8 @@ public class BlockSerializer extends SLL2Serializer {
     private Vector classes;
     private int[] sizes;
     private Expression[] entryPoints;
-    private HashMap epi, ci;
+    private HashMap epi, ci, pi;
+    private Vector pool;
 
     private BlockSerializer(AppContext ctx, CountingOutputStream cos,
                             Vector classes, Expression[] entryPoints)
@@ -64,6 +65,9 @@ public class BlockSerializer extends SLL2Serializer {
             ci.put(classes.elementAt(i), new Integer(i));
         }
 
+        pi=new HashMap();
+        pool=new Vector();
+
         epi=new HashMap();
         for (int i=0; i<entryPoints.length; i++) {
             epi.put(entryPoints[i], new Integer(i));
@@ -114,6 +118,28 @@ public class BlockSerializer extends SLL2Serializer {
         writeInt(((Integer)ci.get(c)).intValue());
     }
 
+    /**
+     * Strings are written as indices into a pool of distinct strings,
+     * which is stored once in the library header.
+     */
+    public void writeUTF(String v) throws IOException {
+        writeInt(poolIndex(v));
+    }
+
+    public int poolIndex(String v) {
+        Integer i=(Integer)pi.get(v);
+        if (i == null) {
+            i=new Integer(pool.size());
+            pi.put(v, i);
+            pool.add(v);
+        }
+        return i.intValue();
+    }
+
+    public Vector getPool() {
+        return pool;
+    }
+
     protected void serializeEnd(int posi, int sizeStartOffset) {
         if (sizeStartOffset != -1)
             sizes[posi] = cos.position - sizeStartOffset;
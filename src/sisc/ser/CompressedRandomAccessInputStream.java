@@ -0,0 +1,168 @@
+package sisc.ser;
+
+import java.io.*;
+import java.util.zip.DataFormatException;
+import java.util.zip.Inflater;
+
+/**
+ * Random access to data stored as a sequence of independently
+ * deflated blocks, as written by {@link LibraryBuilder} for
+ * compressed libraries.  Positions are in the uncompressed data.
+ * Blocks are inflated when first read, and the most recently used
+ * ones are kept, since deserializing an object often jumps to shared
+ * objects elsewhere in the library and back again.
+ */
+public class CompressedRandomAccessInputStream extends SeekableInputStream {
+
+    protected static final int STACK_DEPTH=8;
+
+    protected SeekableDataInput in;
+    protected int blockSize;
+    protected long length, filePointer;
+    protected long[] blockOffsets;
+    protected int[] compressedSizes;
+
+    //most recently used first
+    protected byte[][] blocks;
+    protected int[] blockNumbers;
+
+    private Inflater inflater=new Inflater();
+    private byte[] compressed;
+
+    /**
+     * Reads the block table from the current position of a library,
+     * after which the blocks themselves follow.
+     */
+    public CompressedRandomAccessInputStream(SeekableDataInputStream in)
+        throws IOException {
+
+        this.in=in;
+        blockSize=BerEncoding.readBer(in);
+        length=BerEncoding.readBerLong(in);
+        int blockCount=BerEncoding.readBer(in);
+        compressedSizes=new int[blockCount];
+        int max=0;
+        for (int i=0; i<blockCount; i++) {
+            compressedSizes[i]=BerEncoding.readBer(in);
+            max=Math.max(max, compressedSizes[i]);
+        }
+        blockOffsets=new long[blockCount];
+        long offset=in.getFilePointer();
+        for (int i=0; i<blockCount; i++) {
+            blockOffsets[i]=offset;
+            offset+=compressedSizes[i];
+        }
+        compressed=new byte[max];
+
+        int depth=Math.min(STACK_DEPTH, blockCount);
+        blocks=new byte[depth][];
+        blockNumbers=new int[depth];
+        for (int i=0; i<depth; i++) {
+            blockNumbers[i]=-1;
+        }
+    }
+
+    /**
+     * Returns the block containing the current position, inflating it
+     * if necessary, and makes it the most recently used.
+     */
+    protected byte[] block() throws IOException {
+        int n=(int)(filePointer / blockSize);
+        int i=0;
+        while (i<blockNumbers.length-1 && blockNumbers[i]!=n) i++;
+        byte[] b=blocks[i];
+        if (blockNumbers[i]!=n) {
+            b=inflate(n, b);
+        }
+        for (; i>0; i--) {
+            blocks[i]=blocks[i-1];
+            blockNumbers[i]=blockNumbers[i-1];
+        }
+        blocks[0]=b;
+        blockNumbers[0]=n;
+        return b;
+    }
+
+    protected byte[] inflate(int n, byte[] b) throws IOException {
+        if (b == null) b=new byte[blockSize];
+        in.seek(blockOffsets[n]);
+        in.readFully(compressed, 0, compressedSizes[n]);
+        inflater.reset();
+        inflater.setInput(compressed, 0, compressedSizes[n]);
+        try {
+            int len=(int)Math.min(blockSize, length - (long)n*blockSize);
+            int off=0;
+            while (off<len) {
+                int rc=inflater.inflate(b, off, len-off);
+                if (rc == 0 && (inflater.finished() || inflater.needsInput()))
+                    throw new EOFException();
+                off+=rc;
+            }
+        } catch (DataFormatException e) {
+            throw new IOException(e.getMessage());
+        }
+        return b;
+    }
+
+    public void seek(long pos) throws IOException {
+        filePointer=pos;
+    }
+
+    public long getFilePointer() throws IOException {
+        return filePointer;
+    }
+
+    public int read() throws IOException {
+        if (filePointer>=length) return -1;
+        byte[] b=block();
+        return b[(int)(filePointer++ % blockSize)] & 0xff;
+    }
+
+    public int read(byte[] b, int off, int len) throws IOException {
+        if (len==0) return 0;
+        if (filePointer>=length) return -1;
+        int pos=(int)(filePointer % blockSize);
+        int rc=(int)Math.min(Math.min(len, blockSize-pos), length-filePointer);
+        System.arraycopy(block(), pos, b, off, rc);
+        filePointer+=rc;
+        return rc;
+    }
+
+    public long skip(long n) throws IOException {
+        long rc=Math.max(0, Math.min(n, length-filePointer));
+        filePointer+=rc;
+        return rc;
+    }
+}
+
+/*
+ * The contents of this file are subject to the Mozilla Public
+ * License Version 1.1 (the "License"); you may not use this file
+ * except in compliance with the License. You may obtain a copy of
+ * the License at http://www.mozilla.org/MPL/
+ * 
+ * Software distributed under the License is distributed on an "AS
+ * IS" basis, WITHOUT WARRANTY OF ANY KIND, either express or
+ * implied. See the License for the specific language governing
+ * rights and limitations under the License.
+ * 
+ * The Original Code is the Second Interpreter of Scheme Code (SISC).
+ * 
+ * The Initial Developer of the Original Code is Scott G. Miller.
+ * Portions created by Scott G. Miller are Copyright (C) 2000-2007
+ * Scott G. Miller.  All Rights Reserved.
+ * 
+ * Contributor(s):
+ * 
+ * Alternatively, the contents of this file may be used under the
+ * terms of the GNU General Public License Version 2 or later (the
+ * "GPL"), in which case the provisions of the GPL are applicable 
+ * instead of those above.  If you wish to allow use of your 
+ * version of this file only under the terms of the GPL and not to
+ * allow others to use your version of this file under the MPL,
+ * indicate your decision by deleting the provisions above and
+ * replace them with the notice and other provisions required by
+ * the GPL.  If you do not delete the provisions above, a recipient
+ * may use your version of this file under either the MPL or the
+ * GPL.
+ */
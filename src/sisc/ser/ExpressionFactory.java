@@ -0,0 +1,249 @@
+package sisc.ser;
+
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.Map;
+import sisc.compiler.*;
+import sisc.data.*;
+import sisc.data.proc.*;
+import sisc.env.*;
+import sisc.exprs.*;
+import sisc.exprs.fp.*;
+import sisc.modules.Primitives;
+
+/**
+ * Creates the blank expressions which deserialization then fills in.
+ * <p>
+ * Heaps consist mostly of instances of a small number of core
+ * classes.  For these, {@link #forClass} returns factories which
+ * call the constructor directly; other classes are instantiated
+ * reflectively.  Deserializers look up the factory for each class in
+ * a library once, rather than instantiating reflectively for every
+ * object.
+ * </p>
+ */
+public abstract class ExpressionFactory {
+
+    private static final Map builtinByClass = new HashMap();
+
+    static {
+        register(new ExpressionFactory(Pair.class) {
+                public Expression create() { return new Pair(); }
+            });
+        register(new ExpressionFactory(ImmutablePair.class) {
+                public Expression create() { return new ImmutablePair(); }
+            });
+        register(new ExpressionFactory(EmptyList.class) {
+                public Expression create() { return new EmptyList(); }
+            });
+        register(new ExpressionFactory(SchemeString.class) {
+                public Expression create() { return new SchemeString(); }
+            });
+        register(new ExpressionFactory(ImmutableString.class) {
+                public Expression create() { return new ImmutableString(); }
+            });
+        register(new ExpressionFactory(SchemeVector.class) {
+                public Expression create() { return new SchemeVector(); }
+            });
+        register(new ExpressionFactory(ImmutableVector.class) {
+                public Expression create() { return new ImmutableVector(); }
+            });
+        register(new ExpressionFactory(SchemeCharacter.class) {
+                public Expression create() { return new SchemeCharacter(); }
+            });
+        register(new ExpressionFactory(SchemeBoolean.class) {
+                public Expression create() { return new SchemeBoolean(); }
+            });
+        register(new ExpressionFactory(SchemeVoid.class) {
+                public Expression create() { return new SchemeVoid(); }
+            });
+        register(new ExpressionFactory(EOFObject.class) {
+                public Expression create() { return new EOFObject(); }
+            });
+        register(new ExpressionFactory(Box.class) {
+                public Expression create() { return new Box(); }
+            });
+        register(new ExpressionFactory(Values.class) {
+                public Expression create() { return new Values(); }
+            });
+        register(new ExpressionFactory(Symbol.class) {
+                public Expression create() { return new Symbol(); }
+            });
+        register(new ExpressionFactory(MemoizedSymbol.class) {
+                public Expression create() { return new MemoizedSymbol(); }
+            });
+        register(new ExpressionFactory(Closure.class) {
+                public Expression create() { return new Closure(); }
+            });
+        register(new ExpressionFactory(SimpleClosure.class) {
+                public Expression create() { return new SimpleClosure(); }
+            });
+        register(new ExpressionFactory(AnnotatedExpr.class) {
+                public Expression create() { return new AnnotatedExpr(); }
+            });
+        register(new ExpressionFactory(AppEval.class) {
+                public Expression create() { return new AppEval(); }
+            });
+        register(new ExpressionFactory(AppExp.class) {
+                public Expression create() { return new AppExp(); }
+            });
+        register(new ExpressionFactory(ApplyValuesContEval.class) {
+                public Expression create() { return new ApplyValuesContEval(); }
+            });
+        register(new ExpressionFactory(DefineEval.class) {
+                public Expression create() { return new DefineEval(); }
+            });
+        register(new ExpressionFactory(EvalExp.class) {
+                public Expression create() { return new EvalExp(); }
+            });
+        register(new ExpressionFactory(FillRibExp.class) {
+                public Expression create() { return new FillRibExp(); }
+            });
+        register(new ExpressionFactory(FreeReferenceExp.class) {
+                public Expression create() { return new FreeReferenceExp(); }
+            });
+        register(new ExpressionFactory(FreeSetEval.class) {
+                public Expression create() { return new FreeSetEval(); }
+            });
+        register(new ExpressionFactory(IfEval.class) {
+                public Expression create() { return new IfEval(); }
+            });
+        register(new ExpressionFactory(LambdaExp.class) {
+                public Expression create() { return new LambdaExp(); }
+            });
+        register(new ExpressionFactory(LetrecEval.class) {
+                public Expression create() { return new LetrecEval(); }
+            });
+        register(new ExpressionFactory(LetrecExp.class) {
+                public Expression create() { return new LetrecExp(); }
+            });
+        register(new ExpressionFactory(LexicalReferenceExp.class) {
+                public Expression create() { return new LexicalReferenceExp(); }
+            });
+        register(new ExpressionFactory(LocalReferenceExp.class) {
+                public Expression create() { return new LocalReferenceExp(); }
+            });
+        register(new ExpressionFactory(SetboxEval.class) {
+                public Expression create() { return new SetboxEval(); }
+            });
+        register(new ExpressionFactory(UnboxExp.class) {
+                public Expression create() { return new UnboxExp(); }
+            });
+        register(new ExpressionFactory(FixedAppExp_0.class) {
+                public Expression create() { return new FixedAppExp_0(); }
+            });
+        register(new ExpressionFactory(FixedAppExp_1.class) {
+                public Expression create() { return new FixedAppExp_1(); }
+            });
+        register(new ExpressionFactory(FixedAppExp_2.class) {
+                public Expression create() { return new FixedAppExp_2(); }
+            });
+        register(new ExpressionFactory(FixedAppExp_3.class) {
+                public Expression create() { return new FixedAppExp_3(); }
+            });
+        register(new ExpressionFactory(MemorySymEnv.class) {
+                public Expression create() { return new MemorySymEnv(); }
+            });
+        register(new ExpressionFactory(DelegatingSymEnv.class) {
+                public Expression create() { return new DelegatingSymEnv(); }
+            });
+        register(new ExpressionFactory(SchemeParameter.class) {
+                public Expression create() { return new SchemeParameter(); }
+            });
+        register(new ExpressionFactory(ConfigParameter.class) {
+                public Expression create() { return new ConfigParameter(); }
+            });
+        register(new ExpressionFactory(NativeParameter.class) {
+                public Expression create() { return new NativeParameter(); }
+            });
+        register(new ExpressionFactory(Syntax.class) {
+                public Expression create() { return new Syntax(); }
+            });
+        register(new ExpressionFactory(LibraryAE.class) {
+                public Expression create() { return new LibraryAE(); }
+            });
+        register(new ExpressionFactory(Primitives.Simple.class) {
+                public Expression create() { return new Primitives.Simple(); }
+            });
+        register(new ExpressionFactory(Primitives.Complex.class) {
+                public Expression create() { return new Primitives.Complex(); }
+            });
+    }
+
+    private static void register(ExpressionFactory f) {
+        builtinByClass.put(f.getType(), f);
+    }
+
+    protected final Class type;
+
+    protected ExpressionFactory(Class type) {
+        this.type=type;
+    }
+
+    /**
+     * The class of the expressions created by this factory.
+     */
+    public Class getType() {
+        return type;
+    }
+
+    public abstract Expression create() throws IOException;
+
+    /**
+     * Returns a factory for the given class of expressions.
+     */
+    public static ExpressionFactory forClass(Class c) {
+        ExpressionFactory f=(ExpressionFactory)builtinByClass.get(c);
+        return (f == null ? new Reflective(c) : f);
+    }
+
+    static class Reflective extends ExpressionFactory {
+
+        Reflective(Class type) {
+            super(type);
+        }
+
+        public Expression create() throws IOException {
+            try {
+                return (Expression)type.newInstance();
+            } catch (InstantiationException ie) {
+                ie.printStackTrace();
+                throw new IOException(ie.getMessage());
+            } catch (IllegalAccessException iae) {
+                iae.printStackTrace();
+                throw new IOException(iae.getMessage());
+            }
+        }
+    }
+}
+/*
+ * The contents of this file are subject to the Mozilla Public
+ * License Version 1.1 (the "License"); you may not use this file
+ * except in compliance with the License. You may obtain a copy of
+ * the License at http://www.mozilla.org/MPL/
+ * 
+ * Software distributed under the License is distributed on an "AS
+ * IS" basis, WITHOUT WARRANTY OF ANY KIND, either express or
+ * implied. See the License for the specific language governing
+ * rights and limitations under the License.
+ * 
+ * The Original Code is the Second Interpreter of Scheme Code (SISC).
+ * 
+ * The Initial Developer of the Original Code is Scott G. Miller.
+ * Portions created by Scott G. Miller are Copyright (C) 2000-2007
+ * Scott G. Miller.  All Rights Reserved.
+ * 
+ * Contributor(s):
+ * 
+ * Alternatively, the contents of this file may be used under the
+ * terms of the GNU General Public License Version 2 or later (the
+ * "GPL"), in which case the provisions of the GPL are applicable 
+ * instead of those above.  If you wish to allow use of your 
+ * version of this file only under the terms of the GPL and not to
+ * allow others to use your version of this file under the MPL,
+ * indicate your decision by deleting the provisions above and
+ * replace them with the notice and other provisions required by
+ * the GPL.  If you do not delete the provisions above, a recipient
+ * may use your version of this file under either the MPL or the
+ * GPL.
+ */
@@ -9,7 +9,14 @@ import sisc.util.Util;
 import sisc.interpreter.Context;
 
 public class Library extends Util {
-    static final String LIBRARY_VERSION="SLL4";
+    static final String LIBRARY_VERSION="SLL5";
+    static final String SLL4_VERSION="SLL4";
+
+    /**
+     * SLL5 header flag: the data segment is stored as a sequence of
+     * deflated blocks.
+     */
+    static final int COMPRESSED=1;
     
     protected String name;
     protected BlockDeserializer lib;
@@ -18,7 +25,7 @@ public class Library extends Util {
     public static Library load(AppContext ctx, URL u) throws IOException, ClassNotFoundException {
         if (u.getProtocol().equalsIgnoreCase("file")) {
             String path=u.getPath();
-            return load(ctx, new SeekableDataInputStream(new BufferedRandomAccessInputStream(path, "r")));
+            return load(ctx, new SeekableDataInputStream(AppContext.openHeapFile(new File(path))));
         } else {
             return load(ctx, new SeekableDataInputStream(new MemoryRandomAccessInputStream(u.openStream())));
         }
@@ -26,14 +33,25 @@ public class Library extends Util {
        
     public static Library load(AppContext ctx, SeekableDataInputStream di) throws IOException, ClassNotFoundException {
         String libver=di.readUTF();
-        if (!libver.equals(LIBRARY_VERSION))
+        String[] pool=null;
+        int flags=0;
+        if (libver.equals(LIBRARY_VERSION)) {
+            pool=new String[0];
+        } else if (!libver.equals(SLL4_VERSION))
             throw new IOException(liMessage(SISCB, "unsuplib"));
 
         String libname=di.readUTF();
+        if (pool!=null) {
+            flags=BerEncoding.readBer(di);
+            pool=new String[BerEncoding.readBer(di)];
+            for (int i=0; i<pool.length; i++) {
+                pool[i]=di.readUTF();
+            }
+        }
         int classCount=BerEncoding.readBer(di);
-        Map classes=new HashMap(classCount);
+        Class[] classes=new Class[classCount];
         for (int i=0; i<classCount; i++) {
-            classes.put(new Integer(i), Class.forName(di.readUTF()));
+            classes[i]=Class.forName(readString(di, pool));
         }
 
         int socount=BlockDeserializer.readBer(di);
@@ -48,12 +66,20 @@ public class Library extends Util {
         }
         int symtableLength=BlockDeserializer.readBer(di);
         for (int i=0; i<symtableLength; i++) {
-            String s=di.readUTF();
+            String s=readString(di, pool);
             int ep=BlockDeserializer.readBer(di);
             names.put(Symbol.intern(s), new Integer(ep));
         }
 
-        return new Library(libname, new BlockDeserializer(ctx, di, classes, sharedObjectOffsets, sharedObjectSizes), names);
+        if ((flags & COMPRESSED)!=0) {
+            di=new SeekableDataInputStream(new CompressedRandomAccessInputStream(di));
+        }
+        return new Library(libname, new BlockDeserializer(ctx, di, classes, sharedObjectOffsets, sharedObjectSizes, pool), names);
+    }
+
+    private static String readString(SeekableDataInputStream di, String[] pool)
+        throws IOException {
+        return (pool==null ? di.readUTF() : pool[BerEncoding.readBer(di)]);
     }
         
     public Library(String name, BlockDeserializer lib, Map names) {
@@ -93,6 +119,57 @@ public class Library extends Util {
         return rv;
     }
 
+    /**
+     * Deserializes every shared object that has not been read yet.
+     * Objects are normally materialized on demand, when a binding is
+     * first resolved; this lets a background thread do that work
+     * ahead of time.  The library is locked for one object at a
+     * time, so that on-demand lookups are never held up for long.
+     * Objects which cannot be read are skipped; they will fail again
+     * if anything actually refers to them.
+     */
+    public void preload() {
+        for (int i=0; i<lib.alreadyReadObjects.length; i++) {
+            if (lib.alreadyReadObjects[i]!=null) continue;
+            try {
+                lib.fetchShared(i);
+            } catch (IOException e) {
+            } catch (RuntimeException e) {}
+            Thread.yield();
+        }
+    }
+
+    /**
+     * Switches every environment read from this library so far over
+     * to "observe" mode.
+     *
+     * @return true if any environment was switched
+     */
+    boolean observe(LibraryBuilder lb) {
+        boolean res=false;
+        //loading the bindings of an environment can read further
+        //environments, at indices already passed, so repeat until a
+        //pass finds none
+        for (boolean switched=true; switched;) {
+            switched=false;
+            Expression[] objs=lib.alreadyReadObjects;
+            for (int i=0; i<objs.length; i++) {
+                if (objs[i] instanceof LibraryAE &&
+                    ((LibraryAE)objs[i]).observe(lb))
+                    switched=true;
+            }
+            res|=switched;
+        }
+        return res;
+    }
+
+    /**
+     * Returns a digest of the contents of this library.
+     */
+    public byte[] getDigest() throws IOException {
+        return lib.digest();
+    }
+
     public String getName() {
         return name;
     }
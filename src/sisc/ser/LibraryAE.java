@@ -41,7 +41,7 @@ public class LibraryAE extends MemorySymEnv {
     public LibraryAE(Symbol name, LibraryBuilder lb) {
         super(name);
         this.lb=lb;
-        bindWatch=new HashSet();
+        bindWatch=Collections.synchronizedSet(new HashSet());
     }
 
 
@@ -54,7 +54,7 @@ public class LibraryAE extends MemorySymEnv {
     public LibraryAE(SymbolicEnvironment parent, LibraryBuilder lb) {
         this.parent=parent;
         this.lb=lb;
-        bindWatch=new HashSet();
+        bindWatch=Collections.synchronizedSet(new HashSet());
     }
 
     
@@ -85,6 +85,34 @@ public class LibraryAE extends MemorySymEnv {
         addressMap.put(sym, new LibraryBinding(lib, ep));
     }
 
+    /**
+     * Switch from "retrieve" to "observe" mode.  Every binding is
+     * first loaded from the library, so that serializing this SymEnv
+     * afterwards writes out all of its bindings rather than entry
+     * points into the library it was read from.
+     *
+     * @param lb the library serializer
+     * @return false if this SymEnv was already in "observe" mode
+     */
+    public synchronized boolean observe(LibraryBuilder lb) {
+        if (base == null) return false;
+        for (Iterator i=addressMap.keySet().iterator(); i.hasNext();) {
+            getLoc((Symbol)i.next());
+        }
+        loadParent();
+        bindWatch=Collections.synchronizedSet(new HashSet());
+        for (Iterator i=symbolMap.keySet().iterator(); i.hasNext();) {
+            Symbol key=(Symbol)i.next();
+            if (addressMap.containsKey(key) || !isInherited(key))
+                bindWatch.add(key);
+        }
+        this.lb=lb;
+        base=null;
+        addressMap=null;
+        parentIdx=-1;
+        return true;
+    }
+
     public void undefine(Symbol s) {
         if (bindWatch != null) bindWatch.remove(s);
         super.undefine(s);
@@ -101,9 +129,13 @@ public class LibraryAE extends MemorySymEnv {
     }
 
     public int getLoc(Symbol s) {
-        synchronized(symbolMap) {
-            //already loaded?
-            Integer i = (Integer)symbolMap.get(s);
+        //already loaded?
+        Integer i = (Integer)symbolMap.get(s);
+        if (i!=null) return i.intValue();
+        //serialize loading from the library so each binding is only
+        //deserialized once
+        synchronized(this) {
+            i = (Integer)symbolMap.get(s);
             if (i!=null) return i.intValue();
             //present in this AE?
             
@@ -111,8 +143,9 @@ public class LibraryAE extends MemorySymEnv {
                 LibraryBinding b=(LibraryBinding)addressMap.get(s);
                 if (b!=null) {
                     try {
-                        return store(s, 
-                                     (Value)b.lib.getExpression(b.entryPoint));
+                        return bind(s, 
+                                    (Value)b.lib.getExpression(b.entryPoint),
+                                    false);
                     } catch (IOException e) {
                         e.printStackTrace();
                     }
@@ -123,7 +156,7 @@ public class LibraryAE extends MemorySymEnv {
             if (parent == null) return -1;
             Value v = parent.lookup(s);
             if (v == null) return -1;
-            return store(s, v);
+            return bind(s, v, false, true);
         }
     }
     
@@ -134,9 +167,10 @@ public class LibraryAE extends MemorySymEnv {
      * @param v the value associated with the key
      * @return index of binding
      */
-    public int store(Symbol s, Value v) {
+    protected int bind(Symbol s, Value v, boolean replace,
+                       boolean inherit) {
         if (bindWatch != null) bindWatch.add(s);
-        return super.store(s, v);
+        return super.bind(s, v, replace, inherit);
     }
 
     public LibraryAE() {}
@@ -2,6 +2,7 @@ package sisc.ser;
 
 import java.util.*;
 import java.io.*;
+import java.util.zip.Deflater;
 import sisc.data.*;
 import sisc.env.SymbolicEnvironment;
 import sisc.interpreter.AppContext;
@@ -20,7 +21,14 @@ public class LibraryBuilder extends BerEncoding implements ExpressionVisitor {
     int dupid=0;
     LinkedList entryPoints, newEntryPoints, serQueue;
     Map names; 
-    boolean includeAEs;
+    boolean includeAEs, compressed;
+
+    /**
+     * Size of the blocks the data segment is split into when
+     * compression is enabled.  Each block is deflated separately,
+     * so this bounds the amount inflated to fetch one object.
+     */
+    static final int BLOCK_SIZE=32768;
 
     public LibraryBuilder() {
         this(null);
@@ -45,6 +53,14 @@ public class LibraryBuilder extends BerEncoding implements ExpressionVisitor {
         this.ctx=ctx;
     }
 
+    /**
+     * Sets whether the data segment of libraries built by this
+     * builder is compressed.
+     */
+    public void setCompressed(boolean c) {
+        compressed=c;
+    }
+
     /**
      * Add an entry point.
      *
@@ -108,7 +124,7 @@ public class LibraryBuilder extends BerEncoding implements ExpressionVisitor {
                         }
                     } else {
                         seen.add(e);
-                        classes.add(e.getClass());
+                        classes.add(SLL2Serializer.serialClass(e));
                         if (e instanceof SymbolicEnvironment) {
                             if (includeAEs || (e.getName()==null))
                                 e.visit(this);
@@ -149,11 +165,30 @@ public class LibraryBuilder extends BerEncoding implements ExpressionVisitor {
         
         //Pass 3
         System.err.println("Pass 3: Write index");
+        int[] classIndices=new int[classv.size()];
+        for (int i=0; i<classv.size(); i++) {
+            classIndices[i]=ss.poolIndex(((Class)classv.elementAt(i)).getName());
+        }
+        int[] nameIndices=new int[names.size()];
+        int[] nameEps=new int[names.size()];
+        x=0;
+        for (Iterator i=names.keySet().iterator(); i.hasNext(); x++) {
+            Symbol s=(Symbol)i.next();
+            nameIndices[x]=ss.poolIndex(s.symval);
+            nameEps[x]=((Integer)names.get(s)).intValue();
+        }
+
         datout.writeUTF(Library.LIBRARY_VERSION);
         datout.writeUTF(name);
-        writeBer(classes.size(), datout);
-        for (int i=0; i<classv.size(); i++) {
-            datout.writeUTF(((Class)classv.elementAt(i)).getName());
+        writeBer(compressed ? Library.COMPRESSED : 0, datout);
+        Vector pool=ss.getPool();
+        writeBer(pool.size(), datout);
+        for (int i=0; i<pool.size(); i++) {
+            datout.writeUTF((String)pool.elementAt(i));
+        }
+        writeBer(classIndices.length, datout);
+        for (int i=0; i<classIndices.length; i++) {
+            writeBer(classIndices[i], datout);
         }
 
         int[] offsets=ss.getOffsets();
@@ -164,22 +199,26 @@ public class LibraryBuilder extends BerEncoding implements ExpressionVisitor {
             writeBer(offsets[i], datout);
             writeBer(sizes[i], datout);
         };
-        writeBer(names.size(), datout);
-        for (Iterator i=names.keySet().iterator(); i.hasNext();) {
-            Symbol s=(Symbol)i.next();
-            datout.writeUTF(s.symval);
-            writeBer(((Integer)names.get(s)).intValue(), datout);
+        writeBer(nameIndices.length, datout);
+        for (int i=0; i<nameIndices.length; i++) {
+            writeBer(nameIndices[i], datout);
+            writeBer(nameEps[i], datout);
         }
         
         //Pass 4
         System.err.println("Pass 4: Append data segment");
-        BufferedInputStream in=new BufferedInputStream(new FileInputStream(tempFile));
-        int rc=0;
-        byte[] buffer=new byte[65536];
-        while (-1!=(rc=in.read(buffer))) {
-            if (rc>0)
-                datout.write(buffer, 0, rc);
+        InputStream in=new BufferedInputStream(new FileInputStream(tempFile));
+        if (compressed) {
+            writeCompressed(in, tempFile.length(), datout);
+        } else {
+            int rc=0;
+            byte[] buffer=new byte[65536];
+            while (-1!=(rc=in.read(buffer))) {
+                if (rc>0)
+                    datout.write(buffer, 0, rc);
+            }
         }
+        in.close();
         datout.flush();
 
         System.err.println(classes.size()+" classes");
@@ -187,6 +226,44 @@ public class LibraryBuilder extends BerEncoding implements ExpressionVisitor {
         return null;
     }
 
+    /**
+     * Writes the data segment as independently deflated blocks,
+     * preceded by the block size, the uncompressed length and the
+     * compressed size of each block.
+     *
+     * @see CompressedRandomAccessInputStream
+     */
+    static void writeCompressed(InputStream in, long length,
+                                DataOutputStream datout) throws IOException {
+        int blockCount=(int)((length+BLOCK_SIZE-1)/BLOCK_SIZE);
+        ByteArrayOutputStream blocks=new ByteArrayOutputStream();
+        int[] csizes=new int[blockCount];
+        byte[] buffer=new byte[BLOCK_SIZE];
+        byte[] cbuffer=new byte[BLOCK_SIZE];
+        Deflater def=new Deflater(Deflater.BEST_COMPRESSION);
+        for (int b=0; b<blockCount; b++) {
+            int len=(int)Math.min(BLOCK_SIZE, length-(long)b*BLOCK_SIZE);
+            new DataInputStream(in).readFully(buffer, 0, len);
+            def.reset();
+            def.setInput(buffer, 0, len);
+            def.finish();
+            while (!def.finished()) {
+                int rc=def.deflate(cbuffer);
+                blocks.write(cbuffer, 0, rc);
+                csizes[b]+=rc;
+            }
+        }
+        def.end();
+
+        writeBer(BLOCK_SIZE, datout);
+        writeBer(length, datout);
+        writeBer(blockCount, datout);
+        for (int b=0; b<blockCount; b++) {
+            writeBer(csizes[b], datout);
+        }
+        blocks.writeTo(datout);
+    }
+
     /*---Serialization first pass functions---*/
     public boolean visit(ExpressionVisitee e) {
         if (e!=null) {
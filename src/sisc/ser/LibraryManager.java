@@ -3,6 +3,7 @@ package sisc.ser;
 import java.net.URL;
 import java.net.MalformedURLException;
 import java.io.*;
+import java.security.MessageDigest;
 import java.util.*;
 import sisc.util.Util;
 import sisc.data.Expression;
@@ -87,6 +88,42 @@ public class LibraryManager extends Util {
         return null;
     }
 
+    /**
+     * Switches the environments loaded from the open libraries over
+     * to recording their bindings in the given builder, so that a
+     * heap written with it does not refer back to these libraries.
+     *
+     * @see LibraryAE#observe(LibraryBuilder)
+     */
+    public void observe(LibraryBuilder lb) {
+        //environments of one library may refer to those of another
+        for (boolean switched=true; switched;) {
+            switched=false;
+            for (Iterator i=loadedLibraries.values().iterator(); i.hasNext();) {
+                Library l=((LoadableLibrary)i.next()).handle;
+                if (l!=null && l.observe(lb)) switched=true;
+            }
+        }
+    }
+
+    /**
+     * Returns a digest of the names and digests of the open
+     * libraries, taken in order of their names.
+     */
+    public byte[] digest() throws IOException {
+        MessageDigest md=BlockDeserializer.sha1();
+        for (Iterator i=new TreeMap(loadedLibraries).entrySet().iterator();
+             i.hasNext();) {
+            Map.Entry entry=(Map.Entry)i.next();
+            Library l=((LoadableLibrary)entry.getValue()).handle;
+            if (l==null) continue;
+            md.update(((String)entry.getKey()).getBytes("UTF-8"));
+            md.update((byte)0);
+            md.update(l.getDigest());
+        }
+        return md.digest();
+    }
+
     public void addLibrary(Library l) {
         loadedLibraries.put(l.getName(), new LoadableLibrary(l));
     }
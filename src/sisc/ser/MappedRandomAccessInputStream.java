@@ -0,0 +1,102 @@
+package sisc.ser;
+
+import java.io.*;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+
+import sisc.util.Util;
+
+/**
+ * A SeekableInputStream over a file mapped into memory.
+ * <p>
+ * Unlike {@link BufferedRandomAccessInputStream} no data is copied
+ * into Java buffers, and unlike {@link MemoryRandomAccessInputStream}
+ * the file is not read up front: pages are faulted in by the OS as
+ * they are touched, and they live in the page cache, where they are
+ * shared by all processes mapping the same heap.
+ * </p>
+ * The file can be at most 2GB in size.
+ */
+public class MappedRandomAccessInputStream extends SeekableInputStream {
+
+    protected MappedByteBuffer buf;
+
+    public MappedRandomAccessInputStream(File f) throws IOException {
+        RandomAccessFile raf=new RandomAccessFile(f, "r");
+        try {
+            FileChannel ch=raf.getChannel();
+            buf=ch.map(FileChannel.MapMode.READ_ONLY, 0, ch.size());
+        } finally {
+            //the mapping remains valid after the file is closed
+            raf.close();
+        }
+    }
+
+    /**
+     * @exception IOException if <tt>pos</tt> is negative or past the
+     * end of the file
+     */
+    public void seek(long pos) throws IOException {
+        if (pos < 0 || pos > buf.limit())
+            throw new IOException(Util.liMessage(Util.SISCB, "invalidseek",
+                                                 Long.toString(pos)));
+        buf.position((int)pos);
+    }
+
+    public long getFilePointer() throws IOException {
+        return buf.position();
+    }
+
+    public int read() throws IOException {
+        if (!buf.hasRemaining()) return -1;
+        return buf.get() & 0xff;
+    }
+
+    public int read(byte[] b, int off, int len) throws IOException {
+        int rc=Math.min(len, buf.remaining());
+        if (rc==0 && len>0) return -1;
+        buf.get(b, off, rc);
+        return rc;
+    }
+
+    public long skip(long n) throws IOException {
+        int rc=(int)Math.max(0, Math.min(n, buf.remaining()));
+        buf.position(buf.position()+rc);
+        return rc;
+    }
+
+    public int available() throws IOException {
+        return buf.remaining();
+    }
+}
+/*
+ * The contents of this file are subject to the Mozilla Public
+ * License Version 1.1 (the "License"); you may not use this file
+ * except in compliance with the License. You may obtain a copy of
+ * the License at http://www.mozilla.org/MPL/
+ * 
+ * Software distributed under the License is distributed on an "AS
+ * IS" basis, WITHOUT WARRANTY OF ANY KIND, either express or
+ * implied. See the License for the specific language governing
+ * rights and limitations under the License.
+ * 
+ * The Original Code is the Second Interpreter of Scheme Code (SISC).
+ * 
+ * The Initial Developer of the Original Code is Scott G. Miller.
+ * Portions created by Scott G. Miller are Copyright (C) 2000-2007
+ * Scott G. Miller.  All Rights Reserved.
+ * 
+ * Contributor(s):
+ * 
+ * Alternatively, the contents of this file may be used under the
+ * terms of the GNU General Public License Version 2 or later (the
+ * "GPL"), in which case the provisions of the GPL are applicable 
+ * instead of those above.  If you wish to allow use of your 
+ * version of this file only under the terms of the GPL and not to
+ * allow others to use your version of this file under the MPL,
+ * indicate your decision by deleting the provisions above and
+ * replace them with the notice and other provisions required by
+ * the GPL.  If you do not delete the provisions above, a recipient
+ * may use your version of this file under either the MPL or the
+ * GPL.
+ */
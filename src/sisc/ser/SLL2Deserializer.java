@@ -58,17 +58,13 @@ public abstract class SLL2Deserializer extends DeserializerImpl {
               Expression e = InternedValue.deserResolve(name, clazz);
               return deserializeDetails(flush, definingOid, e);
           case 0: //ordinary expressions
-              clazz=readClass();
-              try {
-                  e = (Expression)clazz.newInstance();
-              } catch (InstantiationException ie) {
-                  ie.printStackTrace();
-                  throw new IOException(ie.getMessage());
-              } catch (IllegalAccessException iae) {
-                  iae.printStackTrace();
-                  throw new IOException(iae.getMessage());
+              ExpressionFactory f=readFactory();
+              if (f.getType()==Quantity.class) {
+                  e = Quantity.readQuantity(this);
+                  recordReadObject(definingOid, e);
+                  return e;
               }
-              return deserializeDetails(flush, definingOid, e);
+              return deserializeDetails(flush, definingOid, f.create());
           case 1: //null
               return null;
           case 4:
@@ -102,6 +98,14 @@ public abstract class SLL2Deserializer extends DeserializerImpl {
     }
     
     abstract protected Expression fetchShared(int oid) throws IOException;
+
+    /**
+     * Reads a class reference, returning a factory for instances of
+     * the class.
+     */
+    protected ExpressionFactory readFactory() throws IOException {
+        return ExpressionFactory.forClass(readClass());
+    }
     
     public SymbolicEnvironment readSymbolicEnvironment() throws IOException {
         Expression e=readExpression();
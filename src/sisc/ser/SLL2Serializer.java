@@ -3,6 +3,7 @@ package sisc.ser;
 import java.io.*;
 import java.util.*;
 import sisc.data.Expression;
+import sisc.data.Quantity;
 import sisc.data.Singleton;
 import sisc.data.Value;
 import sisc.interpreter.AppContext;
@@ -127,6 +128,15 @@ public abstract class SLL2Serializer extends SerializerImpl {
         writeInt(posi);
     }
     
+    /**
+     * The class recorded for an expression in a serialized heap.  All
+     * numbers are recorded as Quantity, which reads back whichever
+     * representation fits the value.
+     */
+    public static Class serialClass(Expression e) {
+        return (e instanceof Quantity ? Quantity.class : e.getClass());
+    }
+
     private boolean writeExpressionSerialization(Expression e, SerJobEnd end, boolean flush) throws IOException {
         if (e instanceof Value) {
             InternedValue iv = InternedValue.lookupByValue((Value)e);
@@ -139,7 +149,7 @@ public abstract class SLL2Serializer extends SerializerImpl {
         } else {
             writeInt(0);
         }
-        writeClass(e.getClass());
+        writeClass(serialClass(e));
         if (e instanceof Singleton) {
             e.serialize(this);
             return true;
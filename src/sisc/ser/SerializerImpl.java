@@ -19,9 +19,16 @@ public abstract class SerializerImpl extends BerEncoding implements Serializer {
         datout = out;
     }
 
+    /**
+     * Returns the library entry point by which to refer to an
+     * expression, or null to write it out in full.  Without an
+     * AppContext there are no libraries to refer to, which is how
+     * self-contained heaps are written.
+     */
     public LibraryBinding lookupLibraryBinding(Expression e)
         throws IOException {
 
+        if (ctx == null) return null;
         return ctx.lookupBinding(e);
     }
 
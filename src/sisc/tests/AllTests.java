@@ -18,6 +18,11 @@ public class AllTests
         //$JUnit-BEGIN$
         suite.addTestSuite(UtilTest.class);
         suite.addTestSuite(TestR5RS.class);
+        suite.addTestSuite(SnapshotTest.class);
+        suite.addTestSuite(ParallelTest.class);
+        suite.addTestSuite(ReaderTest.class);
+        suite.addTestSuite(NumberTest.class);
+        suite.addTestSuite(HashtableTest.class);
         //$JUnit-END$
         return suite;
     }
@@ -0,0 +1,658 @@
+package sisc.tests;
+
+import java.io.*;
+import java.lang.reflect.Method;
+import java.net.URL;
+import java.util.*;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import sisc.data.*;
+import sisc.interpreter.*;
+import sisc.reader.*;
+import sisc.util.Util;
+
+/**
+ * A small benchmark harness for the interpreter.
+ * <p>
+ * Boots an AppContext from a heap (by default the bundled
+ * <tt>sisc.shp</tt>), defines each workload as a thunk and then
+ * repeatedly applies that thunk through {@link Interpreter#eval(Procedure,
+ * Value[])}, so that only the trampoline, the frame pool and the
+ * primitives are measured, not the reader or the compiler.
+ * </p>
+ * <p>
+ * For every workload the harness reports the mean time per operation,
+ * the throughput and, where the VM exposes per-thread allocation
+ * counters (HotSpot's <tt>com.sun.management.ThreadMXBean</tt>), the
+ * number of bytes allocated per operation.  On VMs without such
+ * counters (e.g. Dalvik) the allocation column is reported as
+ * <tt>n/a</tt>.
+ * </p>
+ * <p>
+ * The <tt>execute-tiny</tt> and <tt>pooled-tiny</tt> benchmarks
+ * instead measure a tiny evaluation from Java including entering and
+ * exiting the context, without and with an {@link InterpreterPool}.
+ * </p>
+ * <p>
+ * The <tt>parse</tt>, <tt>parse-unbuffered</tt> and
+ * <tt>parse-parallel</tt> benchmarks measure the reader alone,
+ * parsing s-expression data through a {@link BufferedPushbackReader},
+ * through a plain PushbackReader and through a {@link ParallelReader}
+ * with a thread per processor respectively, and also report the
+ * throughput in MB/s.  The data is generated, unless a file with one
+ * datum per line is given with <tt>-f</tt>, which is then parsed
+ * once.
+ * </p>
+ * Usage:
+ * <pre>
+ *   java sisc.tests.Benchmarks [-h heap-url] [-w warmup] [-i iterations] [-f parse-file] [workload ...]
+ * </pre>
+ */
+public class Benchmarks
+{
+    /**
+     * A named benchmark.  <tt>setup</tt> is evaluated once, and must
+     * define a nullary procedure named <tt>thunk</tt>, which is
+     * applied once per operation.
+     */
+    public static class Workload
+    {
+        public final String name;
+        public final String setup;
+        public final String thunk;
+
+        public Workload(String name, String setup, String thunk)
+        {
+            this.name = name;
+            this.setup = setup;
+            this.thunk = thunk;
+        }
+    }
+
+    /**
+     * Setup for a generator walking a 1000 element list, built on the
+     * continuation capturing procedure <tt>callcc</tt>, and a
+     * consumer summing its values.  Defines <tt>bench-<i>name</i></tt>.
+     */
+    private static String generator(String name, String callcc)
+    {
+        return "(define (make-" + name + " lst)"
+            + "  (define return #f)"
+            + "  (define resume #f)"
+            + "  (lambda ()"
+            + "    (" + callcc + " (lambda (r)"
+            + "      (set! return r)"
+            + "      (if resume"
+            + "          (resume #f)"
+            + "          (begin"
+            + "            (for-each (lambda (x)"
+            + "                        (" + callcc + " (lambda (k)"
+            + "                          (set! resume k)"
+            + "                          (return x))))"
+            + "                      lst)"
+            + "            (return 'done)))))))"
+            + "(define gen-list"
+            + "  (let loop ((i 0) (l '()))"
+            + "    (if (= i 1000) l (loop (+ i 1) (cons i l)))))"
+            + "(define (bench-" + name + ")"
+            + "  (let ((g (make-" + name + " gen-list)))"
+            + "    (let loop ((sum 0))"
+            + "      (let ((v (g)))"
+            + "        (if (eq? v 'done) sum (loop (+ sum v)))))))";
+    }
+
+    /**
+     * Setup for putting and then getting 1000 symbols in a table made
+     * with the given arguments to <tt>make-hashtable</tt>.  Defines
+     * <tt>bench-<i>name</i></tt>.
+     */
+    private static String hashtable(String name, String args)
+    {
+        return "(import hashtable)"
+            + "(define " + name + "-keys"
+            + "  (let loop ((i 0) (l '()))"
+            + "    (if (= i 1000) l"
+            + "        (loop (+ i 1)"
+            + "              (cons (string->symbol (number->string i)) l)))))"
+            + "(define (bench-" + name + ")"
+            + "  (let ((h (make-hashtable " + args + ")))"
+            + "    (for-each (lambda (k) (hashtable/put! h k k))"
+            + "              " + name + "-keys)"
+            + "    (let loop ((l " + name + "-keys) (n 0))"
+            + "      (if (null? l) n"
+            + "          (loop (cdr l)"
+            + "                (if (hashtable/get h (car l)) (+ n 1) n))))))";
+    }
+
+    public static final Workload[] WORKLOADS = new Workload[] {
+        new Workload("fib",
+                     "(define (fib n)"
+                     + "  (if (< n 2) n (+ (fib (- n 1)) (fib (- n 2)))))"
+                     + "(define (bench-fib) (fib 20))",
+                     "bench-fib"),
+        new Workload("tak",
+                     "(define (tak x y z)"
+                     + "  (if (not (< y x)) z"
+                     + "      (tak (tak (- x 1) y z)"
+                     + "           (tak (- y 1) z x)"
+                     + "           (tak (- z 1) x y))))"
+                     + "(define (bench-tak) (tak 18 12 6))",
+                     "bench-tak"),
+        new Workload("nqueens",
+                     "(define (nqueens n)"
+                     + "  (define (ok? row dist placed)"
+                     + "    (or (null? placed)"
+                     + "        (and (not (= (car placed) (+ row dist)))"
+                     + "             (not (= (car placed) (- row dist)))"
+                     + "             (ok? row (+ dist 1) (cdr placed)))))"
+                     + "  (define (try x y z)"
+                     + "    (if (null? x)"
+                     + "        (if (null? y) 1 0)"
+                     + "        (+ (if (ok? (car x) 1 z)"
+                     + "               (try (append (cdr x) y) '() (cons (car x) z))"
+                     + "               0)"
+                     + "           (try (cdr x) (cons (car x) y) z))))"
+                     + "  (define (iota1 n)"
+                     + "    (let loop ((i n) (l '()))"
+                     + "      (if (= i 0) l (loop (- i 1) (cons i l)))))"
+                     + "  (try (iota1 n) '() '()))"
+                     + "(define (bench-nqueens) (nqueens 8))",
+                     "bench-nqueens"),
+        new Workload("string-append",
+                     "(define (bench-string-append)"
+                     + "  (let loop ((i 0) (s \"\"))"
+                     + "    (if (= i 1000) (string-length s)"
+                     + "        (loop (+ i 1) (string-append s \"x\")))))",
+                     "bench-string-append"),
+        new Workload("callcc-generator",
+                     generator("callcc-generator", "call/cc"),
+                     "bench-callcc-generator"),
+        //binds the primitive directly, so that it can also be compared
+        //against heaps built before call/1cc existed
+        new Workload("oneshot-generator",
+                     "(define call/1cc"
+                     + "  (native-library-binding"
+                     + "    (load-native-library \"sisc.modules.Primitives$Index\")"
+                     + "    'call-with-one-shot-continuation))"
+                     + generator("oneshot-generator", "call/1cc"),
+                     "bench-oneshot-generator"),
+        new Workload("global-calls",
+                     "(define (g-inc x) (+ x 1))"
+                     + "(define (g-dec x) (- x 1))"
+                     + "(define (g-add2 x) (g-inc (g-inc x)))"
+                     + "(define (g-loop i acc)"
+                     + "  (if (= i 0) acc (g-loop (g-dec i) (g-add2 acc))))"
+                     + "(define (bench-global-calls) (g-loop 20000 0))",
+                     "bench-global-calls"),
+        new Workload("hashtable",
+                     "(import hashtable)"
+                     + "(define (bench-hashtable)"
+                     + "  (let ((h (make-hashtable)))"
+                     + "    (do ((i 0 (+ i 1))) ((= i 1000))"
+                     + "      (hashtable/put! h i (* i i)))"
+                     + "    (do ((i 0 (+ i 1)) (s 0 (+ s (hashtable/get h i 0))))"
+                     + "        ((= i 1000) (do ((i 0 (+ i 1))) ((= i 1000) s)"
+                     + "                      (hashtable/remove! h i))))))",
+                     "bench-hashtable"),
+        new Workload("hashtable-eq", hashtable("hashtable-eq", "eq? #f"),
+                     "bench-hashtable-eq"),
+        //user-supplied procedures, which are applied for every probe
+        new Workload("hashtable-user",
+                     hashtable("hashtable-user",
+                               "(lambda (x y) (eq? x y)) hash-by-eq #f"),
+                     "bench-hashtable-user"),
+        //calls String.indexOf(String) through the s2j primitive,
+        //without the generic procedure dispatch of (s2j reflection)
+        new Workload("java-invoke",
+                     "(define s2j-operations"
+                     + "  (load-native-library \"sisc.modules.s2j.Operation$Index\"))"
+                     + "(define s2j-reflection"
+                     + "  (load-native-library \"sisc.modules.s2j.Reflection$Index\"))"
+                     + "(define java-invoke-method"
+                     + "  (native-library-binding s2j-operations 'java/invoke-method))"
+                     + "(define java-invoke-index-of"
+                     + "  (let ((c ((native-library-binding s2j-operations 'java/class)"
+                     + "            '|java.lang.String|))"
+                     + "        (name (native-library-binding s2j-reflection 'java/name))"
+                     + "        (types (native-library-binding"
+                     + "                s2j-reflection 'java/parameter-types)))"
+                     + "    (let loop ((ms ((native-library-binding"
+                     + "                     s2j-reflection 'java/methods) c)))"
+                     + "      (if (and (eq? (name (car ms)) '|indexOf|)"
+                     + "               (equal? (types (car ms)) (list c)))"
+                     + "          (car ms)"
+                     + "          (loop (cdr ms))))))"
+                     + "(define java-invoke-jstring"
+                     + "  (native-library-binding"
+                     + "    (load-native-library \"sisc.modules.s2j.Conversion$Index\")"
+                     + "    '->jstring))"
+                     + "(define java-invoke-string"
+                     + "  (java-invoke-jstring \"the quick brown fox\"))"
+                     + "(define java-invoke-args (list (java-invoke-jstring \"fox\")))"
+                     + "(define (bench-java-invoke)"
+                     + "  (do ((i 0 (+ i 1))"
+                     + "       (r #f (java-invoke-method java-invoke-index-of"
+                     + "                                 java-invoke-string"
+                     + "                                 java-invoke-args)))"
+                     + "      ((= i 10000) r)))",
+                     "bench-java-invoke"),
+        new Workload("deep-recursion",
+                     "(define (count-up n)"
+                     + "  (if (= n 0) 0 (+ 1 (count-up (- n 1)))))"
+                     + "(define (bench-deep-recursion) (count-up 10000))",
+                     "bench-deep-recursion")
+    };
+
+    /**
+     * Workloads too slow to run by default; they are only run when
+     * named on the command line.
+     */
+    public static final Workload[] HEAVY_WORKLOADS = new Workload[] {
+        //run with -Dsisc.virtualThreads=true to measure virtual threads
+        new Workload("thread-spawn",
+                     "(import threading)"
+                     + "(define (bench-thread-spawn)"
+                     + "  (let loop ((i 0) (ts '()))"
+                     + "    (if (< i 100000)"
+                     + "        (let ((t (thread/new (lambda () i))))"
+                     + "          (thread/start t)"
+                     + "          (loop (+ i 1) (cons t ts)))"
+                     + "        (for-each thread/join ts))))",
+                     "bench-thread-spawn"),
+    };
+
+    private static Object threadBean;
+    private static Method allocatedBytes;
+
+    static
+    {
+        try {
+            Class mf = Class.forName("java.lang.management.ManagementFactory");
+            threadBean = mf.getMethod("getThreadMXBean", new Class[0])
+                .invoke(null, new Object[0]);
+            Class tb = Class.forName("com.sun.management.ThreadMXBean");
+            if (tb.isInstance(threadBean)) {
+                allocatedBytes = tb.getMethod("getThreadAllocatedBytes",
+                                              new Class[] {Long.TYPE});
+            }
+        } catch (Throwable t) {
+            allocatedBytes = null;
+        }
+    }
+
+    /**
+     * Returns the number of bytes allocated so far by the current
+     * thread, or -1 if the VM does not support allocation counting.
+     */
+    public static long allocatedBytes()
+    {
+        if (allocatedBytes == null) return -1;
+        try {
+            Object id = new Long(Thread.currentThread().getId());
+            return ((Long)allocatedBytes.invoke(threadBean,
+                                                new Object[] {id}))
+                .longValue();
+        } catch (Exception e) {
+            return -1;
+        }
+    }
+
+    /**
+     * The outcome of running a single workload.
+     */
+    public static class Result
+    {
+        public final String name;
+        public final int iterations;
+        public final long nanos;
+        public final long bytes;
+
+        public Result(String name, int iterations, long nanos, long bytes)
+        {
+            this.name = name;
+            this.iterations = iterations;
+            this.nanos = nanos;
+            this.bytes = bytes;
+        }
+
+        public double nanosPerOp()
+        {
+            return (double)nanos / iterations;
+        }
+
+        public double opsPerSecond()
+        {
+            return iterations * 1e9 / nanos;
+        }
+
+        public long bytesPerOp()
+        {
+            return (bytes < 0 ? -1 : bytes / iterations);
+        }
+
+        public String toString()
+        {
+            StringBuffer b = new StringBuffer();
+            b.append(pad(name, 24));
+            b.append(pad(String.valueOf(Math.round(nanosPerOp() / 1000)), 12));
+            b.append(pad(String.valueOf(Math.round(opsPerSecond())), 12));
+            b.append(bytes < 0 ? "n/a" : String.valueOf(bytesPerOp()));
+            return b.toString();
+        }
+    }
+
+    private static String pad(String s, int w)
+    {
+        StringBuffer b = new StringBuffer(s);
+        while (b.length() < w) b.append(' ');
+        return b.toString();
+    }
+
+    /**
+     * Boots a new AppContext from the given heap, or from the
+     * default heap if <tt>heap</tt> is null.
+     */
+    public static AppContext boot(URL heap)
+        throws IOException, ClassNotFoundException
+    {
+        AppContext ctx = new AppContext();
+        if (heap == null) {
+            ctx.addDefaultHeap();
+        } else if (!ctx.addHeap(AppContext.openHeap(heap))) {
+            throw new IOException(Util.liMessage(Util.SISCB,
+                                                 "errorloadingheap"));
+        }
+        return ctx;
+    }
+
+    /**
+     * Runs a workload in the given Interpreter, <tt>warmup</tt>
+     * times without measurement and then <tt>iterations</tt> times
+     * with measurement.
+     */
+    public static Result run(Interpreter r, Workload w,
+                             int warmup, int iterations)
+        throws IOException, SchemeException
+    {
+        r.eval(w.setup);
+        Procedure thunk = (Procedure)r.lookup(Symbol.get(w.thunk),
+                                              Util.TOPLEVEL);
+        for (int i = 0; i < warmup; i++) {
+            r.eval(thunk, Util.ZV);
+        }
+        long b0 = allocatedBytes();
+        long t0 = System.nanoTime();
+        for (int i = 0; i < iterations; i++) {
+            r.eval(thunk, Util.ZV);
+        }
+        long t1 = System.nanoTime();
+        long b1 = allocatedBytes();
+        return new Result(w.name, iterations, t1 - t0,
+                          (b0 < 0 || b1 < 0) ? -1 : b1 - b0);
+    }
+
+    /**
+     * Number of calls making up one iteration of an entry benchmark.
+     */
+    public static final int ENTRY_BATCH = 1000;
+
+    /**
+     * Measures the latency of a tiny evaluation from Java, including
+     * the cost of obtaining and releasing the Interpreter: through
+     * {@link Context#execute(AppContext, SchemeCaller)} when
+     * <tt>pool</tt> is null, through {@link
+     * Context#execute(InterpreterPool, SchemeCaller)} otherwise.  Must
+     * be called outside of any Interpreter for <tt>ctx</tt>, since
+     * execute would otherwise reuse that Interpreter's
+     * DynamicEnvironment.
+     */
+    public static Result runEntry(String name, AppContext ctx,
+                                  InterpreterPool pool,
+                                  int warmup, int iterations)
+        throws SchemeException
+    {
+        final Procedure plus = (Procedure)ctx.toplevel_env
+            .lookup(Symbol.get("+"));
+        SchemeCaller caller = new SchemeCaller() {
+                public Object execute(Interpreter r)
+                    throws SchemeException {
+                    //the interpreter may recycle the argument array
+                    return r.eval(plus, new Value[] {Quantity.ONE,
+                                                     Quantity.TWO});
+                }
+            };
+        for (int i = 0; i < warmup * ENTRY_BATCH; i++) {
+            if (pool == null) Context.execute(ctx, caller);
+            else Context.execute(pool, caller);
+        }
+        int calls = iterations * ENTRY_BATCH;
+        long b0 = allocatedBytes();
+        long t0 = System.nanoTime();
+        for (int i = 0; i < calls; i++) {
+            if (pool == null) Context.execute(ctx, caller);
+            else Context.execute(pool, caller);
+        }
+        long t1 = System.nanoTime();
+        long b1 = allocatedBytes();
+        return new Result(name, calls, t1 - t0,
+                          (b0 < 0 || b1 < 0) ? -1 : b1 - b0);
+    }
+
+    /**
+     * Approximate number of characters of data parsed per iteration
+     * of a parse benchmark.
+     */
+    public static final int PARSE_SIZE = 1 << 20;
+
+    /**
+     * Generates at least <tt>size</tt> characters of s-expression
+     * data, a mix of symbols, numbers, strings, characters and
+     * nested lists, with comments.
+     */
+    public static String parseData(int size)
+    {
+        StringBuffer b = new StringBuffer(size + 256);
+        for (int i = 0; b.length() < size; i++) {
+            if (i % 16 == 0) b.append("; record ").append(i).append('\n');
+            b.append("(record-").append(i % 97)
+                .append(' ').append(i)
+                .append(' ').append(-i * 7919 % 100003)
+                .append(' ').append(i / 8.0)
+                .append(" \"item number ").append(i).append('"')
+                .append(" (nested list #t #f #\\a . tail)")
+                .append(" #(1 2 3))\n");
+        }
+        return b.toString();
+    }
+
+    public static final int PARSE_BUFFERED = 0, PARSE_UNBUFFERED = 1,
+        PARSE_PARALLEL = 2;
+
+    public static final String[] PARSE_BENCHMARKS = new String[] {
+        "parse", "parse-unbuffered", "parse-parallel"
+    };
+
+    /**
+     * Parses <tt>source</tt>, a String or a File, to the end,
+     * <tt>warmup</tt> times without measurement and then
+     * <tt>iterations</tt> times with measurement.  Depending on
+     * <tt>mode</tt>, the data is read through a
+     * BufferedPushbackReader, through a PushbackReader over a
+     * BufferedReader, or through a {@link ParallelReader} using
+     * <tt>pool</tt>.
+     */
+    public static Result runParse(String name, Object source, int mode,
+                                  ExecutorService pool,
+                                  int warmup, int iterations)
+        throws IOException
+    {
+        Parser p = new Parser(new Lexer());
+        for (int i = 0; i < warmup; i++) {
+            parseAll(p, source, mode, pool);
+        }
+        long b0 = allocatedBytes();
+        long t0 = System.nanoTime();
+        for (int i = 0; i < iterations; i++) {
+            parseAll(p, source, mode, pool);
+        }
+        long t1 = System.nanoTime();
+        long b1 = allocatedBytes();
+        return new Result(name, iterations, t1 - t0,
+                          (b0 < 0 || b1 < 0) ? -1 : b1 - b0);
+    }
+
+    private static void parseAll(Parser p, Object source, int mode,
+                                 ExecutorService pool)
+        throws IOException
+    {
+        Reader in = (source instanceof File ?
+                     (Reader)new InputStreamReader(new FileInputStream((File)source),
+                                                   "UTF-8") :
+                     new StringReader((String)source));
+        try {
+            if (mode == PARSE_PARALLEL) {
+                ParallelReader pr = new ParallelReader(in, pool,
+                                                       parseThreads() * 2,
+                                                       p, 0);
+                while (pr.next() != Util.EOF);
+                return;
+            }
+            PushbackReader pin = (mode == PARSE_BUFFERED ?
+                                  new BufferedPushbackReader(in) :
+                                  new PushbackReader(new BufferedReader(in)));
+            try {
+                while (p.nextExpression(pin) != Util.EOF);
+            } catch (EOFException e) {
+            }
+        } finally {
+            in.close();
+        }
+    }
+
+    private static int parseThreads()
+    {
+        return Runtime.getRuntime().availableProcessors();
+    }
+
+    /**
+     * Returns the throughput of a parse benchmark over <tt>size</tt>
+     * bytes of data in MB/s.
+     */
+    public static double megabytesPerSecond(Result r, long size)
+    {
+        return r.opsPerSecond() * size / (1 << 20);
+    }
+
+    public static void main(String[] args) throws Exception
+    {
+        URL heap = null;
+        int warmup = 20;
+        int iterations = 50;
+        Set selected = new HashSet();
+        File parseFile = null;
+        for (int i = 0; i < args.length; i++) {
+            if (args[i].equals("-h")) {
+                heap = Util.makeURL(args[++i]);
+            } else if (args[i].equals("-f")) {
+                parseFile = new File(args[++i]);
+            } else if (args[i].equals("-w")) {
+                warmup = Integer.parseInt(args[++i]);
+            } else if (args[i].equals("-i")) {
+                iterations = Integer.parseInt(args[++i]);
+            } else {
+                selected.add(args[i]);
+            }
+        }
+
+        AppContext ctx = boot(heap);
+        Interpreter r = Context.enter(ctx);
+        try {
+            System.out.println(pad("workload", 24) + pad("us/op", 12)
+                               + pad("ops/s", 12) + "bytes/op");
+            for (int i = 0; i < WORKLOADS.length + HEAVY_WORKLOADS.length;
+                 i++) {
+                Workload w = (i < WORKLOADS.length ? WORKLOADS[i] :
+                              HEAVY_WORKLOADS[i - WORKLOADS.length]);
+                if (selected.isEmpty() ? i >= WORKLOADS.length
+                    : !selected.contains(w.name))
+                    continue;
+                try {
+                    System.out.println(run(r, w, warmup, iterations));
+                } catch (SchemeException se) {
+                    System.out.println(pad(w.name, 24) + "failed: "
+                                       + se.getMessage());
+                }
+            }
+        } finally {
+            Context.exit();
+        }
+
+        //entry benchmarks must run outside the Interpreter above
+        if (selected.isEmpty() || selected.contains("execute-tiny")) {
+            System.out.println(runEntry("execute-tiny", ctx, null,
+                                        warmup, iterations));
+        }
+        if (selected.isEmpty() || selected.contains("pooled-tiny")) {
+            System.out.println(runEntry("pooled-tiny", ctx,
+                                        new InterpreterPool(ctx),
+                                        warmup, iterations));
+        }
+        Object source = parseFile;
+        long size = (parseFile == null ? 0 : parseFile.length());
+        ExecutorService pool = null;
+        for (int i = 0; i < PARSE_BENCHMARKS.length; i++) {
+            String name = PARSE_BENCHMARKS[i];
+            if (!selected.isEmpty() && !selected.contains(name)) continue;
+            if (source == null) {
+                source = parseData(PARSE_SIZE);
+                size = ((String)source).length();
+            }
+            if (i == PARSE_PARALLEL) {
+                pool = Executors.newFixedThreadPool(parseThreads());
+            }
+            //a file is parsed once
+            Result pr = (parseFile != null ?
+                         runParse(name, source, i, pool, 0, 1) :
+                         runParse(name, source, i, pool,
+                                  Math.max(1, warmup / 10),
+                                  Math.max(1, iterations / 10)));
+            System.out.println(pr + "  "
+                               + Math.round(megabytesPerSecond(pr, size))
+                               + " MB/s");
+        }
+        if (pool != null) pool.shutdown();
+    }
+}
+
+/*
+ * The contents of this file are subject to the Mozilla Public
+ * License Version 1.1 (the "License"); you may not use this file
+ * except in compliance with the License. You may obtain a copy of
+ * the License at http://www.mozilla.org/MPL/
+ * 
+ * Software distributed under the License is distributed on an "AS
+ * IS" basis, WITHOUT WARRANTY OF ANY KIND, either express or
+ * implied. See the License for the specific language governing
+ * rights and limitations under the License.
+ * 
+ * The Original Code is the Second Interpreter of Scheme Code (SISC).
+ * 
+ * The Initial Developer of the Original Code is Scott G. Miller.
+ * Portions created by Scott G. Miller are Copyright (C) 2000-2007
+ * Scott G. Miller.  All Rights Reserved.
+ * 
+ * Contributor(s):
+ * 
+ * Alternatively, the contents of this file may be used under the
+ * terms of the GNU General Public License Version 2 or later (the
+ * "GPL"), in which case the provisions of the GPL are applicable 
+ * instead of those above.  If you wish to allow use of your 
+ * version of this file only under the terms of the GPL and not to
+ * allow others to use your version of this file under the MPL,
+ * indicate your decision by deleting the provisions above and
+ * replace them with the notice and other provisions required by
+ * the GPL.  If you do not delete the provisions above, a recipient
+ * may use your version of this file under either the MPL or the
+ * GPL.
+ */
@@ -0,0 +1,161 @@
+package sisc.tests;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+import junit.framework.TestCase;
+
+import sisc.data.Pair;
+import sisc.data.Procedure;
+import sisc.data.SchemeString;
+import sisc.data.Symbol;
+import sisc.data.Value;
+import sisc.modules.hashtable.EphemeronHashtable;
+import sisc.modules.hashtable.WeakHashtable;
+
+/**
+ * Tests the weak and ephemeron hashtables against a HashMap, and that
+ * they let go of their keys.
+ */
+public class HashtableTest extends TestCase
+{
+    private Procedure eq, equal, hashByEq, hashByEqual;
+
+    protected void setUp() throws Exception
+    {
+        sisc.modules.Primitives.Index prims =
+            new sisc.modules.Primitives.Index();
+        sisc.modules.hashtable.Primitives.Index hprims =
+            new sisc.modules.hashtable.Primitives.Index();
+        eq = (Procedure)prims.getBindingValue(null, Symbol.get("eq?"));
+        equal = (Procedure)prims.getBindingValue(null, Symbol.get("equal?"));
+        hashByEq = (Procedure)hprims.getBindingValue(null,
+                                                     Symbol.get("hash-by-eq"));
+        hashByEqual = (Procedure)hprims.getBindingValue(null,
+                                                        Symbol.get("hash-by-equal"));
+    }
+
+    /**
+     * Applies random puts, removes and gets with strongly held keys
+     * to a table and to a HashMap, and compares the results.
+     */
+    private void assertLikeHashMap(WeakHashtable t, boolean byEq)
+    {
+        Map m = new HashMap();
+        Random r = new Random(1);
+        Value[] keys = new Value[300];
+        for (int i = 0; i < keys.length; i++) {
+            keys[i] = new SchemeString("k" + i);
+        }
+        for (int i = 0; i < 100000; i++) {
+            int k = r.nextInt(keys.length);
+            //only the stored keys need to be held strongly
+            Value key = byEq ? keys[k] : new SchemeString("k" + k);
+            Value val = new SchemeString("v" + i);
+            Integer mk = new Integer(k);
+            switch (r.nextInt(4)) {
+            case 0:
+                assertSame(m.put(mk, val), t.put(keys[k], val));
+                break;
+            case 1:
+                assertSame(m.remove(mk), t.remove(key));
+                break;
+            case 2:
+                if (r.nextInt(1000) == 0) {
+                    t.clear();
+                    m.clear();
+                }
+                break;
+            default:
+                assertSame(m.get(mk), t.get(key));
+            }
+        }
+        assertEquals(m.size(), t.size());
+    }
+
+    public void testWeakHashtable()
+    {
+        assertLikeHashMap(new WeakHashtable(eq, hashByEq), true);
+        assertLikeHashMap(new WeakHashtable(equal, hashByEqual), false);
+    }
+
+    public void testEphemeronHashtable()
+    {
+        assertLikeHashMap(new EphemeronHashtable(eq, hashByEq), true);
+        assertLikeHashMap(new EphemeronHashtable(equal, hashByEqual), false);
+    }
+
+    public void testEphemeronsAreHidden()
+    {
+        Value key = new SchemeString("k");
+        EphemeronHashtable t = new EphemeronHashtable(eq, hashByEq);
+        t.put(key, key);
+        assertTrue(key.getAnnotationKeys().isEmpty());
+        assertSame(Pair.EMPTYLIST, key.getAnnotations());
+        t.remove(key);
+        assertTrue(key.annotations.isEmpty());
+    }
+
+    private static void collect() throws InterruptedException
+    {
+        System.gc();
+        Thread.sleep(50);
+    }
+
+    /**
+     * Fills a weak and an ephemeron table with keys whose values
+     * refer to them.  Only the ephemeron table may let them go.
+     */
+    public void testKeysReferencedByValues() throws Exception
+    {
+        WeakHashtable weak = new WeakHashtable(eq, hashByEq);
+        EphemeronHashtable eph = new EphemeronHashtable(eq, hashByEq);
+        Value kept = new SchemeString("kept");
+        eph.put(kept, new Pair(kept, kept));
+        for (int i = 0; i < 1000; i++) {
+            //separate keys, since the weak table keeps its own alive
+            Value k = new SchemeString("w" + i);
+            weak.put(k, new Pair(k, k));
+            k = new SchemeString("e" + i);
+            eph.put(k, new Pair(k, k));
+        }
+        for (int i = 0; i < 20 && eph.size() > 1; i++) {
+            collect();
+        }
+        assertEquals(1, eph.size());
+        assertEquals(1000, weak.size());
+        assertSame(kept, ((Pair)eph.get(kept)).car());
+    }
+}
+/*
+ * The contents of this file are subject to the Mozilla Public
+ * License Version 1.1 (the "License"); you may not use this file
+ * except in compliance with the License. You may obtain a copy of
+ * the License at http://www.mozilla.org/MPL/
+ * 
+ * Software distributed under the License is distributed on an "AS
+ * IS" basis, WITHOUT WARRANTY OF ANY KIND, either express or
+ * implied. See the License for the specific language governing
+ * rights and limitations under the License.
+ * 
+ * The Original Code is the Second Interpreter of Scheme Code (SISC).
+ * 
+ * The Initial Developer of the Original Code is Scott G. Miller.
+ * Portions created by Scott G. Miller are Copyright (C) 2000-2007
+ * Scott G. Miller.  All Rights Reserved.
+ * 
+ * Contributor(s):
+ * 
+ * Alternatively, the contents of this file may be used under the
+ * terms of the GNU General Public License Version 2 or later (the
+ * "GPL"), in which case the provisions of the GPL are applicable 
+ * instead of those above.  If you wish to allow use of your 
+ * version of this file only under the terms of the GPL and not to
+ * allow others to use your version of this file under the MPL,
+ * indicate your decision by deleting the provisions above and
+ * replace them with the notice and other provisions required by
+ * the GPL.  If you do not delete the provisions above, a recipient
+ * may use your version of this file under either the MPL or the
+ * GPL.
+ */
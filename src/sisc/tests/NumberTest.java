@@ -0,0 +1,222 @@
+package sisc.tests;
+
+import junit.framework.TestCase;
+
+import sisc.data.Bignum;
+import sisc.data.Compnum;
+import sisc.data.Fixnum;
+import sisc.data.Flonum;
+import sisc.data.Quantity;
+import sisc.data.Ratnum;
+import sisc.interpreter.AppContext;
+import sisc.interpreter.Context;
+import sisc.interpreter.Interpreter;
+import sisc.interpreter.SchemeException;
+
+/**
+ * Tests the numeric tower: the representation chosen for each
+ * number, promotion and narrowing at the fixnum bounds, and
+ * arithmetic and comparisons across representations.
+ */
+public class NumberTest extends TestCase
+{
+    //expressions and the printed forms of their values
+    private static final String[][] RESULTS = {
+        { "(+ 2147483647 1)", "2147483648" },
+        { "(- -2147483648 1)", "-2147483649" },
+        { "(* 65536 65536)", "4294967296" },
+        { "(- -2147483648)", "2147483648" },
+        { "(quotient -2147483648 -1)", "2147483648" },
+        { "(abs -2147483648)", "2147483648" },
+        { "(- 2147483648 1)", "2147483647" },
+        { "(+ 1/2 1/2)", "1" },
+        { "(+ 1/2 1/3)", "5/6" },
+        { "(* 2/3 3/2)", "1" },
+        { "(/ 6 4)", "3/2" },
+        { "(/ 6 -3)", "-2" },
+        { "(+ 1 0.5)", "1.5" },
+        { "(+ 1/2 0.5)", "1.0" },
+        { "(+ 100000000000000000000 0.5)", "1.0e20" },
+        { "(* 1+2i 1-2i)", "5.0" },
+        { "(+ 1/2 1+2i)", "1.5+2.0i" },
+        { "(/ 1/2 +2i)", "0.0-0.25i" },
+        { "(/ 1 0.)", "infinity.0" },
+        { "(- 100000000000000000000 100000000000000000000)", "0" },
+        { "(remainder -17 5)", "-2" },
+        { "(modulo -17 5)", "3" },
+        { "(modulo 100000000000000000000 7.)", "2.0" },
+        { "(gcd 100000000000000000000 10.)", "10.0" },
+        { "(lcm 4 6.)", "12.0" },
+        { "(expt 2 100)", "1267650600228229401496703205376" },
+        { "(exact->inexact 1/3)", "0.3333333333333333" },
+        { "(inexact->exact 0.5)", "1/2" },
+        { "(sqrt 16)", "4" },
+        { "(sqrt -4)", "0.0+2.0i" },
+        { "(max 1 2.0)", "2.0" },
+        { "(min 1/2 1/3)", "1/3" },
+        { "(< 1 2.5 100000000000000000000)", "#t" },
+        { "(< -5 -100000000000000000000)", "#f" },
+        { "(= 2 2.0 4/2)", "#t" },
+        { "(= 1 1+2i)", "#f" },
+        { "(= 1.0+0.i 1)", "#t" },
+        { "(eqv? 2 2.0)", "#f" },
+        { "(exact? 1/2)", "#t" },
+        { "(integer? 2.0)", "#t" },
+        { "(number->string 1/3 2)", "\"1/11\"" }
+    };
+
+    private AppContext ctx;
+
+    protected void setUp() throws Exception
+    {
+        ctx = new AppContext();
+        ctx.addDefaultHeap();
+    }
+
+    protected void tearDown()
+    {
+        ctx = null;
+    }
+
+    public void testRepresentations()
+    {
+        assertTrue(Quantity.valueOf(7) instanceof Fixnum);
+        assertTrue(Quantity.valueOf(1L << 31) instanceof Bignum);
+        assertTrue(Quantity.valueOf("123456789012345678901") instanceof Bignum);
+        assertTrue(Quantity.valueOf("-2/4") instanceof Ratnum);
+        assertEquals("-1/2", Quantity.valueOf("-2/4").toString());
+        assertTrue(Quantity.valueOf("4/2") instanceof Fixnum);
+        assertTrue(Quantity.valueOf(1.5) instanceof Flonum);
+        assertTrue(Quantity.valueOf(1.0, 2.0) instanceof Compnum);
+        assertTrue(Quantity.valueOf(1.0, 0.0) instanceof Flonum);
+    }
+
+    public void testFixnumCache()
+    {
+        assertSame(Quantity.valueOf(5), Quantity.valueOf(5));
+        assertSame(Quantity.valueOf(-1), Quantity.valueOf(2).sub(Quantity.valueOf(3)));
+        assertSame(Quantity.ZERO, Quantity.valueOf(0L));
+        assertEquals(Quantity.valueOf(100000), Quantity.valueOf(100000));
+    }
+
+    public void testFixnumBounds()
+    {
+        Quantity max = Quantity.valueOf(Integer.MAX_VALUE);
+        Quantity min = Quantity.valueOf(Integer.MIN_VALUE);
+        Quantity sum = max.add(Quantity.ONE);
+        assertTrue(sum instanceof Bignum);
+        assertEquals("2147483648", sum.toString());
+        assertTrue(sum.sub(Quantity.ONE) instanceof Fixnum);
+        assertTrue(min.sub(Quantity.ONE) instanceof Bignum);
+        assertEquals("2147483648", min.negate().toString());
+        assertEquals("2147483648", min.quotient(Quantity.NEGONE).toString());
+        assertEquals("4611686014132420609", max.mul(max).toString());
+    }
+
+    public void testComparisons()
+    {
+        Quantity[] ordered = {
+            Quantity.NEGATIVE_INFINITY,
+            Quantity.valueOf("-100000000000000000000"),
+            Quantity.valueOf(-7),
+            Quantity.valueOf("-1/3"),
+            Quantity.valueOf(0.25),
+            Quantity.valueOf("1/2"),
+            Quantity.valueOf(1),
+            Quantity.valueOf("100000000000000000000"),
+            Quantity.POSITIVE_INFINITY
+        };
+        for (int i = 0; i < ordered.length; i++) {
+            for (int j = 0; j < ordered.length; j++) {
+                int test = (i < j ? -1 : (i > j ? 1 : 0));
+                String msg = ordered[i] + " " + ordered[j];
+                assertTrue(msg, ordered[i].comp(ordered[j], test));
+                if (test != 0) {
+                    assertFalse(msg, ordered[i].comp(ordered[j], -test));
+                    assertFalse(msg, ordered[i].comp(ordered[j], 0));
+                }
+            }
+        }
+        assertFalse(Quantity.NaN.comp(Quantity.NaN, 0));
+        assertFalse(Quantity.ONE.comp(Quantity.NaN, -1));
+    }
+
+    public void testComplexComparisons()
+    {
+        Quantity c = Quantity.valueOf(1.0, 2.0);
+        Quantity[] reals = {
+            Quantity.ONE, Quantity.valueOf(1.0), Quantity.valueOf("1/2"),
+            Quantity.valueOf("100000000000000000000")
+        };
+        for (int i = 0; i < reals.length; i++) {
+            assertFalse(reals[i].comp(c, 0));
+            assertFalse(c.comp(reals[i], 0));
+            try {
+                reals[i].comp(c, -1);
+                fail(reals[i] + " ordered against " + c);
+            } catch (ArithmeticException e) {
+            }
+            try {
+                c.comp(reals[i], 1);
+                fail(c + " ordered against " + reals[i]);
+            } catch (ArithmeticException e) {
+            }
+        }
+    }
+
+    public void testArithmetic() throws Exception
+    {
+        Interpreter r = Context.enter(ctx);
+        try {
+            for (int i = 0; i < RESULTS.length; i++) {
+                assertEquals(RESULTS[i][0], RESULTS[i][1],
+                             r.eval(RESULTS[i][0]).toString());
+            }
+        } finally {
+            Context.exit();
+        }
+    }
+
+    public void testComplexOrder() throws Exception
+    {
+        Interpreter r = Context.enter(ctx);
+        try {
+            r.eval("(max 1 1+2i)");
+            fail("(max 1 1+2i) returned");
+        } catch (SchemeException e) {
+        } finally {
+            Context.exit();
+        }
+    }
+}
+/*
+ * The contents of this file are subject to the Mozilla Public
+ * License Version 1.1 (the "License"); you may not use this file
+ * except in compliance with the License. You may obtain a copy of
+ * the License at http://www.mozilla.org/MPL/
+ * 
+ * Software distributed under the License is distributed on an "AS
+ * IS" basis, WITHOUT WARRANTY OF ANY KIND, either express or
+ * implied. See the License for the specific language governing
+ * rights and limitations under the License.
+ * 
+ * The Original Code is the Second Interpreter of Scheme Code (SISC).
+ * 
+ * The Initial Developer of the Original Code is Scott G. Miller.
+ * Portions created by Scott G. Miller are Copyright (C) 2000-2007
+ * Scott G. Miller.  All Rights Reserved.
+ * 
+ * Contributor(s):
+ * 
+ * Alternatively, the contents of this file may be used under the
+ * terms of the GNU General Public License Version 2 or later (the
+ * "GPL"), in which case the provisions of the GPL are applicable 
+ * instead of those above.  If you wish to allow use of your 
+ * version of this file only under the terms of the GPL and not to
+ * allow others to use your version of this file under the MPL,
+ * indicate your decision by deleting the provisions above and
+ * replace them with the notice and other provisions required by
+ * the GPL.  If you do not delete the provisions above, a recipient
+ * may use your version of this file under either the MPL or the
+ * GPL.
+ */
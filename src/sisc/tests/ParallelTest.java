@@ -0,0 +1,137 @@
+package sisc.tests;
+
+import junit.framework.TestCase;
+
+import sisc.data.Value;
+import sisc.interpreter.AppContext;
+import sisc.interpreter.Context;
+import sisc.interpreter.Interpreter;
+import sisc.util.Util;
+
+/**
+ * Tests parallel-map and parallel-reduce, in particular that
+ * continuations cannot carry control across the applications they
+ * make on worker threads.
+ */
+public class ParallelTest extends TestCase
+{
+    private AppContext ctx;
+
+    protected void setUp() throws Exception
+    {
+        ctx = new AppContext();
+        ctx.addDefaultHeap();
+        //bound directly, so that this does not depend on the heap
+        //exporting them
+        eval("(define threads (load-native-library \"sisc.modules.Threads$Index\"))");
+        eval("(define pmap (native-library-binding threads 'parallel-map))");
+        eval("(define preduce (native-library-binding threads 'parallel-reduce))");
+        eval("(define (fails? thunk)"
+             + "  (call/cc (lambda (k)"
+             + "    (with/fc (lambda (m e) (k #t))"
+             + "      (lambda () (thunk) #f)))))");
+    }
+
+    protected void tearDown()
+    {
+        ctx = null;
+    }
+
+    private Value eval(String expr) throws Exception
+    {
+        Interpreter r = Context.enter(ctx);
+        try {
+            return r.eval(expr);
+        } finally {
+            Context.exit();
+        }
+    }
+
+    private void assertTrue(String expr) throws Exception
+    {
+        assertEquals(expr, Util.TRUE, eval(expr));
+    }
+
+    public void testMap() throws Exception
+    {
+        assertTrue("(equal? (pmap (lambda (x) (* x x)) '(1 2 3 4 5))"
+                   + "        '(1 4 9 16 25))");
+        assertTrue("(equal? (pmap - '#(1 2 3)) '#(-1 -2 -3))");
+        assertTrue("(null? (pmap - '()))");
+    }
+
+    public void testReduce() throws Exception
+    {
+        assertTrue("(= (preduce + 0 '(1 2 3 4 5 6 7 8 9 10)) 55)");
+    }
+
+    public void testError() throws Exception
+    {
+        assertTrue("(fails? (lambda () (pmap car '(1 2 3))))");
+    }
+
+    public void testEscapeWithinApplication() throws Exception
+    {
+        assertTrue("(equal? (pmap (lambda (x)"
+                   + "                (call/cc (lambda (k) (k (* x 10)))))"
+                   + "              '(1 2 3))"
+                   + "        '(10 20 30))");
+    }
+
+    public void testEscapeToCaller() throws Exception
+    {
+        assertTrue("(fails? (lambda ()"
+                   + "  (list 'result"
+                   + "        (call/cc (lambda (k)"
+                   + "          (pmap (lambda (x) (if (= x 3) (k 'escaped) x))"
+                   + "                '(1 2 3 4)))))))");
+    }
+
+    public void testUnsafeEscapeToCaller() throws Exception
+    {
+        assertTrue("(fails? (lambda ()"
+                   + "  (list 'result"
+                   + "        (call/cc-unsafe (lambda (k)"
+                   + "          (pmap (lambda (x) (if (= x 3) (k 'escaped) x))"
+                   + "                '(1 2 3 4)))))))");
+    }
+
+    public void testReentry() throws Exception
+    {
+        eval("(define saved #f)");
+        eval("(pmap (lambda (x) (call/cc (lambda (k) (set! saved k) x)))"
+             + "     '(1))");
+        assertTrue("(fails? (lambda () (saved 5)))");
+    }
+}
+/*
+ * The contents of this file are subject to the Mozilla Public
+ * License Version 1.1 (the "License"); you may not use this file
+ * except in compliance with the License. You may obtain a copy of
+ * the License at http://www.mozilla.org/MPL/
+ * 
+ * Software distributed under the License is distributed on an "AS
+ * IS" basis, WITHOUT WARRANTY OF ANY KIND, either express or
+ * implied. See the License for the specific language governing
+ * rights and limitations under the License.
+ * 
+ * The Original Code is the Second Interpreter of Scheme Code (SISC).
+ * 
+ * The Initial Developer of the Original Code is Scott G. Miller.
+ * Portions created by Scott G. Miller are Copyright (C) 2000-2007
+ * Scott G. Miller.  All Rights Reserved.
+ * 
+ * Contributor(s):
+ * 
+ * Alternatively, the contents of this file may be used under the
+ * terms of the GNU General Public License Version 2 or later (the
+ * "GPL"), in which case the provisions of the GPL are applicable 
+ * instead of those above.  If you wish to allow use of your 
+ * version of this file only under the terms of the GPL and not to
+ * allow others to use your version of this file under the MPL,
+ * indicate your decision by deleting the provisions above and
+ * replace them with the notice and other provisions required by
+ * the GPL.  If you do not delete the provisions above, a recipient
+ * may use your version of this file under either the MPL or the
+ * GPL.
+ */
@@ -0,0 +1,257 @@
+package sisc.tests;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import junit.framework.TestCase;
+
+import sisc.data.Quantity;
+import sisc.data.Symbol;
+import sisc.data.Value;
+import sisc.reader.BufferedPushbackReader;
+import sisc.reader.IncrementalParser;
+import sisc.reader.Lexer;
+import sisc.reader.ParallelReader;
+import sisc.reader.Parser;
+import sisc.util.Util;
+
+/**
+ * Tests that the chunked readers read the same datums as
+ * Parser.nextExpression reading the whole input.
+ */
+public class ReaderTest extends TestCase
+{
+    private static final String[] INPUTS = {
+        "(d \"x\ny\")",
+        "(a b)\n(c\n d)\n  e 12 \"f\" #\\( #\\) #\\space\n",
+        "(define (f x)\n  ;; a comment (\n  (* x 2))\n(f 21)",
+        "#| block (\n #| nested |# |#\n(x) #;(y\n z) w",
+        "|sym with ) and\nnewline| #(1 2\n3) '(a . b) `(,c ,@d)",
+        "\"a \\\" quoted\n( string\" (e)",
+        "#t #f #\\a 1.5e3 -7 1/2 foo\n"
+    };
+
+    private Parser parser;
+
+    protected void setUp()
+    {
+        parser = new Parser(new Lexer());
+    }
+
+    private List readSequential(String s) throws IOException
+    {
+        List res = new ArrayList();
+        BufferedPushbackReader in =
+            new BufferedPushbackReader(new StringReader(s));
+        try {
+            for (Value v = parser.nextExpression(in); v != Util.EOF;
+                 v = parser.nextExpression(in)) {
+                res.add(v);
+            }
+        } catch (EOFException e) {
+        }
+        return res;
+    }
+
+    private List readParallel(String s, ExecutorService pool, int chunkSize)
+        throws IOException
+    {
+        List res = new ArrayList();
+        ParallelReader in =
+            new ParallelReader(new StringReader(s), pool, 2, parser,
+                               Parser.PRODUCE_IMMUTABLES, chunkSize);
+        try {
+            for (Value v = in.next(); v != Util.EOF; v = in.next()) {
+                res.add(v);
+            }
+        } catch (EOFException e) {
+        } finally {
+            in.close();
+        }
+        return res;
+    }
+
+    private List readIncremental(String s, Random rnd, int maxChunk)
+        throws IOException
+    {
+        List res = new ArrayList();
+        IncrementalParser in = new IncrementalParser(parser);
+        char[] c = s.toCharArray();
+        for (int off = 0; off < c.length; ) {
+            int len = Math.min(c.length - off, 1 + rnd.nextInt(maxChunk));
+            in.feed(c, off, len);
+            off += len;
+            drain(in, res);
+        }
+        in.end();
+        drain(in, res);
+        return res;
+    }
+
+    private static void drain(IncrementalParser in, List res)
+        throws IOException
+    {
+        while (in.hasNext()) {
+            Value v = in.next();
+            if (v != null) res.add(v);
+        }
+    }
+
+    private static void assertSame(String s, List expected, List actual)
+    {
+        assertEquals(s, expected.size(), actual.size());
+        for (int i = 0; i < expected.size(); i++) {
+            Value e = (Value)expected.get(i);
+            Value a = (Value)actual.get(i);
+            assertTrue(s + ": " + e + " != " + a, e.valueEqual(a));
+        }
+    }
+
+    private static final String[] NUMBERS = {
+        "0", "-0", "+0", "0.0", "-0.0", "+0.0", ".5", "-.5", "5.", "-5.",
+        "1e2", "1E2", "1e+2", "1e-2", "-1.5e-3", "1.e2", ".e2", "1e", "1e+",
+        "e2", "+", "-", "...", "1.2.3", "1e2e3", "1/2", "1+2i", "+i",
+        "1e309", "-1e309", "1e-400", "4.9e-324", "1.7976931348623157e308",
+        "123456789012345678", "1234567890123456789",
+        "-9223372036854775808", "9223372036854775808",
+        "99999999999999999999999", "9007199254740993.0",
+        "0.1", "0.30000000000000004", "1234567.890123456789",
+        "1e22", "1e23", "123e-22", "1e-23", "00012", "1e0100000000",
+        "1a", "1-", "-1.5x"
+    };
+
+    private static Value readToken(Parser p, String s) throws IOException
+    {
+        return p.nextExpression(new BufferedPushbackReader
+                                (new StringReader(s)));
+    }
+
+    private static void assertNumber(Parser p, String s) throws IOException
+    {
+        Value expected;
+        try {
+            expected = Quantity.valueOf(s);
+        } catch (NumberFormatException e) {
+            expected = Symbol.get(s);
+        }
+        Value actual = readToken(p, s);
+        assertEquals(s, expected.getClass(), actual.getClass());
+        assertEquals(s, expected.toString(), actual.toString());
+        assertTrue(s, expected.eqv(actual));
+    }
+
+    public void testDecimals() throws IOException
+    {
+        for (int i = 0; i < NUMBERS.length; i++) {
+            assertNumber(parser, NUMBERS[i]);
+        }
+    }
+
+    public void testRandomDecimals() throws IOException
+    {
+        Random rnd = new Random(18);
+        String chars = "0123456789.+-e";
+        for (int n = 0; n < 20000; n++) {
+            StringBuffer b = new StringBuffer();
+            int len = 1 + rnd.nextInt(12);
+            //tokens starting with e are never read as numbers
+            b.append(chars.charAt(rnd.nextInt(chars.length() - 1)));
+            for (int i = 1; i < len; i++) {
+                b.append(chars.charAt(rnd.nextInt(chars.length())));
+            }
+            //a lone dot is not a datum
+            if (!b.toString().equals(".")) {
+                assertNumber(parser, b.toString());
+            }
+        }
+    }
+
+    public void testParallelReaderChunks() throws IOException
+    {
+        for (int i = 0; i < INPUTS.length; i++) {
+            List expected = readSequential(INPUTS[i]);
+            for (int size = 1; size <= INPUTS[i].length() + 1; size++) {
+                assertSame(INPUTS[i], expected,
+                           readParallel(INPUTS[i], null, size));
+            }
+        }
+    }
+
+    public void testIncrementalParserChunks() throws IOException
+    {
+        Random rnd = new Random(19);
+        for (int i = 0; i < INPUTS.length; i++) {
+            List expected = readSequential(INPUTS[i]);
+            for (int n = 0; n < 200; n++) {
+                assertSame(INPUTS[i], expected,
+                           readIncremental(INPUTS[i], rnd, 1 + n % 8));
+            }
+        }
+    }
+
+    public void testIncrementalParserAll() throws IOException
+    {
+        StringBuffer b = new StringBuffer();
+        for (int i = 0; i < INPUTS.length; i++) {
+            b.append(INPUTS[i]).append('\n');
+        }
+        String s = b.toString();
+        List expected = readSequential(s);
+        Random rnd = new Random(42);
+        for (int n = 0; n < 100; n++) {
+            assertSame("all", expected, readIncremental(s, rnd, 64));
+        }
+    }
+
+    public void testParallelReaderPool() throws IOException
+    {
+        StringBuffer b = new StringBuffer();
+        for (int i = 0; i < 500; i++) {
+            b.append(INPUTS[i % INPUTS.length]).append('\n');
+        }
+        String s = b.toString();
+        ExecutorService pool = Executors.newFixedThreadPool(2);
+        try {
+            assertSame("pool", readSequential(s), readParallel(s, pool, 64));
+        } finally {
+            pool.shutdown();
+        }
+    }
+}
+/*
+ * The contents of this file are subject to the Mozilla Public
+ * License Version 1.1 (the "License"); you may not use this file
+ * except in compliance with the License. You may obtain a copy of
+ * the License at http://www.mozilla.org/MPL/
+ * 
+ * Software distributed under the License is distributed on an "AS
+ * IS" basis, WITHOUT WARRANTY OF ANY KIND, either express or
+ * implied. See the License for the specific language governing
+ * rights and limitations under the License.
+ * 
+ * The Original Code is the Second Interpreter of Scheme Code (SISC).
+ * 
+ * The Initial Developer of the Original Code is Scott G. Miller.
+ * Portions created by Scott G. Miller are Copyright (C) 2000-2007
+ * Scott G. Miller.  All Rights Reserved.
+ * 
+ * Contributor(s):
+ * 
+ * Alternatively, the contents of this file may be used under the
+ * terms of the GNU General Public License Version 2 or later (the
+ * "GPL"), in which case the provisions of the GPL are applicable 
+ * instead of those above.  If you wish to allow use of your 
+ * version of this file only under the terms of the GPL and not to
+ * allow others to use your version of this file under the MPL,
+ * indicate your decision by deleting the provisions above and
+ * replace them with the notice and other provisions required by
+ * the GPL.  If you do not delete the provisions above, a recipient
+ * may use your version of this file under either the MPL or the
+ * GPL.
+ */
@@ -0,0 +1,195 @@
+package sisc.tests;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+
+import junit.framework.TestCase;
+
+import sisc.data.Symbol;
+import sisc.data.Value;
+import sisc.interpreter.AppContext;
+import sisc.interpreter.Context;
+import sisc.interpreter.Interpreter;
+import sisc.ser.MemoryRandomAccessInputStream;
+import sisc.util.Util;
+
+/**
+ * Tests that heaps written by AppContext.saveSnapshot boot and keep
+ * what was defined before the snapshot was taken.
+ */
+public class SnapshotTest extends TestCase
+{
+    private AppContext ctx;
+
+    protected void setUp() throws Exception
+    {
+        ctx = new AppContext();
+        ctx.addDefaultHeap();
+        eval(ctx, "(import hashtable)");
+    }
+
+    protected void tearDown()
+    {
+        ctx = null;
+    }
+
+    private static Value eval(AppContext ctx, String expr)
+        throws Exception
+    {
+        Interpreter r = Context.enter(ctx);
+        try {
+            return r.eval(expr);
+        } finally {
+            Context.exit();
+        }
+    }
+
+    private static AppContext roundTrip(AppContext ctx) throws Exception
+    {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        Context.enter(ctx);
+        try {
+            ctx.saveSnapshot(out);
+        } finally {
+            Context.exit();
+        }
+        assertTrue(out.size() > 0);
+        AppContext res = new AppContext();
+        assertTrue(res.addHeap(new MemoryRandomAccessInputStream(
+            new ByteArrayInputStream(out.toByteArray()))));
+        return res;
+    }
+
+    public void testDefinitions() throws Exception
+    {
+        eval(ctx, "(define (twice x) (* x 2))");
+        eval(ctx, "(define numbers (list 1 2 3))");
+        AppContext loaded = roundTrip(ctx);
+        assertEquals(Util.TRUE,
+                     eval(loaded, "(equal? (map twice numbers) '(2 4 6))"));
+    }
+
+    public void testDefinitionOfInheritedValue() throws Exception
+    {
+        eval(ctx, "(define cadr cadr)");
+        AppContext loaded = roundTrip(ctx);
+        Context.enter(loaded);
+        try {
+            loaded.toplevel_env.getParent().define(Symbol.get("cadr"),
+                                                   Util.FALSE);
+        } finally {
+            Context.exit();
+        }
+        assertEquals(Util.TRUE, eval(loaded, "(procedure? cadr)"));
+    }
+
+    public void testSnapshotOfSnapshot() throws Exception
+    {
+        eval(ctx, "(define (twice x) (* x 2))");
+        AppContext loaded = roundTrip(roundTrip(ctx));
+        //use bindings all over the heap, including modules which
+        //were not loaded when the snapshots were taken
+        assertEquals(Util.TRUE, eval(loaded, "(= (twice 21) 42)"));
+        assertEquals(Util.TRUE,
+                     eval(loaded,
+                          "(begin (import threading) (import record)"
+                          + "  (define-record-type point (make-point x) point?"
+                          + "    (x point-x))"
+                          + "  (let ((t (thread/spawn (lambda () (make-point 7)))))"
+                          + "    (thread/join t)"
+                          + "    (= (point-x (thread/result t)) 7)))"));
+        assertEquals(Util.TRUE,
+                     eval(loaded,
+                          "(begin (import string-io)"
+                          + "  (equal? (with-output-to-string"
+                          + "           (lambda () (pretty-print '(a b))))"
+                          + "         \"(a b)\"))"));
+    }
+
+    private void assertTable(String make, String key, String pred)
+        throws Exception
+    {
+        eval(ctx, "(define k " + key + ")");
+        eval(ctx, "(define ht " + make + ")");
+        eval(ctx, "(hashtable/put! ht k 'v)");
+        AppContext loaded = roundTrip(ctx);
+        eval(loaded, "(import hashtable)");
+        assertEquals(Util.TRUE, eval(loaded, pred));
+        assertEquals(Util.TRUE, eval(loaded, "(eq? (hashtable/get ht k) 'v)"));
+        assertEquals(Util.TRUE, eval(loaded, "(= (hashtable/size ht) 1)"));
+    }
+
+    public void testSynchronizedHashtable() throws Exception
+    {
+        assertTable("(make-hashtable equal?)", "(list 1 \"a\")",
+                    "(hashtable/thread-safe? ht)");
+    }
+
+    public void testOpenHashtable() throws Exception
+    {
+        assertTable("(make-hashtable eq? #f)", "'k",
+                    "(not (hashtable/thread-safe? ht))");
+    }
+
+    public void testUserHashtable() throws Exception
+    {
+        assertTable("(make-hashtable (lambda (x y) (equal? x y))"
+                    + "                hash-by-equal #f)",
+                    "(vector 1 2)", "(hashtable? ht)");
+    }
+
+    public void testWeakHashtable() throws Exception
+    {
+        assertTable("(make-hashtable eq? #f #t)", "(list 'k)",
+                    "(hashtable/weak? ht)");
+    }
+
+    public void testEphemeronHashtable() throws Exception
+    {
+        assertTable("(make-hashtable eq? #f 'ephemeron)", "(list 'k)",
+                    "(hashtable/weak? ht)");
+    }
+
+    public void testConcurrentHashtable() throws Exception
+    {
+        //bound directly, so that this does not depend on the heap
+        //exporting hashtable/make-concurrent
+        assertTable("((native-library-binding"
+                    + "   (load-native-library"
+                    + "     \"sisc.modules.hashtable.Primitives$Index\")"
+                    + "   '_hashtable/make-concurrent)"
+                    + " equal? hash-by-equal)",
+                    "\"k\"", "(hashtable? ht)");
+    }
+}
+/*
+ * The contents of this file are subject to the Mozilla Public
+ * License Version 1.1 (the "License"); you may not use this file
+ * except in compliance with the License. You may obtain a copy of
+ * the License at http://www.mozilla.org/MPL/
+ * 
+ * Software distributed under the License is distributed on an "AS
+ * IS" basis, WITHOUT WARRANTY OF ANY KIND, either express or
+ * implied. See the License for the specific language governing
+ * rights and limitations under the License.
+ * 
+ * The Original Code is the Second Interpreter of Scheme Code (SISC).
+ * 
+ * The Initial Developer of the Original Code is Scott G. Miller.
+ * Portions created by Scott G. Miller are Copyright (C) 2000-2007
+ * Scott G. Miller.  All Rights Reserved.
+ * 
+ * Contributor(s):
+ * 
+ * Alternatively, the contents of this file may be used under the
+ * terms of the GNU General Public License Version 2 or later (the
+ * "GPL"), in which case the provisions of the GPL are applicable 
+ * instead of those above.  If you wish to allow use of your 
+ * version of this file only under the terms of the GPL and not to
+ * allow others to use your version of this file under the MPL,
+ * indicate your decision by deleting the provisions above and
+ * replace them with the notice and other provisions required by
+ * the GPL.  If you do not delete the provisions above, a recipient
+ * may use your version of this file under either the MPL or the
+ * GPL.
+ */
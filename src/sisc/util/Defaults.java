@@ -6,6 +6,16 @@ public abstract class Defaults {
     public static boolean PERMIT_INTERRUPTS           = true;
     public static int     MIN_FLOAT_PRECISION         = 16;
     public static int     MAX_FLOAT_PRECISION         = 32;
+    public static int     FIXNUM_CACHE_LOW            = -1024;
+    public static int     FIXNUM_CACHE_HIGH           = 1023;
+    public static int     FRAME_POOL_MIN              = 128;
+    public static int     FRAME_POOL_MAX              = 16384;
+    public static int     INTERPRETER_POOL_SIZE       = 16;
+    public static int     INTERPRETER_POOL_FRAMES     = 512;
+    public static boolean VIRTUAL_THREADS             = false;
+    public static int     PARALLELISM                 = 0;
+    public static boolean HEAP_PREWARM                = false;
+    public static boolean HEAP_COMPRESS               = false;
     public static int     MAX_STACK_TRACE_DEPTH       = 0;
     public static boolean CASE_SENSITIVE              = false;
     public static boolean PRINT_SHARED                = true;
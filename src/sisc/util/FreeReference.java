@@ -7,6 +7,7 @@ import java.util.Set;
 import java.util.HashSet;
 import sisc.ser.Serializer;
 import sisc.ser.Deserializer;
+import sisc.env.MemorySymEnv;
 import sisc.env.SymbolicEnvironment;
 import sisc.util.ExpressionVisitor;
 
@@ -18,6 +19,22 @@ public class FreeReference implements ExpressionVisitee {
     private Symbol sym;
     private SymbolicEnvironment senv;
     private transient int envLoc=-1;
+    private transient Slot slot;
+
+    /**
+     * Where the binding lives when senv is a MemorySymEnv.  The
+     * segments of a MemorySymEnv never move, so this stays valid for
+     * every value the binding takes, and needs no invalidation.
+     */
+    private static final class Slot {
+        final Value[] segment;
+        final int offset;
+
+        Slot(Value[] segment, int offset) {
+            this.segment=segment;
+            this.offset=offset;
+        }
+    }
 
     public FreeReference(Symbol sym, SymbolicEnvironment senv) {
         this.senv = senv;
@@ -37,11 +54,18 @@ public class FreeReference implements ExpressionVisitee {
         //this is an optimization that ensures we short-circuit
         //any DelegatingSymEnvs
         senv = (SymbolicEnvironment)senv.asValue();
-        envLoc=senv.getLoc(sym);
-        if (envLoc<0) throw new UndefinedVarException(sym.toString());
+        int loc=senv.getLoc(sym);
+        if (loc<0) throw new UndefinedVarException(sym.toString());
+        if (senv instanceof MemorySymEnv) {
+            slot=new Slot(((MemorySymEnv)senv).segmentOfLoc(loc),
+                          MemorySymEnv.offsetOf(loc));
+        }
+        envLoc=loc;
     }
 
     public Value getValue() throws UndefinedVarException {
+        Slot s=slot;
+        if (s!=null) return s.segment[s.offset];
         if (envLoc<0) resolve();
         return senv.lookup(envLoc);
     }
@@ -72,6 +96,7 @@ public class FreeReference implements ExpressionVisitee {
         sym=(Symbol)s.readExpression();
         senv=s.readSymbolicEnvironment();
         envLoc=-1;
+        slot=null;
         //allReferences.add(this);
     }
 
@@ -47,6 +47,22 @@ public abstract class Util implements Version {
     public static final int maxFloatPrecision =
         Integer.parseInt(safeGetProperty("sisc.maxFloatPrecision",
                                          Integer.toString(Defaults.MAX_FLOAT_PRECISION)));
+    public static final int fixnumCacheLow =
+        Integer.parseInt(safeGetProperty("sisc.fixnumCacheLow",
+                                         Integer.toString(Defaults.FIXNUM_CACHE_LOW)));
+    public static final int fixnumCacheHigh =
+        Integer.parseInt(safeGetProperty("sisc.fixnumCacheHigh",
+                                         Integer.toString(Defaults.FIXNUM_CACHE_HIGH)));
+    public static final int framePoolMin =
+        Integer.parseInt(safeGetProperty("sisc.framePoolMin",
+                                         Integer.toString(Defaults.FRAME_POOL_MIN)));
+    public static final int framePoolMax =
+        Integer.parseInt(safeGetProperty("sisc.framePoolMax",
+                                         Integer.toString(Defaults.FRAME_POOL_MAX)));
+    //0 means one worker per available processor
+    public static final int parallelism =
+        Integer.parseInt(safeGetProperty("sisc.parallelism",
+                                         Integer.toString(Defaults.PARALLELISM)));
 
     public static final Value[] ZV = new Value[0];
     public static final Quantity FIVE = Quantity.valueOf(5);